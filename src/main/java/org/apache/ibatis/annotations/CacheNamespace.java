@@ -71,6 +71,14 @@ public @interface CacheNamespace {
    */
   long flushInterval() default 0;
 
+  /**
+   * Returns the time after which each entry expires.
+   *
+   * @return the time to live in milliseconds, 0 if entries do not expire
+   * @since 3.5.8
+   */
+  long timeToLive() default 0;
+
   /**
    * Return the cache size.
    *
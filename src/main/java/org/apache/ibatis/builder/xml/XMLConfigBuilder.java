@@ -23,6 +23,7 @@ import javax.sql.DataSource;
 
 import org.apache.ibatis.builder.BaseBuilder;
 import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.cache.serializer.CacheSerializer;
 import org.apache.ibatis.datasource.DataSourceFactory;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.loader.ProxyFactory;
@@ -241,11 +242,27 @@ public class XMLConfigBuilder extends BaseBuilder {
     }
   }
 
+  private CacheSerializer createCacheSerializer(String alias) {
+    Class<? extends CacheSerializer> type = resolveClass(alias);
+    if (type == null) {
+      return null;
+    }
+    try {
+      // serializers reading beans share the reflectors of the configuration
+      return type.getDeclaredConstructor(ReflectorFactory.class).newInstance(configuration.getReflectorFactory());
+    } catch (NoSuchMethodException e) {
+      return (CacheSerializer) createInstance(alias);
+    } catch (Exception e) {
+      throw new BuilderException("Error creating instance. Cause: " + e, e);
+    }
+  }
+
   private void settingsElement(Properties props) {
     configuration.setAutoMappingBehavior(AutoMappingBehavior.valueOf(props.getProperty("autoMappingBehavior", "PARTIAL")));
     configuration.setAutoMappingUnknownColumnBehavior(AutoMappingUnknownColumnBehavior.valueOf(props.getProperty("autoMappingUnknownColumnBehavior", "NONE")));
     configuration.setCacheEnabled(booleanValueOf(props.getProperty("cacheEnabled"), true));
     configuration.setProxyFactory((ProxyFactory) createInstance(props.getProperty("proxyFactory")));
+    configuration.setCacheSerializer(createCacheSerializer(props.getProperty("cacheSerializer")));
     configuration.setLazyLoadingEnabled(booleanValueOf(props.getProperty("lazyLoadingEnabled"), false));
     configuration.setAggressiveLazyLoading(booleanValueOf(props.getProperty("aggressiveLazyLoading"), false));
     configuration.setMultipleResultSetsEnabled(booleanValueOf(props.getProperty("multipleResultSetsEnabled"), true));
@@ -270,6 +287,18 @@ public class XMLConfigBuilder extends BaseBuilder {
     configuration.setConfigurationFactory(resolveClass(props.getProperty("configurationFactory")));
     configuration.setShrinkWhitespacesInSql(booleanValueOf(props.getProperty("shrinkWhitespacesInSql"), false));
     configuration.setDefaultSqlProviderType(resolveClass(props.getProperty("defaultSqlProviderType")));
+    configuration.setCompiledRowMappingEnabled(booleanValueOf(props.getProperty("compiledRowMappingEnabled"), false));
+    configuration.setDynamicSqlPlanCacheEnabled(booleanValueOf(props.getProperty("dynamicSqlPlanCacheEnabled"), false));
+    configuration.setCompiledExpressionsEnabled(booleanValueOf(props.getProperty("compiledExpressionsEnabled"), false));
+    configuration.setCursorPrefetchSize(integerValueOf(props.getProperty("cursorPrefetchSize"), null));
+    configuration.setMaxReusedStatements(integerValueOf(props.getProperty("maxReusedStatements"), null));
+    configuration.setBatchInsertRowsPerStatement(integerValueOf(props.getProperty("batchInsertRowsPerStatement"), null));
+    configuration.setBatchFlushSize(integerValueOf(props.getProperty("batchFlushSize"), null));
+    configuration.setBatchFlushBytes(longValueOf(props.getProperty("batchFlushBytes"), null));
+    configuration.setRetainBatchParameterObjects(booleanValueOf(props.getProperty("retainBatchParameterObjects"), true));
+    configuration.setCompiledParameterBindingEnabled(booleanValueOf(props.getProperty("compiledParameterBindingEnabled"), false));
+    configuration.setLazyLoadingBatchSize(integerValueOf(props.getProperty("lazyLoadingBatchSize"), null));
+    configuration.setNestedSelectBatchSize(integerValueOf(props.getProperty("nestedSelectBatchSize"), null));
   }
 
   private void environmentsElement(XNode context) throws Exception {
@@ -206,11 +206,16 @@ public class XMLMapperBuilder extends BaseBuilder {
       String eviction = context.getStringAttribute("eviction", "LRU");
       Class<? extends Cache> evictionClass = typeAliasRegistry.resolveAlias(eviction);
       Long flushInterval = context.getLongAttribute("flushInterval");
+      Long timeToLive = context.getLongAttribute("timeToLive");
+      if (timeToLive == null && !context.getParent().evalNodes("select[@cacheTimeToLive]").isEmpty()) {
+        // the results of these statements still have to expire
+        timeToLive = 0L;
+      }
       Integer size = context.getIntAttribute("size");
       boolean readWrite = !context.getBooleanAttribute("readOnly", false);
       boolean blocking = context.getBooleanAttribute("blocking", false);
       Properties props = context.getChildrenAsProperties();
-      builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking, props);
+      builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, timeToLive, size, readWrite, blocking, props);
     }
   }
 
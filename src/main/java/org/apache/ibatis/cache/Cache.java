@@ -54,6 +54,22 @@ public interface Cache {
    */
   void putObject(Object key, Object value);
 
+  /**
+   * Puts a value that expires after the given time. Decorators must pass the time to live on to their delegate.
+   * Caches that do not support per entry expiration ignore it.
+   *
+   * @param key
+   *          Can be any object but usually it is a {@link CacheKey}
+   * @param value
+   *          The result of a select.
+   * @param timeToLive
+   *          The time in milliseconds after which the value expires.
+   * @since 3.5.8
+   */
+  default void putObject(Object key, Object value, long timeToLive) {
+    putObject(key, value);
+  }
+
   /**
    * @param key
    *          The key
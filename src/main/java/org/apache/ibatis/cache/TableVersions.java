@@ -0,0 +1,78 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.util.MapUtil;
+
+/**
+ * Versions of the tables declared by the <code>cacheTables</code> of mapped statements.
+ * <p>
+ * The versions of the tables a select reads are part of its cache key, so a statement writing a table invalidates the
+ * cached results that read it, in every namespace, just by incrementing its version. Results cached under older
+ * versions are never hit again and are evicted like any other entry. Caches also used by selects that do not declare
+ * their tables are still cleared by every write.
+ *
+ * @since 3.5.8
+ * @see MappedStatement#getCacheTables()
+ */
+public class TableVersions {
+
+  private final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+  private final Set<String> cachesWithUndeclaredTables = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Registers a mapped statement.
+   *
+   * @param ms
+   *          the mapped statement
+   */
+  public void addMappedStatement(MappedStatement ms) {
+    if (ms.getCache() != null && ms.isUseCache() && ms.getSqlCommandType() == SqlCommandType.SELECT
+        && ms.getCacheTables() == null) {
+      cachesWithUndeclaredTables.add(ms.getCache().getId());
+    }
+  }
+
+  /**
+   * Returns whether every select using the cache declares its tables, so writes do not need to clear it.
+   *
+   * @param cache
+   *          the cache
+   * @return <code>true</code> if entries are only invalidated through table versions
+   */
+  public boolean isTableAware(Cache cache) {
+    return !cachesWithUndeclaredTables.contains(cache.getId());
+  }
+
+  public long getVersion(String table) {
+    AtomicLong version = versions.get(table);
+    return version == null ? 0 : version.get();
+  }
+
+  public void increment(Collection<String> tables) {
+    for (String table : tables) {
+      MapUtil.computeIfAbsent(versions, table, k -> new AtomicLong()).incrementAndGet();
+    }
+  }
+
+}
@@ -64,6 +64,15 @@ public class BlockingCache implements Cache {
     }
   }
 
+  @Override
+  public void putObject(Object key, Object value, long timeToLive) {
+    try {
+      delegate.putObject(key, value, timeToLive);
+    } finally {
+      releaseLock(key);
+    }
+  }
+
   @Override
   public Object getObject(Object key) {
     acquireLock(key);
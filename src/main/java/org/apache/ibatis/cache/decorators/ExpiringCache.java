@@ -0,0 +1,197 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.apache.ibatis.cache.Cache;
+
+/**
+ * Per entry time to live decorator.
+ * <p>
+ * Unlike {@link ScheduledCache}, which clears the whole cache once its interval elapsed, this decorator removes each
+ * entry when its own time to live elapsed. Entries take the {@link #getTimeToLive() time to live} of the cache unless
+ * one is given when putting them. Expirations are kept in a queue ordered by deadline that is pruned on access, so
+ * expired entries are removed incrementally and an access only pays for the entries that actually expired.
+ * <p>
+ * The expiration of an entry is dropped when the entry is put again or removed, so this decorator should be placed
+ * below the eviction decorators: entries they evict are then removed through it and it keeps no more expirations than
+ * the cache keeps entries. Expired entries should in turn be removed through the eviction decorators, so that they
+ * stop counting them: see {@link #setRemovalTarget(Cache)}.
+ *
+ * @since 3.5.8
+ */
+public class ExpiringCache implements Cache {
+
+  private final Cache delegate;
+  private Cache removalTarget;
+  private final Map<Object, Expiration> expirationsByKey;
+  private final TreeSet<Expiration> expirations;
+  private long sequence;
+  private volatile long nextDeadline;
+  private long timeToLive;
+
+  public ExpiringCache(Cache delegate) {
+    this.delegate = delegate;
+    this.removalTarget = delegate;
+    this.expirationsByKey = new HashMap<>();
+    this.expirations = new TreeSet<>();
+    this.nextDeadline = Long.MAX_VALUE;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    removeExpiredEntries();
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    if (timeToLive > 0) {
+      putObject(key, value, timeToLive);
+    } else {
+      removeExpiredEntries();
+      removeExpiration(key);
+      delegate.putObject(key, value);
+    }
+  }
+
+  @Override
+  public void putObject(Object key, Object value, long timeToLive) {
+    long now = System.currentTimeMillis();
+    removeExpiredEntries(now);
+    long deadline = now + timeToLive;
+    synchronized (expirations) {
+      Expiration expiration = new Expiration(key, deadline, sequence++);
+      Expiration previous = expirationsByKey.put(key, expiration);
+      if (previous != null) {
+        expirations.remove(previous);
+      }
+      expirations.add(expiration);
+      if (deadline < nextDeadline) {
+        nextDeadline = deadline;
+      }
+    }
+    delegate.putObject(key, value);
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    removeExpiredEntries();
+    return delegate.getObject(key);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    removeExpiration(key);
+    return delegate.removeObject(key);
+  }
+
+  @Override
+  public void clear() {
+    synchronized (expirations) {
+      expirationsByKey.clear();
+      expirations.clear();
+      nextDeadline = Long.MAX_VALUE;
+    }
+    delegate.clear();
+  }
+
+  public long getTimeToLive() {
+    return timeToLive;
+  }
+
+  /**
+   * Sets the time in milliseconds after which entries put without a time to live expire. 0 means they never expire.
+   *
+   * @param timeToLive
+   *          the default time to live
+   */
+  public void setTimeToLive(long timeToLive) {
+    this.timeToLive = timeToLive;
+  }
+
+  /**
+   * Sets the cache expired entries are removed from, usually the outermost eviction decorator wrapping this one. Its
+   * <code>removeObject</code> is expected to reach this decorator, which removes the entry from its delegate.
+   *
+   * @param removalTarget
+   *          the cache to remove expired entries from, the delegate by default
+   */
+  public void setRemovalTarget(Cache removalTarget) {
+    this.removalTarget = removalTarget;
+  }
+
+  private void removeExpiration(Object key) {
+    synchronized (expirations) {
+      Expiration expiration = expirationsByKey.remove(key);
+      if (expiration != null) {
+        // nextDeadline may now be early, the next check just finds nothing due
+        expirations.remove(expiration);
+      }
+    }
+  }
+
+  private void removeExpiredEntries() {
+    removeExpiredEntries(System.currentTimeMillis());
+  }
+
+  private void removeExpiredEntries(long now) {
+    if (now < nextDeadline) {
+      return;
+    }
+    List<Object> expiredKeys = new ArrayList<>();
+    synchronized (expirations) {
+      while (!expirations.isEmpty() && expirations.first().deadline <= now) {
+        Expiration expiration = expirations.pollFirst();
+        expirationsByKey.remove(expiration.key);
+        expiredKeys.add(expiration.key);
+      }
+      nextDeadline = expirations.isEmpty() ? Long.MAX_VALUE : expirations.first().deadline;
+    }
+    for (Object key : expiredKeys) {
+      removalTarget.removeObject(key);
+    }
+  }
+
+  private static class Expiration implements Comparable<Expiration> {
+    private final Object key;
+    private final long deadline;
+    private final long sequence;
+
+    Expiration(Object key, long deadline, long sequence) {
+      this.key = key;
+      this.deadline = deadline;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public int compareTo(Expiration other) {
+      int result = Long.compare(deadline, other.deadline);
+      return result != 0 ? result : Long.compare(sequence, other.sequence);
+    }
+  }
+
+}
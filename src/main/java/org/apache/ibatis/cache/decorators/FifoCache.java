@@ -57,6 +57,12 @@ public class FifoCache implements Cache {
     delegate.putObject(key, value);
   }
 
+  @Override
+  public void putObject(Object key, Object value, long timeToLive) {
+    cycleKeyList(key);
+    delegate.putObject(key, value, timeToLive);
+  }
+
   @Override
   public Object getObject(Object key) {
     return delegate.getObject(key);
@@ -67,6 +67,12 @@ public class LruCache implements Cache {
     cycleKeyList(key);
   }
 
+  @Override
+  public void putObject(Object key, Object value, long timeToLive) {
+    delegate.putObject(key, value, timeToLive);
+    cycleKeyList(key);
+  }
+
   @Override
   public Object getObject(Object key) {
     keyMap.get(key); // touch
@@ -75,6 +81,7 @@ public class LruCache implements Cache {
 
   @Override
   public Object removeObject(Object key) {
+    keyMap.remove(key);
     return delegate.removeObject(key);
   }
 
@@ -0,0 +1,259 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+
+/**
+ * <p>Refresh-ahead decorator.
+ *
+ * <p>Every entry expires on its own after {@link #getTimeToLive() timeToLive} milliseconds, shortened by a random
+ * {@link #getJitter() jitter} so that entries loaded together do not expire together. During the last
+ * {@link #getRefreshAhead() refreshAhead} milliseconds of its life an entry is stale: the first reader gets a miss and
+ * reloads it through the statement while all other readers keep getting the stale value instead of hitting the
+ * database. Expired entries are evicted when read or by a periodic sweep.
+ *
+ * <p>When blocking is enabled, readers missing the same key wait for the one loading it, like {@link BlockingCache}
+ * does. This decorator replaces {@link BlockingCache} in that case, so it has to be the outermost one.
+ *
+ * @since 3.5.8
+ */
+public class RefreshAheadCache implements Cache {
+
+  private final Cache delegate;
+  private final ConcurrentHashMap<Object, Long> expirations;
+  private final ConcurrentHashMap<Object, CountDownLatch> locks;
+  private final AtomicLong lastSweep;
+  private long timeToLive;
+  private long refreshAhead;
+  private double jitter;
+  private boolean blocking;
+  private long timeout;
+
+  public RefreshAheadCache(Cache delegate) {
+    this.delegate = delegate;
+    this.expirations = new ConcurrentHashMap<>();
+    this.locks = new ConcurrentHashMap<>();
+    this.lastSweep = new AtomicLong(System.currentTimeMillis());
+    this.timeToLive = TimeUnit.HOURS.toMillis(1);
+    this.refreshAhead = TimeUnit.MINUTES.toMillis(5);
+    this.jitter = 0.1;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    putObject(key, value, timeToLive);
+  }
+
+  @Override
+  public void putObject(Object key, Object value, long timeToLive) {
+    try {
+      // a null value only releases the key (e.g. the statement was rolled back)
+      if (value != null) {
+        delegate.putObject(key, value);
+        expirations.put(key, System.currentTimeMillis() + timeToLive - randomJitter(timeToLive));
+      }
+    } finally {
+      releaseLock(key);
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    final long now = System.currentTimeMillis();
+    sweepWhenDue(now);
+    Long expiresAt = expirations.get(key);
+    if (expiresAt != null) {
+      if (now < expiresAt) {
+        Object value = delegate.getObject(key);
+        if (value != null) {
+          if (now < expiresAt - refreshAhead || !tryLock(key)) {
+            return value;
+          }
+          // this reader refreshes the stale entry
+          return null;
+        }
+      }
+      expire(key, expiresAt);
+    }
+    if (!blocking) {
+      return null;
+    }
+    acquireLock(key);
+    expiresAt = expirations.get(key);
+    Object value = expiresAt != null && System.currentTimeMillis() < expiresAt ? delegate.getObject(key) : null;
+    if (value != null) {
+      releaseLock(key);
+    }
+    return value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    // despite of its name, this method is called only to release locks
+    releaseLock(key);
+    return null;
+  }
+
+  @Override
+  public void clear() {
+    delegate.clear();
+    expirations.clear();
+  }
+
+  private long randomJitter(long timeToLive) {
+    return jitter > 0 ? (long) (ThreadLocalRandom.current().nextDouble() * jitter * timeToLive) : 0;
+  }
+
+  private void expire(Object key, Long expiresAt) {
+    if (expirations.remove(key, expiresAt)) {
+      delegate.removeObject(key);
+    }
+  }
+
+  private void sweepWhenDue(long now) {
+    long last = lastSweep.get();
+    if (now - last < timeToLive || !lastSweep.compareAndSet(last, now)) {
+      return;
+    }
+    Iterator<Map.Entry<Object, Long>> iterator = expirations.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Object, Long> entry = iterator.next();
+      if (entry.getValue() <= now) {
+        expire(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  private boolean tryLock(Object key) {
+    return locks.putIfAbsent(key, new CountDownLatch(1)) == null;
+  }
+
+  private void acquireLock(Object key) {
+    CountDownLatch newLatch = new CountDownLatch(1);
+    while (true) {
+      CountDownLatch latch = locks.putIfAbsent(key, newLatch);
+      if (latch == null) {
+        break;
+      }
+      try {
+        if (timeout > 0) {
+          boolean acquired = latch.await(timeout, TimeUnit.MILLISECONDS);
+          if (!acquired) {
+            throw new CacheException(
+                "Couldn't get a lock in " + timeout + " for the key " + key + " at the cache " + delegate.getId());
+          }
+        } else {
+          latch.await();
+        }
+      } catch (InterruptedException e) {
+        throw new CacheException("Got interrupted while trying to acquire lock for key " + key, e);
+      }
+    }
+  }
+
+  private void releaseLock(Object key) {
+    // misses are locked only when blocking, so there may be nothing to release
+    CountDownLatch latch = locks.remove(key);
+    if (latch != null) {
+      latch.countDown();
+    }
+  }
+
+  public long getTimeToLive() {
+    return timeToLive;
+  }
+
+  /**
+   * Sets the time in milliseconds after which an entry expires.
+   *
+   * @param timeToLive
+   *          the time to live, must be positive
+   */
+  public void setTimeToLive(long timeToLive) {
+    if (timeToLive <= 0) {
+      throw new CacheException("The timeToLive of the cache " + delegate.getId() + " must be positive");
+    }
+    this.timeToLive = timeToLive;
+  }
+
+  public long getRefreshAhead() {
+    return refreshAhead;
+  }
+
+  /**
+   * Sets how many milliseconds before its expiry an entry is refreshed by the next reader. 0 disables refreshing, so
+   * entries are only reloaded once expired.
+   *
+   * @param refreshAhead
+   *          the refresh window
+   */
+  public void setRefreshAhead(long refreshAhead) {
+    this.refreshAhead = Math.max(refreshAhead, 0);
+  }
+
+  public double getJitter() {
+    return jitter;
+  }
+
+  /**
+   * Sets the largest fraction of the time to live randomly removed from each entry's life.
+   *
+   * @param jitter
+   *          a value between 0 and 1
+   */
+  public void setJitter(double jitter) {
+    if (jitter < 0 || jitter > 1) {
+      throw new CacheException("The jitter of the cache " + delegate.getId() + " must be between 0 and 1");
+    }
+    this.jitter = jitter;
+  }
+
+  public boolean isBlocking() {
+    return blocking;
+  }
+
+  public void setBlocking(boolean blocking) {
+    this.blocking = blocking;
+  }
+
+  public long getTimeout() {
+    return timeout;
+  }
+
+  public void setTimeout(long timeout) {
+    this.timeout = timeout;
+  }
+}
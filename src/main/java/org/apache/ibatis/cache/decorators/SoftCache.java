@@ -62,6 +62,12 @@ public class SoftCache implements Cache {
     delegate.putObject(key, new SoftEntry(key, value, queueOfGarbageCollectedEntries));
   }
 
+  @Override
+  public void putObject(Object key, Object value, long timeToLive) {
+    removeGarbageCollectedItems();
+    delegate.putObject(key, new SoftEntry(key, value, queueOfGarbageCollectedEntries), timeToLive);
+  }
+
   @Override
   public Object getObject(Object key) {
     Object result = null;
@@ -42,12 +42,14 @@ public class TransactionalCache implements Cache {
   private final Cache delegate;
   private boolean clearOnCommit;
   private final Map<Object, Object> entriesToAddOnCommit;
+  private final Map<Object, Long> timeToLivesOnCommit;
   private final Set<Object> entriesMissedInCache;
 
   public TransactionalCache(Cache delegate) {
     this.delegate = delegate;
     this.clearOnCommit = false;
     this.entriesToAddOnCommit = new HashMap<>();
+    this.timeToLivesOnCommit = new HashMap<>();
     this.entriesMissedInCache = new HashSet<>();
   }
 
@@ -79,6 +81,13 @@ public class TransactionalCache implements Cache {
   @Override
   public void putObject(Object key, Object object) {
     entriesToAddOnCommit.put(key, object);
+    timeToLivesOnCommit.remove(key);
+  }
+
+  @Override
+  public void putObject(Object key, Object object, long timeToLive) {
+    entriesToAddOnCommit.put(key, object);
+    timeToLivesOnCommit.put(key, timeToLive);
   }
 
   @Override
@@ -90,6 +99,7 @@ public class TransactionalCache implements Cache {
   public void clear() {
     clearOnCommit = true;
     entriesToAddOnCommit.clear();
+    timeToLivesOnCommit.clear();
   }
 
   public void commit() {
@@ -108,12 +118,18 @@ public class TransactionalCache implements Cache {
   private void reset() {
     clearOnCommit = false;
     entriesToAddOnCommit.clear();
+    timeToLivesOnCommit.clear();
     entriesMissedInCache.clear();
   }
 
   private void flushPendingEntries() {
     for (Map.Entry<Object, Object> entry : entriesToAddOnCommit.entrySet()) {
-      delegate.putObject(entry.getKey(), entry.getValue());
+      Long timeToLive = timeToLivesOnCommit.get(entry.getKey());
+      if (timeToLive == null) {
+        delegate.putObject(entry.getKey(), entry.getValue());
+      } else {
+        delegate.putObject(entry.getKey(), entry.getValue(), timeToLive);
+      }
     }
     for (Object entry : entriesMissedInCache) {
       if (!entriesToAddOnCommit.containsKey(entry)) {
@@ -0,0 +1,253 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.reflection.Reflector;
+
+/**
+ * Weight bounded cache decorator.
+ * <p>
+ * Instead of counting entries, the estimated memory footprint of the cached values is summed up and the least
+ * recently used entries are removed once it exceeds <code>maxWeight</code> bytes. Values are estimated by sampling:
+ * the first element of a collection stands for all of its elements and objects are followed only a few references
+ * deep, so the weight is an approximation of the retained size.
+ *
+ * @since 3.5.8
+ */
+public class WeightedCache implements Cache {
+
+  private static final int MAX_DEPTH = 3;
+  private static final int OBJECT_HEADER = 16;
+  private static final int ARRAY_HEADER = 16;
+  private static final int REFERENCE = 8;
+
+  private final Cache delegate;
+  private final Map<Object, Long> keyWeights;
+  private final Map<Class<?>, ClassLayout> layouts = new ConcurrentHashMap<>();
+  private long maxWeight;
+  private long weight;
+
+  public WeightedCache(Cache delegate) {
+    this.delegate = delegate;
+    this.keyWeights = new LinkedHashMap<>(16, .75F, true);
+    this.maxWeight = 64L * 1024 * 1024;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  public long getMaxWeight() {
+    return maxWeight;
+  }
+
+  /**
+   * Sets the memory budget of this cache.
+   *
+   * @param maxWeight
+   *          the maximum estimated size of all cached values in bytes
+   */
+  public void setMaxWeight(long maxWeight) {
+    this.maxWeight = maxWeight;
+  }
+
+  /**
+   * Gets the estimated size of all cached values.
+   *
+   * @return the weight in bytes
+   */
+  public long getWeight() {
+    return weight;
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    // the delegate may remove expired entries through this cache, the key being put included
+    delegate.putObject(key, value);
+    addWeight(key, value);
+    evict();
+  }
+
+  @Override
+  public void putObject(Object key, Object value, long timeToLive) {
+    delegate.putObject(key, value, timeToLive);
+    addWeight(key, value);
+    evict();
+  }
+
+  private void addWeight(Object key, Object value) {
+    long valueWeight = estimateWeight(value);
+    Long previous = keyWeights.put(key, valueWeight);
+    if (previous != null) {
+      weight -= previous;
+    }
+    weight += valueWeight;
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    keyWeights.get(key); // touch
+    return delegate.getObject(key);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    Long previous = keyWeights.remove(key);
+    if (previous != null) {
+      weight -= previous;
+    }
+    return delegate.removeObject(key);
+  }
+
+  @Override
+  public void clear() {
+    delegate.clear();
+    keyWeights.clear();
+    weight = 0;
+  }
+
+  /**
+   * Estimates the memory footprint of a value.
+   *
+   * @param value
+   *          the value to cache
+   * @return the estimated size in bytes
+   */
+  protected long estimateWeight(Object value) {
+    return estimate(value, MAX_DEPTH);
+  }
+
+  private void evict() {
+    Iterator<Map.Entry<Object, Long>> iterator = keyWeights.entrySet().iterator();
+    while (weight > maxWeight && iterator.hasNext()) {
+      Map.Entry<Object, Long> eldest = iterator.next();
+      iterator.remove();
+      weight -= eldest.getValue();
+      delegate.removeObject(eldest.getKey());
+    }
+  }
+
+  private long estimate(Object value, int depth) {
+    if (value == null) {
+      return 0;
+    }
+    if (value instanceof CharSequence) {
+      return OBJECT_HEADER + REFERENCE + ARRAY_HEADER + 2L * ((CharSequence) value).length();
+    }
+    if (value instanceof Collection) {
+      Collection<?> collection = (Collection<?>) value;
+      if (collection.isEmpty() || depth <= 0) {
+        return OBJECT_HEADER + ARRAY_HEADER;
+      }
+      return OBJECT_HEADER + ARRAY_HEADER
+          + collection.size() * (REFERENCE + estimate(collection.iterator().next(), depth - 1));
+    }
+    if (value instanceof Map) {
+      Map<?, ?> map = (Map<?, ?>) value;
+      if (map.isEmpty() || depth <= 0) {
+        return OBJECT_HEADER + ARRAY_HEADER;
+      }
+      Map.Entry<?, ?> entry = map.entrySet().iterator().next();
+      return OBJECT_HEADER + ARRAY_HEADER + map.size() * (OBJECT_HEADER + 3L * REFERENCE
+          + estimate(entry.getKey(), depth - 1) + estimate(entry.getValue(), depth - 1));
+    }
+    Class<?> type = value.getClass();
+    if (type.isArray()) {
+      int length = Array.getLength(value);
+      Class<?> componentType = type.getComponentType();
+      if (componentType.isPrimitive()) {
+        return ARRAY_HEADER + (long) length * primitiveSize(componentType);
+      }
+      return ARRAY_HEADER + (long) length * REFERENCE
+          + (length == 0 || depth <= 0 ? 0 : length * estimate(Array.get(value, 0), depth - 1));
+    }
+    ClassLayout layout = layouts.computeIfAbsent(type, ClassLayout::new);
+    long size = layout.shallowSize;
+    if (depth > 0) {
+      for (Field field : layout.referenceFields) {
+        try {
+          size += estimate(field.get(value), depth - 1);
+        } catch (IllegalAccessException e) {
+          // count the reference only
+        }
+      }
+    }
+    return size;
+  }
+
+  private static int primitiveSize(Class<?> type) {
+    if (type == long.class || type == double.class) {
+      return 8;
+    } else if (type == int.class || type == float.class) {
+      return 4;
+    } else if (type == short.class || type == char.class) {
+      return 2;
+    } else {
+      return 1;
+    }
+  }
+
+  private static class ClassLayout {
+    private final long shallowSize;
+    private final List<Field> referenceFields = new ArrayList<>();
+
+    ClassLayout(Class<?> type) {
+      long size = OBJECT_HEADER;
+      // JDK internals are counted shallowly, their fields cannot be read on recent JVMs anyway
+      boolean descend = !type.getName().startsWith("java.") && Reflector.canControlMemberAccessible();
+      for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+        for (Field field : current.getDeclaredFields()) {
+          if (Modifier.isStatic(field.getModifiers())) {
+            continue;
+          }
+          if (field.getType().isPrimitive()) {
+            size += primitiveSize(field.getType());
+          } else {
+            size += REFERENCE;
+            if (descend) {
+              try {
+                field.setAccessible(true);
+                referenceFields.add(field);
+              } catch (RuntimeException e) {
+                // count the reference only
+              }
+            }
+          }
+        }
+      }
+      this.shallowSize = size;
+    }
+  }
+
+}
@@ -0,0 +1,236 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+
+/**
+ * Bounded cache that is safe for concurrent use without a {@link org.apache.ibatis.cache.decorators.SynchronizedCache}.
+ * <p>
+ * Entries are kept in a {@link ConcurrentHashMap}, so reads never block. Eviction uses the CLOCK (second chance)
+ * approximation of LRU: a read only sets a flag on the entry, and the thread that inserts beyond the size limit walks
+ * the insertion queue, giving recently read entries another round and evicting the first one that was not read. With
+ * <code>accessOrder</code> disabled, entries are evicted in insertion (FIFO) order.
+ * <p>
+ * Entries may have a time to live. Expired entries are removed when they are read and evicted before any other.
+ *
+ * @since 3.5.8
+ */
+public class ConcurrentCache implements Cache {
+
+  private final String id;
+
+  private final ConcurrentHashMap<Object, Node> cache = new ConcurrentHashMap<>();
+  private final Queue<Node> queue = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger queueLength = new AtomicInteger();
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  private volatile int size = 1024;
+  private volatile boolean accessOrder = true;
+  private volatile long timeToLive;
+
+  public ConcurrentCache(String id) {
+    this.id = id;
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public int getSize() {
+    return cache.size();
+  }
+
+  public void setSize(int size) {
+    this.size = size;
+  }
+
+  /**
+   * Sets whether reads are taken into account on eviction.
+   *
+   * @param accessOrder
+   *          <code>true</code> to evict least recently used entries first (default), <code>false</code> to evict in
+   *          insertion order
+   */
+  public void setAccessOrder(boolean accessOrder) {
+    this.accessOrder = accessOrder;
+  }
+
+  public long getTimeToLive() {
+    return timeToLive;
+  }
+
+  /**
+   * Sets the time in milliseconds after which entries put without a time to live expire. 0 means they never expire.
+   *
+   * @param timeToLive
+   *          the default time to live
+   */
+  public void setTimeToLive(long timeToLive) {
+    this.timeToLive = timeToLive;
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    long timeToLive = this.timeToLive;
+    put(key, value, timeToLive > 0 ? System.currentTimeMillis() + timeToLive : Long.MAX_VALUE);
+  }
+
+  @Override
+  public void putObject(Object key, Object value, long timeToLive) {
+    put(key, value, System.currentTimeMillis() + timeToLive);
+  }
+
+  private void put(Object key, Object value, long deadline) {
+    Node node = cache.get(key);
+    if (node == null) {
+      Node newNode = new Node(key, value, deadline);
+      node = cache.putIfAbsent(key, newNode);
+      if (node == null) {
+        queue.add(newNode);
+        queueLength.incrementAndGet();
+        evict();
+        return;
+      }
+    }
+    node.deadline = deadline;
+    node.value = value;
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Node node = cache.get(key);
+    if (node == null) {
+      return null;
+    }
+    if (node.isExpired()) {
+      cache.remove(key, node);
+      return null;
+    }
+    if (accessOrder && !node.referenced) {
+      node.referenced = true;
+    }
+    return node.value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    // the node is left in the queue and skipped on eviction
+    Node node = cache.remove(key);
+    return node == null ? null : node.value;
+  }
+
+  @Override
+  public void clear() {
+    evictionLock.lock();
+    try {
+      // entries put meanwhile are either removed by cache.clear() or queued after queue.clear(), so none of them is
+      // left out of the queue and never evicted
+      queue.clear();
+      queueLength.set(0);
+      cache.clear();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  private void evict() {
+    while (needsEviction() && evictionLock.tryLock()) {
+      try {
+        while (needsEviction()) {
+          Node node = queue.poll();
+          if (node == null) {
+            break;
+          }
+          queueLength.decrementAndGet();
+          if (cache.get(node.key) != node) {
+            // removed or replaced
+            continue;
+          }
+          boolean overflow = cache.size() > size;
+          if (overflow && (!(accessOrder && node.referenced) || node.isExpired())) {
+            cache.remove(node.key, node);
+          } else {
+            if (overflow) {
+              node.referenced = false;
+            }
+            queue.add(node);
+            queueLength.incrementAndGet();
+          }
+        }
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+  }
+
+  private boolean needsEviction() {
+    int entries = cache.size();
+    // removed entries are purged from the queue once they outnumber the limit
+    return entries > size || queueLength.get() > entries + size;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  @Override
+  public int hashCode() {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    return getId().hashCode();
+  }
+
+  private static class Node {
+    private final Object key;
+    private volatile Object value;
+    private volatile boolean referenced;
+    private volatile long deadline;
+
+    Node(Object key, Object value, long deadline) {
+      this.key = key;
+      this.value = value;
+      this.deadline = deadline;
+    }
+
+    boolean isExpired() {
+      long deadline = this.deadline;
+      return deadline != Long.MAX_VALUE && deadline <= System.currentTimeMillis();
+    }
+  }
+
+}
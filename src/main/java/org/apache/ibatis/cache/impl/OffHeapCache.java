@@ -0,0 +1,311 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.serializer.CacheSerializer;
+import org.apache.ibatis.cache.serializer.JavaCacheSerializer;
+
+/**
+ * Cache that keeps serialized values outside of the Java heap.
+ * <p>
+ * Values are serialized into direct {@link ByteBuffer} slabs of <code>slabSize</code> bytes which are filled one
+ * after the other. Once <code>maxBytes</code> are in use, the oldest slab is discarded as a whole together with all
+ * entries it contains, so eviction is FIFO by slab. Only keys and the small index entries stay on the heap. Every
+ * read returns a new copy of the cached value, which is serialized with the configured {@link CacheSerializer}.
+ * <p>
+ * The direct memory of the JVM must be large enough for <code>maxBytes</code> (see
+ * <code>-XX:MaxDirectMemorySize</code>).
+ * <p>
+ * Entries may have a time to live. Expired entries are removed from the index when they are read, their bytes are
+ * released together with their slab.
+ *
+ * @since 3.5.8
+ */
+public class OffHeapCache implements Cache {
+
+  private final String id;
+
+  private final ConcurrentHashMap<Object, Slot> index = new ConcurrentHashMap<>();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private long maxBytes = 256L * 1024 * 1024;
+  private int slabSize = 16 * 1024 * 1024;
+  private Slab[] slabs;
+  private int currentSlab;
+  private CacheSerializer serializer = new JavaCacheSerializer();
+  private long timeToLive;
+
+  public OffHeapCache(String id) {
+    this.id = id;
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public int getSize() {
+    return index.size();
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Sets the amount of direct memory this cache may use.
+   *
+   * @param maxBytes
+   *          the maximum number of bytes, rounded up to a multiple of the slab size
+   */
+  public void setMaxBytes(long maxBytes) {
+    lock.writeLock().lock();
+    try {
+      this.maxBytes = maxBytes;
+      reset();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public int getSlabSize() {
+    return slabSize;
+  }
+
+  /**
+   * Sets the size of the memory segments this cache allocates and evicts at once.
+   *
+   * @param slabSize
+   *          the number of bytes per slab, which is also the maximum size of a serialized value
+   */
+  public void setSlabSize(int slabSize) {
+    lock.writeLock().lock();
+    try {
+      this.slabSize = slabSize;
+      reset();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public CacheSerializer getSerializer() {
+    return serializer;
+  }
+
+  public void setSerializer(CacheSerializer serializer) {
+    this.serializer = serializer;
+  }
+
+  public long getTimeToLive() {
+    return timeToLive;
+  }
+
+  /**
+   * Sets the time in milliseconds after which entries put without a time to live expire. 0 means they never expire.
+   *
+   * @param timeToLive
+   *          the default time to live
+   */
+  public void setTimeToLive(long timeToLive) {
+    this.timeToLive = timeToLive;
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    put(key, value, timeToLive > 0 ? System.currentTimeMillis() + timeToLive : Long.MAX_VALUE);
+  }
+
+  @Override
+  public void putObject(Object key, Object value, long timeToLive) {
+    put(key, value, System.currentTimeMillis() + timeToLive);
+  }
+
+  private void put(Object key, Object value, long deadline) {
+    byte[] bytes = serializer.serialize(value);
+    if (bytes.length > slabSize) {
+      // too large to ever fit, do not keep a stale value either
+      index.remove(key);
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      if (slabs == null) {
+        reset();
+      }
+      Slab slab = slabs[currentSlab];
+      if (slab == null) {
+        slab = slabs[currentSlab] = new Slab(currentSlab, slabSize);
+      } else if (slab.remaining() < bytes.length) {
+        currentSlab = (currentSlab + 1) % slabs.length;
+        slab = slabs[currentSlab];
+        if (slab == null) {
+          slab = slabs[currentSlab] = new Slab(currentSlab, slabSize);
+        } else {
+          evict(slab);
+        }
+      }
+      Slot slot = slab.write(key, bytes);
+      slot.deadline = deadline;
+      index.put(key, slot);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    byte[] bytes;
+    lock.readLock().lock();
+    try {
+      Slot slot = index.get(key);
+      if (slot == null) {
+        return null;
+      }
+      if (slot.deadline != Long.MAX_VALUE && slot.deadline <= System.currentTimeMillis()) {
+        index.remove(key, slot);
+        return null;
+      }
+      bytes = slabs[slot.slab].read(slot);
+    } finally {
+      lock.readLock().unlock();
+    }
+    return serializer.deserialize(bytes);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    // the bytes are released together with their slab
+    index.remove(key);
+    return null;
+  }
+
+  @Override
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      index.clear();
+      if (slabs != null) {
+        for (Slab slab : slabs) {
+          if (slab != null) {
+            slab.clear();
+          }
+        }
+      }
+      currentSlab = 0;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void reset() {
+    index.clear();
+    slabs = new Slab[(int) Math.max(1, (maxBytes + slabSize - 1) / slabSize)];
+    currentSlab = 0;
+  }
+
+  private void evict(Slab slab) {
+    for (Slot slot : slab.slots) {
+      index.remove(slot.key, slot);
+    }
+    slab.clear();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  @Override
+  public int hashCode() {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    return getId().hashCode();
+  }
+
+  private static class Slab {
+    private final int number;
+    private final ByteBuffer buffer;
+    private final List<Slot> slots = new ArrayList<>();
+
+    Slab(int number, int size) {
+      this.number = number;
+      this.buffer = ByteBuffer.allocateDirect(size);
+    }
+
+    int remaining() {
+      return buffer.remaining();
+    }
+
+    Slot write(Object key, byte[] bytes) {
+      Slot slot = new Slot(key, number, buffer.position(), bytes.length);
+      buffer.put(bytes);
+      slots.add(slot);
+      return slot;
+    }
+
+    byte[] read(Slot slot) {
+      byte[] bytes = new byte[slot.length];
+      // readers share the lock, so each one works on its own view of the buffer
+      ByteBuffer view = buffer.duplicate();
+      ((Buffer) view).position(slot.offset);
+      view.get(bytes);
+      return bytes;
+    }
+
+    void clear() {
+      ((Buffer) buffer).clear();
+      slots.clear();
+    }
+  }
+
+  private static class Slot {
+    private final Object key;
+    private final int slab;
+    private final int offset;
+    private final int length;
+    private long deadline = Long.MAX_VALUE;
+
+    Slot(Object key, int slab, int offset, int length) {
+      this.key = key;
+      this.slab = slab;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+}
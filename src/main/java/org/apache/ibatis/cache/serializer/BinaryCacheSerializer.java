@@ -0,0 +1,532 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.executor.loader.WriteReplaceInterface;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.AmbiguousMethodInvoker;
+import org.apache.ibatis.reflection.invoker.Invoker;
+
+/**
+ * Compact binary serializer for result objects.
+ * <p>
+ * Beans are written as the values of their properties, which are discovered with the {@link Reflector} MyBatis uses
+ * for mapping results, so they neither need to be {@link Serializable} nor carry any class descriptors beyond their
+ * name. Common value types and the collections and maps of <code>java.util</code> have a dedicated encoding, shared
+ * and circular references are preserved. Objects that cannot be handled as a bean (no default constructor, lazy
+ * loading proxies, JDK types without a dedicated encoding...) are written with Java serialization.
+ *
+ * @since 3.5.8
+ */
+public class BinaryCacheSerializer implements CacheSerializer {
+
+  private static final byte NULL = 0;
+  private static final byte REFERENCE = 1;
+  private static final byte TRUE = 2;
+  private static final byte FALSE = 3;
+  private static final byte BYTE = 4;
+  private static final byte SHORT = 5;
+  private static final byte INT = 6;
+  private static final byte LONG = 7;
+  private static final byte FLOAT = 8;
+  private static final byte DOUBLE = 9;
+  private static final byte CHAR = 10;
+  private static final byte STRING = 11;
+  private static final byte BIG_DECIMAL = 12;
+  private static final byte BIG_INTEGER = 13;
+  private static final byte DATE = 14;
+  private static final byte SQL_DATE = 15;
+  private static final byte SQL_TIME = 16;
+  private static final byte SQL_TIMESTAMP = 17;
+  private static final byte LOCAL_DATE = 18;
+  private static final byte LOCAL_TIME = 19;
+  private static final byte LOCAL_DATE_TIME = 20;
+  private static final byte BYTES = 21;
+  private static final byte ENUM = 22;
+  private static final byte COLLECTION = 23;
+  private static final byte MAP = 24;
+  private static final byte ARRAY = 25;
+  private static final byte BEAN = 26;
+  private static final byte SERIALIZED = 27;
+
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+  private static final BeanLayout NOT_A_BEAN = new BeanLayout(null, new String[0], new Invoker[0], new Invoker[0]);
+
+  private final ReflectorFactory reflectorFactory;
+  private final ObjectFactory objectFactory = new DefaultObjectFactory();
+  private final CacheSerializer fallback = new JavaCacheSerializer();
+  private final Map<Class<?>, BeanLayout> beanLayouts = new ConcurrentHashMap<>();
+  private final Map<Class<?>, Boolean> containerTypes = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a serializer with reflectors of its own. The <code>cacheSerializer</code> setting uses
+   * {@link #BinaryCacheSerializer(ReflectorFactory)} with the reflector factory of the configuration instead.
+   */
+  public BinaryCacheSerializer() {
+    this(new DefaultReflectorFactory());
+  }
+
+  /**
+   * Creates a serializer discovering bean properties with the given reflector factory, usually
+   * {@link org.apache.ibatis.session.Configuration#getReflectorFactory()}.
+   *
+   * @param reflectorFactory
+   *          the reflector factory
+   */
+  public BinaryCacheSerializer(ReflectorFactory reflectorFactory) {
+    this.reflectorFactory = reflectorFactory;
+  }
+
+  @Override
+  public byte[] serialize(Object value) {
+    try {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      new Writer(new DataOutputStream(bos)).write(value);
+      return bos.toByteArray();
+    } catch (IOException | RuntimeException e) {
+      if (e instanceof CacheException) {
+        throw (CacheException) e;
+      }
+      throw new CacheException("Error serializing object.  Cause: " + e, e);
+    }
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes) {
+    try {
+      return new Reader(new DataInputStream(new ByteArrayInputStream(bytes))).read();
+    } catch (IOException | ClassNotFoundException | RuntimeException e) {
+      if (e instanceof CacheException) {
+        throw (CacheException) e;
+      }
+      throw new CacheException("Error deserializing object.  Cause: " + e, e);
+    }
+  }
+
+  private BeanLayout beanLayout(Class<?> type) {
+    return beanLayouts.computeIfAbsent(type, this::createBeanLayout);
+  }
+
+  private BeanLayout createBeanLayout(Class<?> type) {
+    if (type.isInterface() || Modifier.isAbstract(type.getModifiers()) || Collection.class.isAssignableFrom(type)
+        || Map.class.isAssignableFrom(type) || WriteReplaceInterface.class.isAssignableFrom(type)) {
+      return NOT_A_BEAN;
+    }
+    for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+      if (current.getName().startsWith("java.")) {
+        // state of JDK classes is not exposed as properties
+        return NOT_A_BEAN;
+      }
+    }
+    Reflector reflector = reflectorFactory.findForClass(type);
+    if (!reflector.hasDefaultConstructor()) {
+      return NOT_A_BEAN;
+    }
+    List<String> properties = new ArrayList<>();
+    List<Invoker> getters = new ArrayList<>();
+    List<Invoker> setters = new ArrayList<>();
+    for (String property : reflector.getGetablePropertyNames()) {
+      if (!reflector.hasSetter(property)) {
+        continue;
+      }
+      Invoker getter = reflector.getGetInvoker(property);
+      Invoker setter = reflector.getSetInvoker(property);
+      if (getter instanceof AmbiguousMethodInvoker || setter instanceof AmbiguousMethodInvoker) {
+        return NOT_A_BEAN;
+      }
+      properties.add(property);
+      getters.add(getter);
+      setters.add(setter);
+    }
+    return new BeanLayout(type, properties.toArray(new String[0]), getters.toArray(new Invoker[0]),
+        setters.toArray(new Invoker[0]));
+  }
+
+  private boolean isContainerType(Class<?> type) {
+    return containerTypes.computeIfAbsent(type, t -> {
+      if (!t.getName().startsWith("java.util.") || !Modifier.isPublic(t.getModifiers())) {
+        return false;
+      }
+      try {
+        return Modifier.isPublic(t.getConstructor().getModifiers());
+      } catch (NoSuchMethodException e) {
+        return false;
+      }
+    });
+  }
+
+  private class Writer {
+    private final DataOutputStream out;
+    private final Map<Object, Integer> references = new IdentityHashMap<>();
+    private final Map<Class<?>, Integer> classes = new HashMap<>();
+
+    Writer(DataOutputStream out) {
+      this.out = out;
+    }
+
+    void write(Object value) throws IOException {
+      if (value == null) {
+        out.writeByte(NULL);
+      } else if (value instanceof String) {
+        out.writeByte(STRING);
+        writeString((String) value);
+      } else if (value instanceof Integer) {
+        out.writeByte(INT);
+        out.writeInt((Integer) value);
+      } else if (value instanceof Long) {
+        out.writeByte(LONG);
+        out.writeLong((Long) value);
+      } else if (value instanceof Boolean) {
+        out.writeByte((Boolean) value ? TRUE : FALSE);
+      } else if (value instanceof Double) {
+        out.writeByte(DOUBLE);
+        out.writeDouble((Double) value);
+      } else if (value instanceof Float) {
+        out.writeByte(FLOAT);
+        out.writeFloat((Float) value);
+      } else if (value instanceof Short) {
+        out.writeByte(SHORT);
+        out.writeShort((Short) value);
+      } else if (value instanceof Byte) {
+        out.writeByte(BYTE);
+        out.writeByte((Byte) value);
+      } else if (value instanceof Character) {
+        out.writeByte(CHAR);
+        out.writeChar((Character) value);
+      } else if (value.getClass() == BigDecimal.class) {
+        out.writeByte(BIG_DECIMAL);
+        writeBytes(((BigDecimal) value).unscaledValue().toByteArray());
+        writeVarInt(((BigDecimal) value).scale());
+      } else if (value.getClass() == BigInteger.class) {
+        out.writeByte(BIG_INTEGER);
+        writeBytes(((BigInteger) value).toByteArray());
+      } else if (value.getClass() == Timestamp.class) {
+        out.writeByte(SQL_TIMESTAMP);
+        out.writeLong(((Timestamp) value).getTime());
+        out.writeInt(((Timestamp) value).getNanos());
+      } else if (value.getClass() == java.sql.Date.class) {
+        out.writeByte(SQL_DATE);
+        out.writeLong(((Date) value).getTime());
+      } else if (value.getClass() == java.sql.Time.class) {
+        out.writeByte(SQL_TIME);
+        out.writeLong(((Date) value).getTime());
+      } else if (value.getClass() == Date.class) {
+        out.writeByte(DATE);
+        out.writeLong(((Date) value).getTime());
+      } else if (value instanceof LocalDate) {
+        out.writeByte(LOCAL_DATE);
+        out.writeLong(((LocalDate) value).toEpochDay());
+      } else if (value instanceof LocalTime) {
+        out.writeByte(LOCAL_TIME);
+        out.writeLong(((LocalTime) value).toNanoOfDay());
+      } else if (value instanceof LocalDateTime) {
+        out.writeByte(LOCAL_DATE_TIME);
+        out.writeLong(((LocalDateTime) value).toLocalDate().toEpochDay());
+        out.writeLong(((LocalDateTime) value).toLocalTime().toNanoOfDay());
+      } else if (value instanceof byte[]) {
+        out.writeByte(BYTES);
+        writeBytes((byte[]) value);
+      } else if (value instanceof Enum) {
+        out.writeByte(ENUM);
+        writeClass(((Enum<?>) value).getDeclaringClass());
+        writeString(((Enum<?>) value).name());
+      } else {
+        writeObject(value);
+      }
+    }
+
+    private void writeObject(Object value) throws IOException {
+      Integer reference = references.get(value);
+      if (reference != null) {
+        out.writeByte(REFERENCE);
+        writeVarInt(reference);
+        return;
+      }
+      Class<?> type = value.getClass();
+      if (value instanceof Collection && isContainerType(type)
+          && !(value instanceof SortedSet && ((SortedSet<?>) value).comparator() != null)) {
+        references.put(value, references.size());
+        Collection<?> collection = (Collection<?>) value;
+        out.writeByte(COLLECTION);
+        writeClass(type);
+        writeVarInt(collection.size());
+        for (Object element : collection) {
+          write(element);
+        }
+      } else if (value instanceof Map && isContainerType(type)
+          && !(value instanceof SortedMap && ((SortedMap<?, ?>) value).comparator() != null)) {
+        references.put(value, references.size());
+        Map<?, ?> map = (Map<?, ?>) value;
+        out.writeByte(MAP);
+        writeClass(type);
+        writeVarInt(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+          write(entry.getKey());
+          write(entry.getValue());
+        }
+      } else if (value instanceof Object[]) {
+        references.put(value, references.size());
+        Object[] array = (Object[]) value;
+        out.writeByte(ARRAY);
+        writeClass(type.getComponentType());
+        writeVarInt(array.length);
+        for (Object element : array) {
+          write(element);
+        }
+      } else if (beanLayout(type) != NOT_A_BEAN) {
+        references.put(value, references.size());
+        BeanLayout layout = beanLayout(type);
+        out.writeByte(BEAN);
+        writeClass(type);
+        for (int i = 0; i < layout.getters.length; i++) {
+          write(layout.get(i, value));
+        }
+      } else {
+        // shared references to this object are not preserved
+        out.writeByte(SERIALIZED);
+        writeBytes(fallback.serialize(value));
+      }
+    }
+
+    private void writeClass(Class<?> type) throws IOException {
+      Integer index = classes.get(type);
+      if (index == null) {
+        classes.put(type, classes.size());
+        writeVarInt(0);
+        writeString(type.getName());
+      } else {
+        writeVarInt(index + 1);
+      }
+    }
+
+    private void writeString(String value) throws IOException {
+      writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeBytes(byte[] value) throws IOException {
+      writeVarInt(value.length);
+      out.write(value);
+    }
+
+    private void writeVarInt(int value) throws IOException {
+      while ((value & ~0x7F) != 0) {
+        out.writeByte((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      out.writeByte(value);
+    }
+  }
+
+  private class Reader {
+    private final DataInputStream in;
+    private final List<Object> references = new ArrayList<>();
+    private final List<Class<?>> classes = new ArrayList<>();
+
+    Reader(DataInputStream in) {
+      this.in = in;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    Object read() throws IOException, ClassNotFoundException {
+      byte tag = in.readByte();
+      switch (tag) {
+        case NULL:
+          return null;
+        case REFERENCE:
+          return references.get(readVarInt());
+        case TRUE:
+          return Boolean.TRUE;
+        case FALSE:
+          return Boolean.FALSE;
+        case BYTE:
+          return in.readByte();
+        case SHORT:
+          return in.readShort();
+        case INT:
+          return in.readInt();
+        case LONG:
+          return in.readLong();
+        case FLOAT:
+          return in.readFloat();
+        case DOUBLE:
+          return in.readDouble();
+        case CHAR:
+          return in.readChar();
+        case STRING:
+          return readString();
+        case BIG_DECIMAL:
+          return new BigDecimal(new BigInteger(readBytes()), readVarInt());
+        case BIG_INTEGER:
+          return new BigInteger(readBytes());
+        case DATE:
+          return new Date(in.readLong());
+        case SQL_DATE:
+          return new java.sql.Date(in.readLong());
+        case SQL_TIME:
+          return new java.sql.Time(in.readLong());
+        case SQL_TIMESTAMP:
+          Timestamp timestamp = new Timestamp(in.readLong());
+          timestamp.setNanos(in.readInt());
+          return timestamp;
+        case LOCAL_DATE:
+          return LocalDate.ofEpochDay(in.readLong());
+        case LOCAL_TIME:
+          return LocalTime.ofNanoOfDay(in.readLong());
+        case LOCAL_DATE_TIME:
+          return LocalDateTime.of(LocalDate.ofEpochDay(in.readLong()), LocalTime.ofNanoOfDay(in.readLong()));
+        case BYTES:
+          return readBytes();
+        case ENUM:
+          return Enum.valueOf((Class<Enum>) readClass(), readString());
+        case COLLECTION: {
+          Collection<Object> collection = (Collection<Object>) objectFactory.create(readClass());
+          references.add(collection);
+          for (int size = readVarInt(); size > 0; size--) {
+            collection.add(read());
+          }
+          return collection;
+        }
+        case MAP: {
+          Map<Object, Object> map = (Map<Object, Object>) objectFactory.create(readClass());
+          references.add(map);
+          for (int size = readVarInt(); size > 0; size--) {
+            map.put(read(), read());
+          }
+          return map;
+        }
+        case ARRAY: {
+          Class<?> componentType = readClass();
+          Object[] array = (Object[]) Array.newInstance(componentType, readVarInt());
+          references.add(array);
+          for (int i = 0; i < array.length; i++) {
+            array[i] = read();
+          }
+          return array;
+        }
+        case BEAN: {
+          BeanLayout layout = beanLayout(readClass());
+          Object bean = objectFactory.create(layout.type);
+          references.add(bean);
+          for (int i = 0; i < layout.setters.length; i++) {
+            layout.set(i, bean, read());
+          }
+          return bean;
+        }
+        case SERIALIZED:
+          return fallback.deserialize(readBytes());
+        default:
+          throw new CacheException("Unknown type tag " + tag + " in serialized cache entry.");
+      }
+    }
+
+    private Class<?> readClass() throws IOException, ClassNotFoundException {
+      int index = readVarInt();
+      if (index > 0) {
+        return classes.get(index - 1);
+      }
+      Class<?> type = Resources.classForName(readString());
+      classes.add(type);
+      return type;
+    }
+
+    private String readString() throws IOException {
+      return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes() throws IOException {
+      byte[] bytes = new byte[readVarInt()];
+      in.readFully(bytes);
+      return bytes;
+    }
+
+    private int readVarInt() throws IOException {
+      int value = 0;
+      for (int shift = 0;; shift += 7) {
+        byte b = in.readByte();
+        value |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+    }
+  }
+
+  private static class BeanLayout {
+    private final Class<?> type;
+    private final String[] properties;
+    private final Invoker[] getters;
+    private final Invoker[] setters;
+
+    BeanLayout(Class<?> type, String[] properties, Invoker[] getters, Invoker[] setters) {
+      this.type = type;
+      this.properties = properties;
+      this.getters = getters;
+      this.setters = setters;
+    }
+
+    Object get(int i, Object bean) {
+      try {
+        return getters[i].invoke(bean, NO_ARGUMENTS);
+      } catch (Exception e) {
+        throw new CacheException("Could not get property '" + properties[i] + "' of '" + type + "'. Cause: " + e, e);
+      }
+    }
+
+    void set(int i, Object bean, Object value) {
+      if (value == null && setters[i].getType().isPrimitive()) {
+        return;
+      }
+      try {
+        setters[i].invoke(bean, new Object[] { value });
+      } catch (Exception e) {
+        throw new CacheException("Could not set property '" + properties[i] + "' of '" + type + "'. Cause: " + e, e);
+      }
+    }
+  }
+
+}
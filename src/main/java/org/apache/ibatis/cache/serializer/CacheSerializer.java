@@ -0,0 +1,48 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+/**
+ * Turns cached objects into bytes and back.
+ * <p>
+ * Used by {@link org.apache.ibatis.cache.decorators.SerializedCache} to hand out copies of cached objects and by
+ * {@link org.apache.ibatis.cache.impl.OffHeapCache} to store them outside of the heap. Implementations must be thread
+ * safe.
+ *
+ * @since 3.5.8
+ * @see org.apache.ibatis.session.Configuration#setCacheSerializer(CacheSerializer)
+ */
+public interface CacheSerializer {
+
+  /**
+   * Serializes an object.
+   *
+   * @param value
+   *          the object to serialize, may be <code>null</code>
+   * @return the serialized form
+   */
+  byte[] serialize(Object value);
+
+  /**
+   * Deserializes an object.
+   *
+   * @param bytes
+   *          bytes returned by {@link #serialize(Object)}
+   * @return a new copy of the serialized object
+   */
+  Object deserialize(byte[] bytes);
+
+}
@@ -0,0 +1,40 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor;
+
+/**
+ * A producer of items that are only emitted as its {@link Subscriber} requests them.
+ * <p>
+ * This contract has the same methods and rules as <code>java.util.concurrent.Flow.Publisher</code> and the Reactive
+ * Streams <code>Publisher</code>, so it can be adapted to them with a method reference.
+ *
+ * @param <T>
+ *          the published item type
+ * @since 3.5.8
+ * @see org.apache.ibatis.session.SqlSession#selectPublisher(String, Object, org.apache.ibatis.session.RowBounds)
+ */
+@FunctionalInterface
+public interface Publisher<T> {
+
+  /**
+   * Adds a subscriber, which first receives a {@link Subscription} through {@link Subscriber#onSubscribe}.
+   *
+   * @param subscriber
+   *          the subscriber
+   */
+  void subscribe(Subscriber<? super T> subscriber);
+
+}
@@ -0,0 +1,59 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor;
+
+/**
+ * A receiver of the items of a {@link Publisher}.
+ * <p>
+ * Methods are called sequentially: {@link #onSubscribe} first, then {@link #onNext} at most as many times as
+ * requested, then at most one of {@link #onError} or {@link #onComplete}.
+ *
+ * @param <T>
+ *          the received item type
+ * @since 3.5.8
+ */
+public interface Subscriber<T> {
+
+  /**
+   * Called before any other method with the subscription used to request items.
+   *
+   * @param subscription
+   *          the subscription
+   */
+  void onSubscribe(Subscription subscription);
+
+  /**
+   * Called with the next item.
+   *
+   * @param item
+   *          the item
+   */
+  void onNext(T item);
+
+  /**
+   * Called when the publisher failed. No other method is called afterwards.
+   *
+   * @param throwable
+   *          the failure
+   */
+  void onError(Throwable throwable);
+
+  /**
+   * Called when all items have been received. No other method is called afterwards.
+   */
+  void onComplete();
+
+}
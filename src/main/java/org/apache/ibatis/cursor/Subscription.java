@@ -0,0 +1,38 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor;
+
+/**
+ * The link between a {@link Publisher} and one of its {@link Subscriber}s.
+ *
+ * @since 3.5.8
+ */
+public interface Subscription {
+
+  /**
+   * Requests more items. Requests add up, {@link Long#MAX_VALUE} requesting all remaining items.
+   *
+   * @param n
+   *          the number of items to add to the demand, must be positive
+   */
+  void request(long n);
+
+  /**
+   * Stops the emission of items and releases the resources of the subscription.
+   */
+  void cancel();
+
+}
@@ -0,0 +1,198 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.Publisher;
+import org.apache.ibatis.cursor.Subscriber;
+import org.apache.ibatis.cursor.Subscription;
+
+/**
+ * A publisher emitting the items of a cursor as they are requested.
+ * <p>
+ * The cursor is opened when its single subscriber requests items for the first time and rows are only fetched to
+ * satisfy the outstanding demand, which is also given to the driver as the fetch size. Items are emitted on the
+ * thread requesting them, so the session the cursor comes from must stay open and must not be used concurrently
+ * until the subscription completes, fails or is cancelled. The cursor is closed in all these cases.
+ *
+ * @param <T>
+ *          the published item type
+ * @since 3.5.8
+ */
+public class CursorPublisher<T> implements Publisher<T> {
+
+  private final Supplier<Cursor<T>> cursorSupplier;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  public CursorPublisher(Supplier<Cursor<T>> cursorSupplier) {
+    this.cursorSupplier = cursorSupplier;
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super T> subscriber) {
+    Objects.requireNonNull(subscriber, "subscriber");
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(new Subscription() {
+        @Override
+        public void request(long n) {
+          // nothing to emit
+        }
+
+        @Override
+        public void cancel() {
+          // nothing to release
+        }
+      });
+      subscriber.onError(new IllegalStateException("A cursor publisher can only be subscribed once"));
+      return;
+    }
+    subscriber.onSubscribe(new CursorSubscription(subscriber));
+  }
+
+  private class CursorSubscription implements Subscription {
+
+    private final Subscriber<? super T> subscriber;
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger pendingDrains = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile IllegalArgumentException invalidRequest;
+
+    // only accessed by the draining thread
+    private Cursor<T> cursor;
+    private Iterator<T> iterator;
+    private boolean done;
+
+    CursorSubscription(Subscriber<? super T> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        invalidRequest = new IllegalArgumentException("The number of requested items must be positive but was " + n);
+      } else {
+        requested.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      drain();
+    }
+
+    /**
+     * Emits on a single thread at a time, also preventing recursion when the subscriber requests from onNext.
+     */
+    private void drain() {
+      if (pendingDrains.getAndIncrement() != 0) {
+        return;
+      }
+      int missed = 1;
+      do {
+        emit();
+        missed = pendingDrains.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void emit() {
+      if (done) {
+        return;
+      }
+      if (cancelled) {
+        done = true;
+        closeCursor();
+        return;
+      }
+      if (invalidRequest != null) {
+        fail(invalidRequest);
+        return;
+      }
+      long demand = requested.get();
+      if (demand == 0) {
+        return;
+      }
+      try {
+        if (iterator == null) {
+          cursor = cursorSupplier.get();
+          iterator = cursor.iterator();
+        }
+        if (demand < Integer.MAX_VALUE && cursor instanceof DefaultCursor) {
+          ((DefaultCursor<T>) cursor).setFetchSize((int) demand);
+        }
+      } catch (RuntimeException e) {
+        fail(e);
+        return;
+      }
+      long emitted = 0;
+      while (emitted != demand) {
+        if (cancelled) {
+          done = true;
+          closeCursor();
+          return;
+        }
+        T item;
+        try {
+          if (!iterator.hasNext()) {
+            if (cursor.isConsumed()) {
+              done = true;
+              closeCursor();
+              subscriber.onComplete();
+            } else {
+              fail(new IllegalStateException("The cursor was closed before all its items were published"));
+            }
+            return;
+          }
+          item = iterator.next();
+        } catch (RuntimeException e) {
+          fail(e);
+          return;
+        }
+        subscriber.onNext(item);
+        emitted++;
+      }
+      if (demand != Long.MAX_VALUE) {
+        requested.addAndGet(-emitted);
+      }
+    }
+
+    private void fail(Throwable cause) {
+      done = true;
+      closeCursor();
+      subscriber.onError(cause);
+    }
+
+    private void closeCursor() {
+      if (cursor != null) {
+        try {
+          cursor.close();
+        } catch (IOException e) {
+          // ignore
+        }
+      }
+    }
+  }
+
+}
@@ -121,6 +121,29 @@ public class DefaultCursor<T> implements Cursor<T> {
     }
   }
 
+  /**
+   * Gives the driver a hint about the number of rows to fetch when more rows are needed.
+   * <p>
+   * Negative fetch sizes some drivers use to stream rows (e.g. MySQL) are kept untouched.
+   *
+   * @param fetchSize
+   *          the number of rows to fetch
+   * @since 3.5.8
+   */
+  public void setFetchSize(int fetchSize) {
+    if (isClosed()) {
+      return;
+    }
+    ResultSet rs = rsw.getResultSet();
+    try {
+      if (rs != null && !rs.isClosed() && rs.getFetchSize() >= 0 && rs.getFetchSize() != fetchSize) {
+        rs.setFetchSize(fetchSize);
+      }
+    } catch (SQLException e) {
+      // ignore, it is only a hint
+    }
+  }
+
   protected T fetchNextUsingRowBound() {
     T result = fetchNextObjectFromDatabase();
     while (objectWrapperResultHandler.fetched && indexWithRowBound < rowBounds.getOffset()) {
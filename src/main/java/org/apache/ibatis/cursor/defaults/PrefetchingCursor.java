@@ -0,0 +1,225 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.ErrorContext;
+import org.apache.ibatis.executor.ExecutorException;
+
+/**
+ * A cursor that fetches and maps the rows of a {@link DefaultCursor} on a background thread.
+ * <p>
+ * Up to <code>prefetchSize</code> rows are mapped ahead of the consumer, which then only waits for rows that are not
+ * fetched yet. The background thread waits as long as the buffer is full. Closing the cursor lets the background thread
+ * finish the row it is reading and waits for it to stop before the underlying cursor is closed; the thread is never
+ * interrupted, as interrupting JDBC I/O may break the connection. This implementation is not thread safe.
+ * <p>
+ * The background thread reads the result set while the consumer runs, so the session that opened the cursor must not
+ * execute other statements over the same connection until the cursor is closed.
+ *
+ * @since 3.5.8
+ */
+public class PrefetchingCursor<T> implements Cursor<T> {
+
+  private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+  private static final ExecutorService PREFETCHERS = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "mybatis-cursor-prefetch-" + THREAD_COUNT.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private static final Object NULL = new Object();
+  private static final Object END = new Object();
+
+  private static final int PRODUCER_NEW = 0;
+  private static final int PRODUCER_RUNNING = 1;
+  private static final int PRODUCER_CANCELLED = 2;
+
+  private final DefaultCursor<T> delegate;
+  private final BlockingQueue<Object> buffer;
+  private final AtomicInteger producerState = new AtomicInteger(PRODUCER_NEW);
+  private final CountDownLatch producerDone = new CountDownLatch(1);
+  private final int startIndex;
+  private final PrefetchingIterator iterator = new PrefetchingIterator();
+  private volatile boolean closed;
+  private boolean consumed;
+  private boolean iteratorRetrieved;
+
+  public PrefetchingCursor(DefaultCursor<T> delegate, int prefetchSize) {
+    this.delegate = delegate;
+    this.buffer = new ArrayBlockingQueue<>(prefetchSize);
+    this.startIndex = delegate.getCurrentIndex();
+  }
+
+  @Override
+  public boolean isOpen() {
+    return iterator.started && !closed && !consumed;
+  }
+
+  @Override
+  public boolean isConsumed() {
+    return consumed;
+  }
+
+  @Override
+  public int getCurrentIndex() {
+    return startIndex + iterator.returned;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    if (iteratorRetrieved) {
+      throw new IllegalStateException("Cannot open more than one iterator on a Cursor");
+    }
+    if (closed || consumed) {
+      throw new IllegalStateException("A Cursor is already closed.");
+    }
+    iteratorRetrieved = true;
+    PREFETCHERS.execute(this::produce);
+    return iterator;
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (iteratorRetrieved && !producerState.compareAndSet(PRODUCER_NEW, PRODUCER_CANCELLED)) {
+      // the result set must not be closed while the producer is still reading it, draining the buffer releases a
+      // producer that waits to put a row so that it sees the cursor is closed
+      boolean interrupted = false;
+      while (true) {
+        buffer.clear();
+        try {
+          if (producerDone.await(10, TimeUnit.MILLISECONDS)) {
+            break;
+          }
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    buffer.clear();
+    delegate.close();
+  }
+
+  private void produce() {
+    if (!producerState.compareAndSet(PRODUCER_NEW, PRODUCER_RUNNING)) {
+      return;
+    }
+    try {
+      Iterator<T> rows = delegate.iterator();
+      // checks for close before each fetch, so that a released producer does not read another row
+      while (!closed && rows.hasNext()) {
+        T row = rows.next();
+        buffer.put(row == null ? NULL : row);
+      }
+      if (!closed) {
+        buffer.put(END);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException | Error e) {
+      if (!closed) {
+        try {
+          buffer.put(new Failure(e));
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    } finally {
+      ErrorContext.instance().reset();
+      producerDone.countDown();
+    }
+  }
+
+  private static class Failure {
+    private final Throwable cause;
+
+    Failure(Throwable cause) {
+      this.cause = cause;
+    }
+  }
+
+  private class PrefetchingIterator implements Iterator<T> {
+
+    private Object next;
+    private int returned;
+    private boolean started;
+
+    @Override
+    public boolean hasNext() {
+      if (next == null && !consumed && !closed) {
+        started = true;
+        next = take();
+        if (next == END) {
+          next = null;
+          consumed = true;
+        } else if (next instanceof Failure) {
+          Throwable cause = ((Failure) next).cause;
+          next = null;
+          close();
+          if (cause instanceof Error) {
+            throw (Error) cause;
+          }
+          throw (RuntimeException) cause;
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Object row = next;
+      next = null;
+      returned++;
+      return row == NULL ? null : (T) row;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("Cannot remove element from Cursor");
+    }
+
+    private Object take() {
+      try {
+        return buffer.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ExecutorException("Interrupted while waiting for the next row of the cursor", e);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,480 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * A connection pool that does not serialize checkouts and returns on a pool wide monitor.
+ * <p>
+ * Every physical connection is an entry that is claimed by compare-and-set. A thread first tries the connection it
+ * returned last, then scans the shared list of entries and finally waits on a fair hand-off queue to which returned
+ * connections are offered. Statistics are collected with {@link LongAdder}s.
+ * <p>
+ * It accepts the same configuration as {@link PooledDataSource}, including overdue connection claiming and ping
+ * queries.
+ *
+ * @since 3.5.8
+ */
+public class ConcurrentPooledDataSource extends PooledDataSource {
+
+  private static final Log log = LogFactory.getLog(ConcurrentPooledDataSource.class);
+
+  private final ConcurrentPoolState state = new ConcurrentPoolState(this);
+
+  private final CopyOnWriteArrayList<PoolEntry> entries = new CopyOnWriteArrayList<>();
+  private final ThreadLocal<PoolEntry> lastReturnedEntry = new ThreadLocal<>();
+  private final SynchronousQueue<PoolEntry> handoffQueue = new SynchronousQueue<>(true);
+  private final AtomicInteger waiters = new AtomicInteger();
+  private final AtomicInteger totalConnections = new AtomicInteger();
+  private final AtomicInteger idleConnections = new AtomicInteger();
+
+  public ConcurrentPooledDataSource() {
+    super();
+  }
+
+  public ConcurrentPooledDataSource(UnpooledDataSource dataSource) {
+    super(dataSource);
+  }
+
+  public ConcurrentPooledDataSource(String driver, String url, String username, String password) {
+    super(driver, url, username, password);
+  }
+
+  public ConcurrentPooledDataSource(String driver, String url, Properties driverProperties) {
+    super(driver, url, driverProperties);
+  }
+
+  public ConcurrentPooledDataSource(ClassLoader driverClassLoader, String driver, String url, String username, String password) {
+    super(driverClassLoader, driver, url, username, password);
+  }
+
+  public ConcurrentPooledDataSource(ClassLoader driverClassLoader, String driver, String url, Properties driverProperties) {
+    super(driverClassLoader, driver, url, driverProperties);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return popConnection(getUsername(), getPassword()).getProxyConnection();
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return popConnection(username, password).getProxyConnection();
+  }
+
+  @Override
+  public PoolState getPoolState() {
+    return state;
+  }
+
+  /**
+   * Closes all active and idle connections in the pool.
+   */
+  @Override
+  public void forceCloseAll() {
+    expectedConnectionTypeCode = assembleConnectionTypeCode(getUrl(), getUsername(), getPassword());
+    for (PoolEntry entry : entries) {
+      PooledConnection conn = entry.owner.getAndSet(null);
+      if (conn != null) {
+        conn.invalidate();
+      }
+      removeEntry(entry);
+      try {
+        Connection realConn = entry.realConnection;
+        if (!realConn.getAutoCommit()) {
+          realConn.rollback();
+        }
+        realConn.close();
+      } catch (Exception e) {
+        // ignore
+      }
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("ConcurrentPooledDataSource forcefully closed/removed all connections.");
+    }
+  }
+
+  @Override
+  protected void pushConnection(PooledConnection conn) throws SQLException {
+    PoolEntry entry = findEntry(conn);
+    if (entry == null || !entry.owner.compareAndSet(conn, null)) {
+      // already claimed as overdue or removed by forceCloseAll
+      if (log.isDebugEnabled()) {
+        log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+      }
+      state.badConnectionCount.increment();
+      return;
+    }
+    if (!conn.isValid()) {
+      if (log.isDebugEnabled()) {
+        log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+      }
+      state.badConnectionCount.increment();
+      removeEntry(entry);
+      return;
+    }
+    state.accumulatedCheckoutTime.add(conn.getCheckoutTime());
+    conn.invalidate();
+    try {
+      if (!entry.realConnection.getAutoCommit()) {
+        entry.realConnection.rollback();
+      }
+    } catch (SQLException e) {
+      removeEntry(entry);
+      throw e;
+    }
+    if (idleConnections.get() < poolMaximumIdleConnections && conn.getConnectionTypeCode() == expectedConnectionTypeCode) {
+      entry.lastUsedTimestamp = conn.getLastUsedTimestamp();
+      if (log.isDebugEnabled()) {
+        log.debug("Returned connection " + conn.getRealHashCode() + " to pool.");
+      }
+      release(entry);
+    } else {
+      removeEntry(entry);
+      entry.realConnection.close();
+      if (log.isDebugEnabled()) {
+        log.debug("Closed connection " + conn.getRealHashCode() + ".");
+      }
+    }
+  }
+
+  private PooledConnection popConnection(String username, String password) throws SQLException {
+    final long t = System.currentTimeMillis();
+    boolean countedWait = false;
+    int localBadConnectionCount = 0;
+    while (true) {
+      PooledConnection conn = claimIdleConnection();
+      if (conn == null) {
+        conn = createConnection();
+      }
+      if (conn == null) {
+        conn = claimOverdueConnection();
+      }
+      if (conn == null) {
+        if (!countedWait) {
+          state.hadToWaitCount.increment();
+          countedWait = true;
+        }
+        conn = awaitConnection();
+      }
+      if (conn == null) {
+        continue;
+      }
+      // ping to server and check the connection is valid or not
+      if (conn.isValid()) {
+        if (!conn.getRealConnection().getAutoCommit()) {
+          conn.getRealConnection().rollback();
+        }
+        conn.setConnectionTypeCode(assembleConnectionTypeCode(getUrl(), username, password));
+        conn.setCheckoutTimestamp(System.currentTimeMillis());
+        conn.setLastUsedTimestamp(System.currentTimeMillis());
+        state.requestCount.increment();
+        state.accumulatedRequestTime.add(System.currentTimeMillis() - t);
+        return conn;
+      }
+      if (log.isDebugEnabled()) {
+        log.debug("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
+      }
+      state.badConnectionCount.increment();
+      localBadConnectionCount++;
+      PoolEntry entry = findEntry(conn);
+      if (entry != null && entry.owner.compareAndSet(conn, null)) {
+        removeEntry(entry);
+      }
+      if (localBadConnectionCount > (poolMaximumIdleConnections + poolMaximumLocalBadConnectionTolerance)) {
+        if (log.isDebugEnabled()) {
+          log.debug("ConcurrentPooledDataSource: Could not get a good connection to the database.");
+        }
+        throw new SQLException("ConcurrentPooledDataSource: Could not get a good connection to the database.");
+      }
+    }
+  }
+
+  private PooledConnection claimIdleConnection() {
+    PoolEntry entry = lastReturnedEntry.get();
+    if (entry == null || !claim(entry)) {
+      entry = null;
+      for (PoolEntry candidate : entries) {
+        if (claim(candidate)) {
+          entry = candidate;
+          break;
+        }
+      }
+    }
+    if (entry == null) {
+      return null;
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Checked out connection " + entry.realConnection.hashCode() + " from pool.");
+    }
+    return assign(entry);
+  }
+
+  private PooledConnection createConnection() throws SQLException {
+    int total;
+    do {
+      total = totalConnections.get();
+      if (total >= poolMaximumActiveConnections) {
+        return null;
+      }
+    } while (!totalConnections.compareAndSet(total, total + 1));
+    final Connection realConnection;
+    try {
+      realConnection = dataSource.getConnection();
+    } catch (SQLException | RuntimeException e) {
+      totalConnections.decrementAndGet();
+      throw e;
+    }
+    PoolEntry entry = new PoolEntry(realConnection, newStatementCache());
+    PooledConnection conn = assign(entry);
+    entries.add(entry);
+    if (log.isDebugEnabled()) {
+      log.debug("Created connection " + conn.getRealHashCode() + ".");
+    }
+    return conn;
+  }
+
+  private PooledConnection claimOverdueConnection() {
+    PoolEntry oldestEntry = null;
+    PooledConnection oldestConnection = null;
+    for (PoolEntry entry : entries) {
+      PooledConnection conn = entry.owner.get();
+      if (conn != null && (oldestConnection == null || conn.getCheckoutTimestamp() < oldestConnection.getCheckoutTimestamp())) {
+        oldestEntry = entry;
+        oldestConnection = conn;
+      }
+    }
+    if (oldestConnection == null) {
+      return null;
+    }
+    long longestCheckoutTime = oldestConnection.getCheckoutTime();
+    if (longestCheckoutTime <= poolMaximumCheckoutTime) {
+      return null;
+    }
+    PooledConnection conn = new PooledConnection(oldestEntry.realConnection, this);
+    conn.setCreatedTimestamp(oldestConnection.getCreatedTimestamp());
+    conn.setStatementCache(oldestEntry.statementCache);
+    conn.setLastUsedTimestamp(oldestConnection.getLastUsedTimestamp());
+    conn.setCheckoutTimestamp(System.currentTimeMillis());
+    if (!oldestEntry.owner.compareAndSet(oldestConnection, conn)) {
+      // returned or claimed by another thread in the meantime
+      return null;
+    }
+    oldestConnection.invalidate();
+    state.claimedOverdueConnectionCount.increment();
+    state.accumulatedCheckoutTimeOfOverdueConnections.add(longestCheckoutTime);
+    state.accumulatedCheckoutTime.add(longestCheckoutTime);
+    try {
+      if (!conn.getRealConnection().getAutoCommit()) {
+        conn.getRealConnection().rollback();
+      }
+    } catch (SQLException e) {
+      // the connection will be detected as bad by the validity check
+      log.debug("Bad connection. Could not roll back");
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Claimed overdue connection " + conn.getRealHashCode() + ".");
+    }
+    return conn;
+  }
+
+  private PooledConnection awaitConnection() throws SQLException {
+    waiters.incrementAndGet();
+    try {
+      // a connection may have been returned before this thread was registered as a waiter
+      PooledConnection conn = claimIdleConnection();
+      if (conn != null) {
+        return conn;
+      }
+      if (log.isDebugEnabled()) {
+        log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
+      }
+      long wt = System.currentTimeMillis();
+      PoolEntry entry = handoffQueue.poll(poolTimeToWait, TimeUnit.MILLISECONDS);
+      state.accumulatedWaitTime.add(System.currentTimeMillis() - wt);
+      return entry != null && claim(entry) ? assign(entry) : null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("ConcurrentPooledDataSource: Interrupted while waiting for a connection.", e);
+    } finally {
+      waiters.decrementAndGet();
+    }
+  }
+
+  private boolean claim(PoolEntry entry) {
+    if (entry.state.compareAndSet(PoolEntry.IDLE, PoolEntry.IN_USE)) {
+      idleConnections.decrementAndGet();
+      return true;
+    }
+    return false;
+  }
+
+  private PooledConnection assign(PoolEntry entry) {
+    PooledConnection conn = new PooledConnection(entry.realConnection, this);
+    conn.setCreatedTimestamp(entry.createdTimestamp);
+    conn.setStatementCache(entry.statementCache);
+    conn.setLastUsedTimestamp(entry.lastUsedTimestamp);
+    // must be set before the connection is published, otherwise it is immediately overdue
+    conn.setCheckoutTimestamp(System.currentTimeMillis());
+    entry.owner.set(conn);
+    return conn;
+  }
+
+  private void release(PoolEntry entry) {
+    idleConnections.incrementAndGet();
+    entry.state.set(PoolEntry.IDLE);
+    while (waiters.get() > 0) {
+      if (entry.state.get() != PoolEntry.IDLE || handoffQueue.offer(entry)) {
+        return;
+      }
+      Thread.yield();
+    }
+    lastReturnedEntry.set(entry);
+  }
+
+  private void removeEntry(PoolEntry entry) {
+    int previousState = entry.state.getAndSet(PoolEntry.REMOVED);
+    if (previousState == PoolEntry.REMOVED) {
+      return;
+    }
+    if (previousState == PoolEntry.IDLE) {
+      idleConnections.decrementAndGet();
+    }
+    entries.remove(entry);
+    totalConnections.decrementAndGet();
+  }
+
+  private PoolEntry findEntry(PooledConnection conn) {
+    for (PoolEntry entry : entries) {
+      if (entry.owner.get() == conn) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  int getIdleConnectionCount() {
+    return idleConnections.get();
+  }
+
+  int getActiveConnectionCount() {
+    return totalConnections.get() - idleConnections.get();
+  }
+
+  private static class PoolEntry {
+    static final int IDLE = 0;
+    static final int IN_USE = 1;
+    static final int REMOVED = -1;
+
+    private final AtomicInteger state = new AtomicInteger(IN_USE);
+    private final AtomicReference<PooledConnection> owner = new AtomicReference<>();
+    private final Connection realConnection;
+    private final PooledStatementCache statementCache;
+    private final long createdTimestamp;
+    private volatile long lastUsedTimestamp;
+
+    PoolEntry(Connection realConnection, PooledStatementCache statementCache) {
+      this.realConnection = realConnection;
+      this.statementCache = statementCache;
+      this.createdTimestamp = System.currentTimeMillis();
+      this.lastUsedTimestamp = createdTimestamp;
+    }
+  }
+
+  private static class ConcurrentPoolState extends PoolState {
+
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder accumulatedRequestTime = new LongAdder();
+    private final LongAdder accumulatedCheckoutTime = new LongAdder();
+    private final LongAdder claimedOverdueConnectionCount = new LongAdder();
+    private final LongAdder accumulatedCheckoutTimeOfOverdueConnections = new LongAdder();
+    private final LongAdder accumulatedWaitTime = new LongAdder();
+    private final LongAdder hadToWaitCount = new LongAdder();
+    private final LongAdder badConnectionCount = new LongAdder();
+
+    ConcurrentPoolState(ConcurrentPooledDataSource dataSource) {
+      super(dataSource);
+    }
+
+    @Override
+    public long getRequestCount() {
+      return requestCount.sum();
+    }
+
+    @Override
+    public long getAverageRequestTime() {
+      long requests = requestCount.sum();
+      return requests == 0 ? 0 : accumulatedRequestTime.sum() / requests;
+    }
+
+    @Override
+    public long getAverageWaitTime() {
+      long waits = hadToWaitCount.sum();
+      return waits == 0 ? 0 : accumulatedWaitTime.sum() / waits;
+    }
+
+    @Override
+    public long getHadToWaitCount() {
+      return hadToWaitCount.sum();
+    }
+
+    @Override
+    public long getBadConnectionCount() {
+      return badConnectionCount.sum();
+    }
+
+    @Override
+    public long getClaimedOverdueConnectionCount() {
+      return claimedOverdueConnectionCount.sum();
+    }
+
+    @Override
+    public long getAverageOverdueCheckoutTime() {
+      long claimed = claimedOverdueConnectionCount.sum();
+      return claimed == 0 ? 0 : accumulatedCheckoutTimeOfOverdueConnections.sum() / claimed;
+    }
+
+    @Override
+    public long getAverageCheckoutTime() {
+      long requests = requestCount.sum();
+      return requests == 0 ? 0 : accumulatedCheckoutTime.sum() / requests;
+    }
+
+    @Override
+    public int getIdleConnectionCount() {
+      return ((ConcurrentPooledDataSource) dataSource).getIdleConnectionCount();
+    }
+
+    @Override
+    public int getActiveConnectionCount() {
+      return ((ConcurrentPooledDataSource) dataSource).getActiveConnectionCount();
+    }
+  }
+
+}
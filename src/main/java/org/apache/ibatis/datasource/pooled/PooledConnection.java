@@ -40,6 +40,7 @@ class PooledConnection implements InvocationHandler {
   private long lastUsedTimestamp;
   private int connectionTypeCode;
   private boolean valid;
+  private PooledStatementCache statementCache;
 
   /**
    * Constructor for SimplePooledConnection that uses the Connection and PooledDataSource passed in.
@@ -121,6 +122,25 @@ class PooledConnection implements InvocationHandler {
     this.connectionTypeCode = connectionTypeCode;
   }
 
+  /**
+   * Getter for the cache of the statements of the real connection.
+   *
+   * @return the cache, or <code>null</code> if statements are not cached
+   */
+  PooledStatementCache getStatementCache() {
+    return statementCache;
+  }
+
+  /**
+   * Setter for the cache of the statements of the real connection, shared by all the wrappers of the connection.
+   *
+   * @param statementCache
+   *          - the cache, or <code>null</code> if statements are not cached
+   */
+  void setStatementCache(PooledStatementCache statementCache) {
+    this.statementCache = statementCache;
+  }
+
   /**
    * Getter for the time that the connection was created.
    *
@@ -252,6 +272,9 @@ class PooledConnection implements InvocationHandler {
         // throw an SQLException instead of a Runtime
         checkConnection();
       }
+      if (statementCache != null && PooledStatementCache.isPrepareMethod(methodName)) {
+        return statementCache.prepare(this, method, args);
+      }
       return method.invoke(realConnection, args);
     } catch (Throwable t) {
       throw ExceptionUtil.unwrapThrowable(t);
@@ -0,0 +1,263 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+/**
+ * The prepared and callable statements of one physical connection that are not in use, least recently used first.
+ * <p>
+ * The cache outlives the {@link PooledConnection}s wrapping the physical connection, so statements are reused by the
+ * next users of the connection. Closing a statement obtained from the cache resets it and gives it back instead of
+ * closing it. A statement is never handed out twice at the same time.
+ *
+ * @since 3.5.8
+ * @see PooledDataSource#setPoolMaximumCachedStatements(int)
+ */
+class PooledStatementCache {
+
+  private static final String CLOSE = "close";
+  private static final String IS_CLOSED = "isClosed";
+  private static final String GET_CONNECTION = "getConnection";
+
+  private final int maximumSize;
+  private final PoolState state;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final LinkedHashMap<StatementKey, CachedStatement> idleStatements = new LinkedHashMap<>(16, 0.75f, true);
+
+  PooledStatementCache(int maximumSize, PoolState state) {
+    this.maximumSize = maximumSize;
+    this.state = state;
+  }
+
+  static boolean isPrepareMethod(String methodName) {
+    return "prepareStatement".equals(methodName) || "prepareCall".equals(methodName);
+  }
+
+  /**
+   * Returns an idle statement prepared by the same method with the same arguments, or prepares a new one.
+   */
+  PreparedStatement prepare(PooledConnection connection, Method method, Object[] args) throws SQLException {
+    StatementKey key = new StatementKey(method.getName(), args);
+    CachedStatement statement;
+    lock.lock();
+    try {
+      statement = idleStatements.remove(key);
+    } finally {
+      lock.unlock();
+    }
+    if (statement != null) {
+      state.statementCacheHitCount.increment();
+    } else {
+      state.statementCacheMissCount.increment();
+      try {
+        statement = new CachedStatement(key, (PreparedStatement) method.invoke(connection.getRealConnection(), args));
+      } catch (Throwable t) {
+        throw toSQLException(ExceptionUtil.unwrapThrowable(t));
+      }
+    }
+    Class<?> type = statement.statement instanceof CallableStatement ? CallableStatement.class : PreparedStatement.class;
+    return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[] { type },
+        new StatementHandler(statement, connection.getProxyConnection()));
+  }
+
+  int size() {
+    lock.lock();
+    try {
+      return idleStatements.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void release(CachedStatement statement) {
+    if (!statement.reset()) {
+      statement.close();
+      return;
+    }
+    CachedStatement replaced;
+    lock.lock();
+    try {
+      replaced = idleStatements.put(statement.key, statement);
+      // the same statement may have been prepared twice while the first one was in use, keep the most recent
+      if (replaced != null) {
+        replaced.close();
+      }
+      Iterator<CachedStatement> iterator = idleStatements.values().iterator();
+      while (idleStatements.size() > maximumSize && iterator.hasNext()) {
+        iterator.next().close();
+        iterator.remove();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static SQLException toSQLException(Throwable t) {
+    if (t instanceof SQLException) {
+      return (SQLException) t;
+    }
+    if (t instanceof RuntimeException) {
+      throw (RuntimeException) t;
+    }
+    if (t instanceof Error) {
+      throw (Error) t;
+    }
+    return new SQLException(t);
+  }
+
+  private static class StatementKey {
+    private final String methodName;
+    private final Object[] args;
+    private final int hashCode;
+
+    StatementKey(String methodName, Object[] args) {
+      this.methodName = methodName;
+      this.args = args == null ? new Object[0] : args.clone();
+      this.hashCode = 31 * methodName.hashCode() + Arrays.deepHashCode(this.args);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof StatementKey)) {
+        return false;
+      }
+      StatementKey other = (StatementKey) obj;
+      return hashCode == other.hashCode && methodName.equals(other.methodName) && Arrays.deepEquals(args, other.args);
+    }
+  }
+
+  private static class CachedStatement {
+    private final StatementKey key;
+    private final PreparedStatement statement;
+    private final int fetchSize;
+    private final int maxRows;
+    private final int maxFieldSize;
+    private final int queryTimeout;
+
+    CachedStatement(StatementKey key, PreparedStatement statement) throws SQLException {
+      this.key = key;
+      this.statement = statement;
+      this.fetchSize = statement.getFetchSize();
+      this.maxRows = statement.getMaxRows();
+      this.maxFieldSize = statement.getMaxFieldSize();
+      this.queryTimeout = statement.getQueryTimeout();
+    }
+
+    /**
+     * Makes the statement look freshly prepared.
+     *
+     * @return <code>false</code> if the statement cannot be reused
+     */
+    boolean reset() {
+      try {
+        if (statement.isClosed()) {
+          return false;
+        }
+        ResultSet rs = statement.getResultSet();
+        if (rs != null) {
+          rs.close();
+        }
+        statement.clearParameters();
+        statement.clearBatch();
+        statement.clearWarnings();
+        if (statement.getFetchSize() != fetchSize) {
+          statement.setFetchSize(fetchSize);
+        }
+        if (statement.getMaxRows() != maxRows) {
+          statement.setMaxRows(maxRows);
+        }
+        if (statement.getMaxFieldSize() != maxFieldSize) {
+          statement.setMaxFieldSize(maxFieldSize);
+        }
+        if (statement.getQueryTimeout() != queryTimeout) {
+          statement.setQueryTimeout(queryTimeout);
+        }
+        return true;
+      } catch (SQLException | RuntimeException e) {
+        return false;
+      }
+    }
+
+    void close() {
+      try {
+        statement.close();
+      } catch (SQLException e) {
+        // ignore
+      }
+    }
+  }
+
+  /**
+   * The statement handed out to one user, which releases it on close.
+   */
+  private class StatementHandler implements InvocationHandler {
+    private final CachedStatement statement;
+    private final Connection connection;
+    private boolean closed;
+
+    StatementHandler(CachedStatement statement, Connection connection) {
+      this.statement = statement;
+      this.connection = connection;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String methodName = method.getName();
+      if (CLOSE.equals(methodName)) {
+        if (!closed) {
+          closed = true;
+          release(statement);
+        }
+        return null;
+      } else if (IS_CLOSED.equals(methodName)) {
+        return closed || statement.statement.isClosed();
+      } else if (Object.class.equals(method.getDeclaringClass())) {
+        return method.invoke(this, args);
+      }
+      if (closed) {
+        throw new SQLException("Error accessing cached statement. Statement is closed.");
+      }
+      if (GET_CONNECTION.equals(methodName)) {
+        return connection;
+      }
+      try {
+        return method.invoke(statement.statement, args);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+    }
+  }
+
+}
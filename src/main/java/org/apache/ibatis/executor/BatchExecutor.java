@@ -30,6 +30,8 @@ import org.apache.ibatis.executor.keygen.NoKeyGenerator;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
@@ -42,10 +44,16 @@ public class BatchExecutor extends BaseExecutor {
 
   public static final int BATCH_UPDATE_RETURN_VALUE = Integer.MIN_VALUE + 1002;
 
+  private static final int ESTIMATED_VALUE_SIZE = 16;
+
   private final List<Statement> statementList = new ArrayList<>();
   private final List<BatchResult> batchResultList = new ArrayList<>();
+  private final List<MultiRowInsertBatch> insertBatchList = new ArrayList<>();
+  private final List<BatchResult> flushedResultList = new ArrayList<>();
   private String currentSql;
   private MappedStatement currentStatement;
+  private int batchedRows;
+  private long batchedBytes;
 
   public BatchExecutor(Configuration configuration, Transaction transaction) {
     super(configuration, transaction);
@@ -57,27 +65,104 @@ public class BatchExecutor extends BaseExecutor {
     final StatementHandler handler = configuration.newStatementHandler(this, ms, parameterObject, RowBounds.DEFAULT, null, null);
     final BoundSql boundSql = handler.getBoundSql();
     final String sql = boundSql.getSql();
-    final Statement stmt;
+    final boolean retainParameterObject = configuration.isRetainBatchParameterObjects() || assignsKeys(ms);
     if (sql.equals(currentSql) && ms.equals(currentStatement)) {
       int last = statementList.size() - 1;
-      stmt = statementList.get(last);
-      applyTransactionTimeout(stmt);
-      handler.parameterize(stmt);// fix Issues 322
-      BatchResult batchResult = batchResultList.get(last);
-      batchResult.addParameterObject(parameterObject);
+      MultiRowInsertBatch insertBatch = insertBatchList.get(last);
+      if (insertBatch != null) {
+        insertBatch.addRow(handler, parameterObject);
+      } else {
+        Statement stmt = statementList.get(last);
+        applyTransactionTimeout(stmt);
+        handler.parameterize(stmt);// fix Issues 322
+        handler.batch(stmt);
+      }
+      if (retainParameterObject) {
+        BatchResult batchResult = batchResultList.get(last);
+        batchResult.addParameterObject(parameterObject);
+      }
     } else {
-      Connection connection = getConnection(ms.getStatementLog());
-      stmt = handler.prepare(connection, transaction.getTimeout());
-      handler.parameterize(stmt);    // fix Issues 322
+      Integer rowsPerStatement = configuration.getBatchInsertRowsPerStatement();
+      MultiRowInsertBatch insertBatch = rowsPerStatement == null ? null
+          : MultiRowInsertBatch.newInstance(this, ms, boundSql, rowsPerStatement);
+      Statement stmt = null;
+      if (insertBatch != null) {
+        insertBatch.addRow(handler, parameterObject);
+      } else {
+        Connection connection = getConnection(ms.getStatementLog());
+        stmt = handler.prepare(connection, transaction.getTimeout());
+        handler.parameterize(stmt);    // fix Issues 322
+      }
       currentSql = sql;
       currentStatement = ms;
       statementList.add(stmt);
-      batchResultList.add(new BatchResult(ms, sql, parameterObject));
+      insertBatchList.add(insertBatch);
+      batchResultList.add(retainParameterObject ? new BatchResult(ms, sql, parameterObject) : new BatchResult(ms, sql));
+      if (stmt != null) {
+        handler.batch(stmt);
+      }
     }
-    handler.batch(stmt);
+    flushIfNeeded(configuration, boundSql);
     return BATCH_UPDATE_RETURN_VALUE;
   }
 
+  private boolean assignsKeys(MappedStatement ms) {
+    KeyGenerator keyGenerator = ms.getKeyGenerator();
+    if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
+      return ms.getKeyProperties() != null && ms.getKeyProperties().length > 0;
+    }
+    return !NoKeyGenerator.class.equals(keyGenerator.getClass());
+  }
+
+  private void flushIfNeeded(Configuration configuration, BoundSql boundSql) throws SQLException {
+    final Integer flushSize = configuration.getBatchFlushSize();
+    final Long flushBytes = configuration.getBatchFlushBytes();
+    batchedRows++;
+    if (flushBytes != null) {
+      batchedBytes += estimateSize(configuration, boundSql);
+    }
+    if ((flushSize != null && batchedRows >= flushSize) || (flushBytes != null && batchedBytes >= flushBytes)) {
+      List<BatchResult> results = doFlushStatements(false);
+      if (!configuration.isRetainBatchParameterObjects()) {
+        // the keys are assigned, so nothing needs the parameter objects until the next flushStatements()
+        results.forEach(result -> result.getParameterObjects().clear());
+      }
+      flushedResultList.addAll(results);
+    }
+  }
+
+  /**
+   * Roughly estimates the memory the driver needs to keep the parameter values of a batched row.
+   */
+  private long estimateSize(Configuration configuration, BoundSql boundSql) {
+    final Object parameterObject = boundSql.getParameterObject();
+    long size = 0;
+    MetaObject metaObject = null;
+    for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+      Object value;
+      String propertyName = parameterMapping.getProperty();
+      if (boundSql.hasAdditionalParameter(propertyName)) {
+        value = boundSql.getAdditionalParameter(propertyName);
+      } else if (parameterObject == null) {
+        value = null;
+      } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+        value = parameterObject;
+      } else {
+        if (metaObject == null) {
+          metaObject = configuration.newMetaObject(parameterObject);
+        }
+        value = metaObject.getValue(propertyName);
+      }
+      size += ESTIMATED_VALUE_SIZE;
+      if (value instanceof CharSequence) {
+        size += 2L * ((CharSequence) value).length();
+      } else if (value instanceof byte[]) {
+        size += ((byte[]) value).length;
+      }
+    }
+    return size;
+  }
+
   @Override
   public <E> List<E> doQuery(MappedStatement ms, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql)
       throws SQLException {
@@ -111,14 +196,25 @@ public class BatchExecutor extends BaseExecutor {
   @Override
   public List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException {
     try {
-      List<BatchResult> results = new ArrayList<>();
+      // statements flushed because the batch was full come first
+      List<BatchResult> results = new ArrayList<>(flushedResultList);
       if (isRollback) {
         return Collections.emptyList();
       }
       for (int i = 0, n = statementList.size(); i < n; i++) {
         Statement stmt = statementList.get(i);
-        applyTransactionTimeout(stmt);
         BatchResult batchResult = batchResultList.get(i);
+        MultiRowInsertBatch insertBatch = insertBatchList.get(i);
+        if (insertBatch != null) {
+          try {
+            batchResult.setUpdateCounts(insertBatch.execute());
+          } catch (BatchUpdateException e) {
+            throw newBatchExecutorException(e, i, results, batchResult);
+          }
+          results.add(batchResult);
+          continue;
+        }
+        applyTransactionTimeout(stmt);
         try {
           batchResult.setUpdateCounts(stmt.executeBatch());
           MappedStatement ms = batchResult.getMappedStatement();
@@ -135,18 +231,7 @@ public class BatchExecutor extends BaseExecutor {
           // Close statement to close cursor #1109
           closeStatement(stmt);
         } catch (BatchUpdateException e) {
-          StringBuilder message = new StringBuilder();
-          message.append(batchResult.getMappedStatement().getId())
-              .append(" (batch index #")
-              .append(i + 1)
-              .append(")")
-              .append(" failed.");
-          if (i > 0) {
-            message.append(" ")
-                .append(i)
-                .append(" prior sub executor(s) completed successfully, but will be rolled back.");
-          }
-          throw new BatchExecutorException(message.toString(), e, results, batchResult);
+          throw newBatchExecutorException(e, i, results, batchResult);
         }
         results.add(batchResult);
       }
@@ -158,7 +243,27 @@ public class BatchExecutor extends BaseExecutor {
       currentSql = null;
       statementList.clear();
       batchResultList.clear();
+      insertBatchList.clear();
+      flushedResultList.clear();
+      batchedRows = 0;
+      batchedBytes = 0;
+    }
+  }
+
+  private BatchExecutorException newBatchExecutorException(BatchUpdateException e, int i, List<BatchResult> results,
+      BatchResult batchResult) {
+    StringBuilder message = new StringBuilder();
+    message.append(batchResult.getMappedStatement().getId())
+        .append(" (batch index #")
+        .append(i + 1)
+        .append(")")
+        .append(" failed.");
+    if (i > 0) {
+      message.append(" ")
+          .append(i)
+          .append(" prior sub executor(s) completed successfully, but will be rolled back.");
     }
+    return new BatchExecutorException(message.toString(), e, results, batchResult);
   }
 
 }
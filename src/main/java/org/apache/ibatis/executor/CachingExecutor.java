@@ -16,16 +16,20 @@
 package org.apache.ibatis.executor;
 
 import java.sql.SQLException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.TableVersions;
 import org.apache.ibatis.cache.TransactionalCacheManager;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.ResultHandler;
@@ -40,6 +44,8 @@ public class CachingExecutor implements Executor {
 
   private final Executor delegate;
   private final TransactionalCacheManager tcm = new TransactionalCacheManager();
+  private final Set<String> writtenTables = new HashSet<>();
+  private TableVersions tableVersions;
 
   public CachingExecutor(Executor delegate) {
     this.delegate = delegate;
@@ -56,8 +62,10 @@ public class CachingExecutor implements Executor {
     try {
       // issues #499, #524 and #573
       if (forceRollback) {
+        writtenTables.clear();
         tcm.rollback();
       } else {
+        incrementWrittenTables();
         tcm.commit();
       }
     } finally {
@@ -95,13 +103,17 @@ public class CachingExecutor implements Executor {
     Cache cache = ms.getCache();
     if (cache != null) {
       flushCacheIfRequired(ms);
-      if (ms.isUseCache() && resultHandler == null) {
+      if (ms.isUseCache() && resultHandler == null && !readsWrittenTables(ms)) {
         ensureNoOutParams(ms, boundSql);
         @SuppressWarnings("unchecked")
         List<E> list = (List<E>) tcm.getObject(cache, key);
         if (list == null) {
           list = delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
-          tcm.putObject(cache, key, list); // issue #578 and #116
+          if (ms.getCacheTimeToLive() != null) {
+            tcm.putObject(cache, key, list, ms.getCacheTimeToLive());
+          } else {
+            tcm.putObject(cache, key, list); // issue #578 and #116
+          }
         }
         return list;
       }
@@ -117,6 +129,7 @@ public class CachingExecutor implements Executor {
   @Override
   public void commit(boolean required) throws SQLException {
     delegate.commit(required);
+    incrementWrittenTables();
     tcm.commit();
   }
 
@@ -126,6 +139,7 @@ public class CachingExecutor implements Executor {
       delegate.rollback(required);
     } finally {
       if (required) {
+        writtenTables.clear();
         tcm.rollback();
       }
     }
@@ -143,7 +157,15 @@ public class CachingExecutor implements Executor {
 
   @Override
   public CacheKey createCacheKey(MappedStatement ms, Object parameterObject, RowBounds rowBounds, BoundSql boundSql) {
-    return delegate.createCacheKey(ms, parameterObject, rowBounds, boundSql);
+    CacheKey cacheKey = delegate.createCacheKey(ms, parameterObject, rowBounds, boundSql);
+    String[] tables = ms.getCacheTables();
+    if (tables != null && ms.getCache() != null && ms.getSqlCommandType() == SqlCommandType.SELECT) {
+      TableVersions versions = ms.getConfiguration().getTableVersions();
+      for (String table : tables) {
+        cacheKey.update(versions.getVersion(table));
+      }
+    }
+    return cacheKey;
   }
 
   @Override
@@ -162,12 +184,44 @@ public class CachingExecutor implements Executor {
   }
 
   private void flushCacheIfRequired(MappedStatement ms) {
+    if (!ms.isFlushCacheRequired()) {
+      return;
+    }
     Cache cache = ms.getCache();
-    if (cache != null && ms.isFlushCacheRequired()) {
+    String[] tables = ms.getCacheTables();
+    if (tables != null && ms.getSqlCommandType() != SqlCommandType.SELECT) {
+      // the written tables are invalidated in all namespaces on commit
+      tableVersions = ms.getConfiguration().getTableVersions();
+      for (String table : tables) {
+        writtenTables.add(table);
+      }
+      if (cache != null && !tableVersions.isTableAware(cache)) {
+        tcm.clear(cache);
+      }
+    } else if (cache != null) {
       tcm.clear(cache);
     }
   }
 
+  private boolean readsWrittenTables(MappedStatement ms) {
+    String[] tables = ms.getCacheTables();
+    if (tables != null && !writtenTables.isEmpty()) {
+      for (String table : tables) {
+        if (writtenTables.contains(table)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private void incrementWrittenTables() {
+    if (!writtenTables.isEmpty()) {
+      tableVersions.increment(writtenTables);
+      writtenTables.clear();
+    }
+  }
+
   @Override
   public void setExecutorWrapper(Executor executor) {
     throw new UnsupportedOperationException("This method should not be called");
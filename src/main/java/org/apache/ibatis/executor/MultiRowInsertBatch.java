@@ -0,0 +1,334 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
+import org.apache.ibatis.executor.keygen.KeyGenerator;
+import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Batched rows of a single-row <code>INSERT ... VALUES (...)</code> statement that are sent as multi-row
+ * <code>INSERT ... VALUES (...),(...),...</code> statements.
+ * <p>
+ * Parameters of every row are bound when the row is added, by recording the calls the parameter handler makes, and
+ * replayed at the right offset when the multi-row statements are executed on flush.
+ *
+ * @since 3.5.8
+ * @see org.apache.ibatis.session.Configuration#getBatchInsertRowsPerStatement()
+ */
+class MultiRowInsertBatch {
+
+  private final BaseExecutor executor;
+  private final MappedStatement ms;
+  private final String head;
+  private final String row;
+  private final int parametersPerRow;
+  private final int rowsPerStatement;
+  private final boolean generatesKeys;
+  private final List<Object> parameterObjects = new ArrayList<>();
+  private Object firstParameterObject;
+  private final List<BoundParameters> rows = new ArrayList<>();
+
+  private MultiRowInsertBatch(BaseExecutor executor, MappedStatement ms, String head, String row,
+      int parametersPerRow, int rowsPerStatement) {
+    this.executor = executor;
+    this.ms = ms;
+    this.head = head;
+    this.row = row;
+    this.parametersPerRow = parametersPerRow;
+    this.rowsPerStatement = rowsPerStatement;
+    this.generatesKeys = Jdbc3KeyGenerator.class.equals(ms.getKeyGenerator().getClass()) && ms.getKeyProperties() != null
+        && ms.getKeyProperties().length > 0;
+  }
+
+  /**
+   * Creates a batch for the statement if it can be rewritten.
+   *
+   * @return <code>null</code> if the statement is not a single-row insert, generates keys with something else than
+   *         {@link Jdbc3KeyGenerator} or binds parameters outside of its values list
+   */
+  static MultiRowInsertBatch newInstance(BaseExecutor executor, MappedStatement ms, BoundSql boundSql,
+      int rowsPerStatement) {
+    if (rowsPerStatement < 2 || ms.getSqlCommandType() != SqlCommandType.INSERT
+        || ms.getStatementType() != StatementType.PREPARED) {
+      return null;
+    }
+    KeyGenerator keyGenerator = ms.getKeyGenerator();
+    if (!Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())
+        && !NoKeyGenerator.class.equals(keyGenerator.getClass())) {
+      return null;
+    }
+    for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+      if (parameterMapping.getMode() != ParameterMode.IN) {
+        return null;
+      }
+    }
+    String sql = boundSql.getSql();
+    int[] values = findValues(sql);
+    if (values == null || countPlaceholders(sql, 0, values[0]) != 0
+        || countPlaceholders(sql, values[0], values[1]) != boundSql.getParameterMappings().size()) {
+      return null;
+    }
+    return new MultiRowInsertBatch(executor, ms, sql.substring(0, values[0]), sql.substring(values[0], values[1]),
+        boundSql.getParameterMappings().size(), rowsPerStatement);
+  }
+
+  /**
+   * Returns the bounds of the values list of a single-row insert.
+   *
+   * @return the index of its opening and after its closing parenthesis, or <code>null</code> if the statement has
+   *         another shape
+   */
+  static int[] findValues(String sql) {
+    if (!sql.trim().toUpperCase(Locale.ENGLISH).startsWith("INSERT")) {
+      return null;
+    }
+    int valuesEnd = -1;
+    int depth = 0;
+    for (int i = 0, n = sql.length(); i < n; i++) {
+      char c = sql.charAt(i);
+      if (c == '\'' || c == '"' || c == '`') {
+        i = sql.indexOf(c, i + 1);
+        if (i < 0) {
+          return null;
+        }
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (depth == 0 && isValuesKeyword(sql, i)) {
+        if (valuesEnd >= 0) {
+          return null;
+        }
+        valuesEnd = i + 6;
+        i = valuesEnd - 1;
+      }
+    }
+    if (valuesEnd < 0) {
+      return null;
+    }
+    int start = valuesEnd;
+    while (start < sql.length() && Character.isWhitespace(sql.charAt(start))) {
+      start++;
+    }
+    if (start == sql.length() || sql.charAt(start) != '(') {
+      return null;
+    }
+    int end = -1;
+    depth = 0;
+    for (int i = start, n = sql.length(); i < n && end < 0; i++) {
+      char c = sql.charAt(i);
+      if (c == '\'' || c == '"' || c == '`') {
+        i = sql.indexOf(c, i + 1);
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')' && --depth == 0) {
+        end = i + 1;
+      }
+    }
+    if (end < 0 || !sql.substring(end).trim().isEmpty()) {
+      return null;
+    }
+    return new int[] { start, end };
+  }
+
+  private static boolean isValuesKeyword(String sql, int index) {
+    return sql.regionMatches(true, index, "VALUES", 0, 6)
+        && (index == 0 || !Character.isJavaIdentifierPart(sql.charAt(index - 1)))
+        && (index + 6 == sql.length() || !Character.isJavaIdentifierPart(sql.charAt(index + 6)));
+  }
+
+  private static int countPlaceholders(String sql, int start, int end) {
+    int count = 0;
+    for (int i = start; i < end; i++) {
+      char c = sql.charAt(i);
+      if (c == '\'' || c == '"' || c == '`') {
+        i = sql.indexOf(c, i + 1);
+      } else if (c == '?') {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Adds a row, binding its parameters right away.
+   */
+  void addRow(StatementHandler handler, Object parameterObject) throws SQLException {
+    BoundParameters parameters = new BoundParameters();
+    handler.getParameterHandler().setParameters(parameters.recorder(executor, ms));
+    if (rows.isEmpty()) {
+      firstParameterObject = parameterObject;
+    }
+    if (generatesKeys) {
+      parameterObjects.add(parameterObject);
+    }
+    rows.add(parameters);
+  }
+
+  /**
+   * Executes the multi-row statements and assigns generated keys.
+   *
+   * @return one update count per added row
+   */
+  int[] execute() throws SQLException {
+    final int[] updateCounts = new int[rows.size()];
+    final int remainder = rows.size() % rowsPerStatement;
+    final int fullRows = rows.size() - remainder;
+    Statement stmt = null;
+    int executed = 0;
+    try {
+      if (fullRows > 0) {
+        stmt = prepare(rowsPerStatement);
+        if (generatesKeys) {
+          // most drivers only return the keys of the last statement of a batch
+          for (; executed < fullRows; executed += rowsPerStatement) {
+            bind((PreparedStatement) stmt, executed, rowsPerStatement);
+            split(((PreparedStatement) stmt).executeUpdate(), updateCounts, executed, rowsPerStatement);
+            assignKeys(stmt, executed, rowsPerStatement);
+          }
+        } else {
+          for (int offset = 0; offset < fullRows; offset += rowsPerStatement) {
+            bind((PreparedStatement) stmt, offset, rowsPerStatement);
+            ((PreparedStatement) stmt).addBatch();
+          }
+          int[] statementCounts = stmt.executeBatch();
+          for (int i = 0; i < statementCounts.length; i++) {
+            split(statementCounts[i], updateCounts, executed, rowsPerStatement);
+            executed += rowsPerStatement;
+          }
+        }
+        executor.closeStatement(stmt);
+        stmt = null;
+      }
+      if (remainder > 0) {
+        stmt = prepare(remainder);
+        bind((PreparedStatement) stmt, executed, remainder);
+        split(((PreparedStatement) stmt).executeUpdate(), updateCounts, executed, remainder);
+        if (generatesKeys) {
+          assignKeys(stmt, executed, remainder);
+        }
+        executed += remainder;
+      }
+      return updateCounts;
+    } catch (BatchUpdateException e) {
+      throw e;
+    } catch (SQLException e) {
+      throw new BatchUpdateException(e.getMessage(), e.getSQLState(), e.getErrorCode(),
+          Arrays.copyOf(updateCounts, executed), e);
+    } finally {
+      executor.closeStatement(stmt);
+    }
+  }
+
+  private Statement prepare(int rowCount) throws SQLException {
+    StringBuilder sql = new StringBuilder(head.length() + (row.length() + 1) * rowCount).append(head).append(row);
+    for (int i = 1; i < rowCount; i++) {
+      sql.append(',').append(row);
+    }
+    BoundSql boundSql = new BoundSql(ms.getConfiguration(), sql.toString(), Collections.emptyList(), firstParameterObject);
+    StatementHandler handler = ms.getConfiguration().newStatementHandler(executor, ms, firstParameterObject,
+        RowBounds.DEFAULT, null, boundSql);
+    Statement stmt = handler.prepare(executor.getConnection(ms.getStatementLog()), executor.transaction.getTimeout());
+    executor.applyTransactionTimeout(stmt);
+    return stmt;
+  }
+
+  private void bind(PreparedStatement ps, int firstRow, int rowCount) throws SQLException {
+    ps.clearParameters();
+    for (int i = 0; i < rowCount; i++) {
+      rows.get(firstRow + i).replay(ps, i * parametersPerRow);
+    }
+  }
+
+  private void assignKeys(Statement stmt, int firstRow, int rowCount) {
+    Jdbc3KeyGenerator keyGenerator = (Jdbc3KeyGenerator) ms.getKeyGenerator();
+    keyGenerator.processBatch(ms, stmt, new ArrayList<>(parameterObjects.subList(firstRow, firstRow + rowCount)));
+  }
+
+  /**
+   * Splits the update count of a multi-row statement into one count per row.
+   */
+  static void split(int updateCount, int[] updateCounts, int firstRow, int rowCount) {
+    Arrays.fill(updateCounts, firstRow, firstRow + rowCount, updateCount == rowCount ? 1 : Statement.SUCCESS_NO_INFO);
+  }
+
+  /**
+   * The parameter setter calls of one row.
+   */
+  private static class BoundParameters {
+
+    private final List<Method> methods = new ArrayList<>();
+    private final List<Object[]> arguments = new ArrayList<>();
+
+    PreparedStatement recorder(BaseExecutor executor, MappedStatement ms) {
+      return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+          new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+            if (method.getName().startsWith("set") && args != null && args.length > 1
+                && method.getParameterTypes()[0] == int.class) {
+              methods.add(method);
+              arguments.add(args);
+              return null;
+            } else if ("getConnection".equals(method.getName())) {
+              // type handlers may need it to create arrays or lobs
+              return executor.getConnection(ms.getStatementLog());
+            } else if ("toString".equals(method.getName())) {
+              return "Recorded parameters " + arguments.size();
+            }
+            throw new UnsupportedOperationException(
+                "Method '" + method.getName() + "' is not supported when rewriting multi-row inserts");
+          });
+    }
+
+    void replay(PreparedStatement ps, int offset) throws SQLException {
+      for (int i = 0; i < methods.size(); i++) {
+        Object[] args = arguments.get(i).clone();
+        args[0] = (Integer) args[0] + offset;
+        try {
+          methods.get(i).invoke(ps, args);
+        } catch (Exception e) {
+          Throwable t = ExceptionUtil.unwrapThrowable(e);
+          if (t instanceof SQLException) {
+            throw (SQLException) t;
+          }
+          throw new ExecutorException("Error binding parameters of a multi-row insert. Cause: " + t, t);
+        }
+      }
+    }
+  }
+
+}
@@ -20,6 +20,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -38,10 +39,27 @@ import org.apache.ibatis.transaction.Transaction;
  */
 public class ReuseExecutor extends BaseExecutor {
 
-  private final Map<String, Statement> statementMap = new HashMap<>();
+  private final Map<String, Statement> statementMap;
 
   public ReuseExecutor(Configuration configuration, Transaction transaction) {
     super(configuration, transaction);
+    final Integer maxReusedStatements = configuration.getMaxReusedStatements();
+    if (maxReusedStatements == null) {
+      this.statementMap = new HashMap<>();
+    } else {
+      this.statementMap = new LinkedHashMap<String, Statement>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Statement> eldest) {
+          if (size() > maxReusedStatements) {
+            closeStatement(eldest.getValue());
+            return true;
+          }
+          return false;
+        }
+      };
+    }
   }
 
   @Override
@@ -17,6 +17,9 @@ package org.apache.ibatis.executor.loader;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import javax.sql.DataSource;
 
@@ -39,6 +42,8 @@ import org.apache.ibatis.transaction.TransactionFactory;
  */
 public class ResultLoader {
 
+  private static final ThreadLocal<Boolean> LOADER_THREAD = new ThreadLocal<>();
+
   protected final Configuration configuration;
   protected final Executor executor;
   protected final MappedStatement mappedStatement;
@@ -73,8 +78,16 @@ public class ResultLoader {
   }
 
   private <E> List<E> selectList() throws SQLException {
+    return selectList(parameterObject, cacheKey, boundSql);
+  }
+
+  protected <E> List<E> selectList(Object parameterObject, CacheKey cacheKey, BoundSql boundSql) throws SQLException {
     Executor localExecutor = executor;
     if (Thread.currentThread().getId() != this.creatorThreadId || localExecutor.isClosed()) {
+      final ExecutorService loaders = configuration.getLazyLoadingExecutor();
+      if (loaders != null && LOADER_THREAD.get() == null) {
+        return selectListOnLoaderThread(loaders, parameterObject, cacheKey, boundSql);
+      }
       localExecutor = newExecutor();
     }
     try {
@@ -86,6 +99,39 @@ public class ResultLoader {
     }
   }
 
+  /**
+   * Runs the query on a thread of the shared lazy loading executor, so that the number of connections opened by loads
+   * that cannot use the executor of their session is bounded by the size of that pool.
+   */
+  private <E> List<E> selectListOnLoaderThread(ExecutorService loaders, Object parameterObject, CacheKey cacheKey,
+      BoundSql boundSql) throws SQLException {
+    final Future<List<E>> future = loaders.submit(() -> {
+      LOADER_THREAD.set(Boolean.TRUE);
+      try {
+        return selectList(parameterObject, cacheKey, boundSql);
+      } finally {
+        LOADER_THREAD.remove();
+      }
+    });
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new ExecutorException("Interrupted while waiting for a lazy load.", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof SQLException) {
+        throw (SQLException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new ExecutorException("Error loading lazily. Cause: " + cause, cause);
+    }
+  }
+
   private Executor newExecutor() {
     final Environment environment = configuration.getEnvironment();
     if (environment == null) {
@@ -0,0 +1,372 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.ResultFlag;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.AutoMappingBehavior;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * The result loaders of one nested select that were created while handling the same result set, either lazy loaders
+ * or loaders of nested selects deferred until the end of the result set.
+ * <p>
+ * When one of them is loaded, it is loaded together with up to batch size - 1 other pending loaders by a single
+ * query, where the <code>column = ?</code> condition of the nested select is replaced by
+ * <code>column IN (?, ?, ...)</code>. Rows are given back to each loader by comparing the property the column is
+ * mapped to with the loader parameter. If a row cannot be given back that way (e.g. a type handler maps the column to
+ * another value), the loaders of the batch are loaded one by one from then on.
+ * <p>
+ * Only simple nested selects can be rewritten that way: one parameter compared to a column of the single table the
+ * statement reads, no <code>OR</code>, no joins, grouping or row limits, and a result map mapping that column, which
+ * must be selected, to a property. Loaders of other nested selects are loaded one by one as usual.
+ *
+ * @since 3.5.8
+ * @see Configuration#getLazyLoadingBatchSize()
+ * @see Configuration#getNestedSelectBatchSize()
+ */
+public class ResultLoaderBatch {
+
+  private static final String KEY_PARAMETER_PREFIX = "__batchKey";
+  private static final Pattern KEY_CONDITION = Pattern.compile("(?<![\\w$.])(?:[A-Za-z_][\\w$]*\\.)?([A-Za-z_][\\w$]*)\\s*=\\s*$");
+  private static final Pattern UNSUPPORTED_KEYWORDS = Pattern.compile(
+      "\\b(JOIN|OR|NOT|GROUP|HAVING|UNION|INTERSECT|EXCEPT|MINUS|LIMIT|OFFSET|FETCH|TOP|ROWNUM|CONNECT)\\b",
+      Pattern.CASE_INSENSITIVE);
+  private static final Pattern QUOTED = Pattern.compile("'[^']*'|\"[^\"]*\"|`[^`]*`");
+  private static final Pattern SELECT_CLAUSE = Pattern.compile("^\\s*SELECT\\s+(?:DISTINCT\\s+)?(.*?)\\bFROM\\b",
+      Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+  private static final Pattern SELECT_ITEM = Pattern
+      .compile("(?:[A-Za-z_][\\w$]*\\.)?([A-Za-z_][\\w$]*|\\*)(?:\\s+(?:AS\\s+)?([A-Za-z_][\\w$]*))?", Pattern.CASE_INSENSITIVE);
+  private static final Pattern FROM_CLAUSE = Pattern.compile("\\bFROM\\b(.*?)\\bWHERE\\b", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Set<BatchedResultLoader> pending = new LinkedHashSet<>();
+  private final Configuration configuration;
+  private final MappedStatement mappedStatement;
+  private final int batchSize;
+  private final ParameterMapping keyMapping;
+  private final String sqlHead;
+  private final String sqlTail;
+  private final String keyProperty;
+  private boolean keyMismatch;
+
+  /**
+   * Creates the batch of a nested select.
+   *
+   * @param configuration
+   *          the configuration
+   * @param mappedStatement
+   *          the nested select
+   * @param boundSql
+   *          the SQL of the nested select for one of the loaders
+   * @param batchSize
+   *          the maximum number of loaders loaded by one query
+   */
+  public ResultLoaderBatch(Configuration configuration, MappedStatement mappedStatement, BoundSql boundSql, int batchSize) {
+    this.configuration = configuration;
+    this.mappedStatement = mappedStatement;
+    this.batchSize = batchSize;
+    final String sql = boundSql.getSql();
+    final int placeholder = findKeyPlaceholder(configuration, mappedStatement, boundSql);
+    final Matcher matcher = placeholder < 0 ? null : KEY_CONDITION.matcher(sql.substring(0, placeholder));
+    if (matcher != null && matcher.find() && selectsColumn(sql, matcher.group(1))) {
+      this.keyProperty = findKeyProperty(configuration, mappedStatement, matcher.group(1));
+    } else {
+      this.keyProperty = null;
+    }
+    if (keyProperty != null) {
+      this.keyMapping = boundSql.getParameterMappings().get(0);
+      this.sqlHead = sql.substring(0, matcher.end(1));
+      this.sqlTail = sql.substring(placeholder + 1);
+    } else {
+      this.keyMapping = null;
+      this.sqlHead = null;
+      this.sqlTail = null;
+    }
+  }
+
+  /**
+   * Returns whether the nested select can be rewritten to load several result loaders at once.
+   *
+   * @return <code>false</code> if the result loaders of this batch are loaded one by one
+   */
+  public boolean isBatchable() {
+    return keyProperty != null;
+  }
+
+  /**
+   * Creates a result loader belonging to this batch.
+   *
+   * @return a result loader loading alone if the nested select cannot be batched
+   */
+  public ResultLoader newResultLoader(Executor executor, Object parameterObject, Class<?> targetType, CacheKey cacheKey,
+      BoundSql boundSql) {
+    if (!isBatchable()) {
+      return new ResultLoader(configuration, executor, mappedStatement, parameterObject, targetType, cacheKey, boundSql);
+    }
+    BatchedResultLoader resultLoader = new BatchedResultLoader(configuration, executor, mappedStatement,
+        parameterObject, targetType, cacheKey, boundSql, this);
+    lock.lock();
+    try {
+      pending.add(resultLoader);
+    } finally {
+      lock.unlock();
+    }
+    return resultLoader;
+  }
+
+  void load(BatchedResultLoader trigger) throws SQLException {
+    lock.lock();
+    try {
+      if (trigger.loaded) {
+        return;
+      }
+      pending.remove(trigger);
+      if (keyMismatch) {
+        trigger.loadAlone();
+        return;
+      }
+      final List<BatchedResultLoader> loaders = new ArrayList<>();
+      loaders.add(trigger);
+      for (Iterator<BatchedResultLoader> iterator = pending.iterator(); loaders.size() < batchSize && iterator.hasNext();) {
+        loaders.add(iterator.next());
+        iterator.remove();
+      }
+      if (loaders.size() == 1) {
+        trigger.loadAlone();
+        return;
+      }
+      final Map<Object, Object> keys = new LinkedHashMap<>();
+      for (BatchedResultLoader loader : loaders) {
+        keys.putIfAbsent(normalizeKey(loader.parameterObject), loader.parameterObject);
+      }
+      final Map<Object, List<Object>> rowsByKey = new HashMap<>();
+      final BoundSql boundSql = newBoundSql(keys.values());
+      for (Object row : trigger.selectList(null, newCacheKey(boundSql, keys.values()), boundSql)) {
+        final Object key = row == null ? null : normalizeKey(configuration.newMetaObject(row).getValue(keyProperty));
+        if (!keys.containsKey(key)) {
+          // the row cannot be given back to its loader, the other loaders load alone when they are loaded
+          keyMismatch = true;
+          trigger.loadAlone();
+          return;
+        }
+        rowsByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(row);
+      }
+      for (BatchedResultLoader loader : loaders) {
+        final List<Object> rows = new ArrayList<>(
+            rowsByKey.getOrDefault(normalizeKey(loader.parameterObject), Collections.emptyList()));
+        try {
+          loader.setResult(loader.resultExtractor.extractObjectFromList(rows, loader.targetType));
+        } catch (ExecutorException e) {
+          // e.g. too many rows, reported when the property itself is loaded
+          if (loader == trigger) {
+            throw e;
+          }
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private BoundSql newBoundSql(Iterable<Object> keys) {
+    final StringBuilder sql = new StringBuilder(sqlHead).append(" IN (");
+    final List<ParameterMapping> parameterMappings = new ArrayList<>();
+    final Map<String, Object> values = new HashMap<>();
+    for (Object key : keys) {
+      final String property = KEY_PARAMETER_PREFIX + parameterMappings.size();
+      sql.append(parameterMappings.isEmpty() ? "?" : ", ?");
+      parameterMappings.add(new ParameterMapping.Builder(configuration, property, keyMapping.getTypeHandler())
+          .jdbcType(keyMapping.getJdbcType()).javaType(keyMapping.getJavaType()).build());
+      values.put(property, key);
+    }
+    sql.append(')').append(sqlTail);
+    final BoundSql boundSql = new BoundSql(configuration, sql.toString(), parameterMappings, null);
+    values.forEach(boundSql::setAdditionalParameter);
+    return boundSql;
+  }
+
+  private CacheKey newCacheKey(BoundSql boundSql, Iterable<Object> keys) {
+    // same key BaseExecutor creates, so the local cache is shared with the other queries of the session
+    final CacheKey cacheKey = new CacheKey();
+    cacheKey.update(mappedStatement.getId());
+    cacheKey.update(RowBounds.DEFAULT.getOffset());
+    cacheKey.update(RowBounds.DEFAULT.getLimit());
+    cacheKey.update(boundSql.getSql());
+    for (Object key : keys) {
+      cacheKey.update(key);
+    }
+    if (configuration.getEnvironment() != null) {
+      cacheKey.update(configuration.getEnvironment().getId());
+    }
+    return cacheKey;
+  }
+
+  /**
+   * Compares numbers by value, so that e.g. an <code>Integer</code> parameter matches a <code>Long</code> property.
+   */
+  private static Object normalizeKey(Object key) {
+    if (key instanceof Number) {
+      try {
+        return new BigDecimal(key.toString()).stripTrailingZeros();
+      } catch (NumberFormatException e) {
+        return key;
+      }
+    }
+    return key;
+  }
+
+  /**
+   * Returns the index of the only placeholder of a nested select that can be rewritten.
+   */
+  private static int findKeyPlaceholder(Configuration configuration, MappedStatement mappedStatement, BoundSql boundSql) {
+    if (mappedStatement.getSqlCommandType() != SqlCommandType.SELECT
+        || mappedStatement.getStatementType() != StatementType.PREPARED
+        || boundSql.getParameterMappings().size() != 1
+        || boundSql.getParameterMappings().get(0).getMode() != ParameterMode.IN
+        || boundSql.getParameterObject() == null
+        || !configuration.getTypeHandlerRegistry().hasTypeHandler(boundSql.getParameterObject().getClass())
+        || boundSql.hasAdditionalParameter(boundSql.getParameterMappings().get(0).getProperty())) {
+      return -1;
+    }
+    final String sql = boundSql.getSql();
+    final StringBuilder unquoted = new StringBuilder(sql.length());
+    int placeholder = -1;
+    int depth = 0;
+    for (int i = 0; i < sql.length(); i++) {
+      char c = sql.charAt(i);
+      if (c == '\'' || c == '"' || c == '`') {
+        int end = sql.indexOf(c, i + 1);
+        if (end < 0) {
+          return -1;
+        }
+        unquoted.append(' ');
+        i = end;
+        continue;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (c == '?') {
+        if (placeholder >= 0 || depth != 0) {
+          return -1;
+        }
+        placeholder = i;
+      }
+      unquoted.append(c);
+    }
+    final String statement = unquoted.toString();
+    final Matcher from = FROM_CLAUSE.matcher(statement);
+    if (UNSUPPORTED_KEYWORDS.matcher(statement).find() || !from.find() || from.group(1).indexOf(',') > -1
+        || from.group(1).indexOf('(') > -1) {
+      return -1;
+    }
+    return placeholder;
+  }
+
+  /**
+   * Returns whether the select list of a statement contains the column, under its own name.
+   */
+  private static boolean selectsColumn(String sql, String column) {
+    final Matcher select = SELECT_CLAUSE.matcher(QUOTED.matcher(sql).replaceAll(" "));
+    if (!select.find()) {
+      return false;
+    }
+    final String selectList = select.group(1);
+    int depth = 0;
+    int start = 0;
+    for (int i = 0; i <= selectList.length(); i++) {
+      final char c = i < selectList.length() ? selectList.charAt(i) : ',';
+      if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (c == ',' && depth == 0) {
+        final Matcher item = SELECT_ITEM.matcher(selectList.substring(start, i).trim());
+        if (item.matches() && (item.group(1).equals("*") && item.group(2) == null
+            || column.equalsIgnoreCase(item.group(1)) && (item.group(2) == null || column.equalsIgnoreCase(item.group(2))))) {
+          return true;
+        }
+        start = i + 1;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the property the key column is mapped to.
+   */
+  private static String findKeyProperty(Configuration configuration, MappedStatement mappedStatement, String column) {
+    if (mappedStatement.getResultMaps().size() != 1) {
+      return null;
+    }
+    final ResultMap resultMap = mappedStatement.getResultMaps().get(0);
+    final Class<?> type = resultMap.getType();
+    if (configuration.getTypeHandlerRegistry().hasTypeHandler(type) || Map.class.isAssignableFrom(type)
+        || type.isInterface()) {
+      return null;
+    }
+    for (ResultMapping resultMapping : resultMap.getResultMappings()) {
+      if (column.equalsIgnoreCase(resultMapping.getColumn())) {
+        if (resultMapping.getProperty() == null || resultMapping.getFlags().contains(ResultFlag.CONSTRUCTOR)
+            || resultMapping.getNestedQueryId() != null || resultMapping.getNestedResultMapId() != null
+            || resultMapping.getTypeHandler() == null) {
+          return null;
+        }
+        return resultMapping.getProperty();
+      }
+    }
+    final Boolean autoMapping = resultMap.getAutoMapping();
+    final boolean autoMapped = autoMapping != null ? autoMapping
+        : configuration.getAutoMappingBehavior() == AutoMappingBehavior.FULL
+            || configuration.getAutoMappingBehavior() == AutoMappingBehavior.PARTIAL && !resultMap.hasNestedResultMaps();
+    if (!autoMapped || !resultMap.getConstructorResultMappings().isEmpty()) {
+      return null;
+    }
+    final MetaClass metaClass = MetaClass.forClass(type, configuration.getReflectorFactory());
+    final String property = metaClass.findProperty(column, configuration.isMapUnderscoreToCamelCase());
+    return property != null && metaClass.hasGetter(property) && metaClass.hasSetter(property) ? property : null;
+  }
+
+}
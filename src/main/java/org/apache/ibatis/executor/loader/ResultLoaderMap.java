@@ -27,6 +27,8 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.BaseExecutor;
@@ -47,7 +49,9 @@ import org.apache.ibatis.session.RowBounds;
  */
 public class ResultLoaderMap {
 
-  private final Map<String, LoadPair> loaderMap = new HashMap<>();
+  private final Map<String, LoadPair> loaderMap = new ConcurrentHashMap<>();
+  private final Set<String> loadingProperties = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger pendingLoads = new AtomicInteger();
 
   public void addLoader(String property, MetaObject metaResultObject, ResultLoader resultLoader) {
     String upperFirst = getUppercaseFirstProperty(property);
@@ -56,7 +60,9 @@ public class ResultLoaderMap {
               + "' for query id '" + resultLoader.mappedStatement.getId()
               + " already exists in the result map. The leftmost property of all lazy loaded properties must be unique within a result map.");
     }
-    loaderMap.put(upperFirst, new LoadPair(property, metaResultObject, resultLoader));
+    if (loaderMap.put(upperFirst, new LoadPair(property, metaResultObject, resultLoader)) == null) {
+      pendingLoads.incrementAndGet();
+    }
   }
 
   public final Map<String, LoadPair> getProperties() {
@@ -75,17 +81,60 @@ public class ResultLoaderMap {
     return loaderMap.containsKey(property.toUpperCase(Locale.ENGLISH));
   }
 
+  /**
+   * Returns whether some properties are not loaded yet or are being loaded. This method does not need any lock: once it
+   * returned <code>false</code>, the values of all loaded properties are visible to the calling thread.
+   *
+   * @return <code>true</code> if some properties are not loaded yet
+   * @since 3.5.8
+   */
+  public boolean hasPendingLoads() {
+    // decremented once a property is loaded, i.e. after its value is set
+    return pendingLoads.get() > 0;
+  }
+
+  /**
+   * Returns whether a property is not loaded yet or is being loaded. This method does not need any lock: once it
+   * returned <code>false</code>, the value of the property, if it was lazy loaded, is visible to the calling thread.
+   *
+   * @param property
+   *          the property name
+   * @return <code>true</code> if the property is not loaded yet
+   * @since 3.5.8
+   */
+  public boolean isPending(String property) {
+    final String key = property.toUpperCase(Locale.ENGLISH);
+    return loaderMap.containsKey(key) || loadingProperties.contains(key);
+  }
+
   public boolean load(String property) throws SQLException {
-    LoadPair pair = loaderMap.remove(property.toUpperCase(Locale.ENGLISH));
-    if (pair != null) {
-      pair.load();
-      return true;
+    final String key = property.toUpperCase(Locale.ENGLISH);
+    if (!loaderMap.containsKey(key)) {
+      return false;
+    }
+    final boolean marked = loadingProperties.add(key);
+    try {
+      LoadPair pair = loaderMap.remove(key);
+      if (pair != null) {
+        try {
+          pair.load();
+        } finally {
+          pendingLoads.decrementAndGet();
+        }
+        return true;
+      }
+      return false;
+    } finally {
+      if (marked) {
+        loadingProperties.remove(key);
+      }
     }
-    return false;
   }
 
   public void remove(String property) {
-    loaderMap.remove(property.toUpperCase(Locale.ENGLISH));
+    if (loaderMap.remove(property.toUpperCase(Locale.ENGLISH)) != null) {
+      pendingLoads.decrementAndGet();
+    }
   }
 
   public void loadAll() throws SQLException {
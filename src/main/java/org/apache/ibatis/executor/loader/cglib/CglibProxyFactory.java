@@ -19,6 +19,7 @@ import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
 import net.sf.cglib.proxy.Callback;
 import net.sf.cglib.proxy.Enhancer;
@@ -94,6 +95,7 @@ public class CglibProxyFactory implements ProxyFactory {
 
     private final Class<?> type;
     private final ResultLoaderMap lazyLoader;
+    private final ReentrantLock lazyLoaderLock = new ReentrantLock();
     private final boolean aggressive;
     private final Set<String> lazyLoadTriggerMethods;
     private final ObjectFactory objectFactory;
@@ -122,8 +124,9 @@ public class CglibProxyFactory implements ProxyFactory {
     public Object intercept(Object enhanced, Method method, Object[] args, MethodProxy methodProxy) throws Throwable {
       final String methodName = method.getName();
       try {
-        synchronized (lazyLoader) {
-          if (WRITE_REPLACE_METHOD.equals(methodName)) {
+        if (WRITE_REPLACE_METHOD.equals(methodName)) {
+          lazyLoaderLock.lock();
+          try {
             Object original;
             if (constructorArgTypes.isEmpty()) {
               original = objectFactory.create(type);
@@ -136,8 +139,13 @@ public class CglibProxyFactory implements ProxyFactory {
             } else {
               return original;
             }
-          } else {
-            if (lazyLoader.size() > 0 && !FINALIZE_METHOD.equals(methodName)) {
+          } finally {
+            lazyLoaderLock.unlock();
+          }
+        } else if (!FINALIZE_METHOD.equals(methodName) && mayLoad(methodName)) {
+          lazyLoaderLock.lock();
+          try {
+            if (lazyLoader.size() > 0) {
               if (aggressive || lazyLoadTriggerMethods.contains(methodName)) {
                 lazyLoader.loadAll();
               } else if (PropertyNamer.isSetter(methodName)) {
@@ -150,6 +158,8 @@ public class CglibProxyFactory implements ProxyFactory {
                 }
               }
             }
+          } finally {
+            lazyLoaderLock.unlock();
           }
         }
         return methodProxy.invokeSuper(enhanced, args);
@@ -157,6 +167,21 @@ public class CglibProxyFactory implements ProxyFactory {
         throw ExceptionUtil.unwrapThrowable(t);
       }
     }
+
+    /**
+     * Checks without locking whether a method call may have to load lazy properties, or to wait until they are loaded
+     * by another thread. Once every property is loaded, or for getters of properties that are not lazy, the call goes
+     * straight to the target method.
+     */
+    private boolean mayLoad(String methodName) {
+      if (!lazyLoader.hasPendingLoads()) {
+        return false;
+      } else if (aggressive || lazyLoadTriggerMethods.contains(methodName) || PropertyNamer.isSetter(methodName)) {
+        return true;
+      } else {
+        return PropertyNamer.isGetter(methodName) && lazyLoader.isPending(PropertyNamer.methodToProperty(methodName));
+      }
+    }
   }
 
   private static class EnhancedDeserializationProxyImpl extends AbstractEnhancedDeserializationProxy implements MethodInterceptor {
@@ -0,0 +1,292 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader.javassist;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import javassist.CannotCompileException;
+import javassist.ClassClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtField;
+import javassist.CtMethod;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+import javassist.NotFoundException;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.loader.ProxyFactory;
+import org.apache.ibatis.executor.loader.ResultLoaderMap;
+import org.apache.ibatis.executor.loader.WriteReplaceInterface;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.property.PropertyCopier;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * A proxy factory generating one proxy class per result type.
+ * <p>
+ * Unlike {@link JavassistProxyFactory}, whose proxies route every call through a
+ * {@link javassist.util.proxy.MethodHandler} with the {@link Method} being called, the generated classes override each
+ * method with plain bytecode checking whether lazy properties are still pending before calling the overridden method:
+ * <pre>
+ * public String getName() {
+ *   if (mybatisProxyHandler != null &amp;&amp; mybatisProxyHandler.hasPendingLoads()) {
+ *     mybatisProxyHandler.beforeInvoke("getName");
+ *   }
+ *   return super.getName();
+ * }
+ * </pre>
+ * Once every lazy property is loaded, calls cost a field read and no reflection. Generated classes are cached per result
+ * type, in a {@link ClassValue} so that they do not keep the class loader of the type from being collected. Types that
+ * cannot be subclassed that way (e.g. abstract types) fall back to {@link JavassistProxyFactory}, as do deserialized
+ * proxies.
+ *
+ * @since 3.5.8
+ */
+public class GeneratedProxyFactory implements ProxyFactory {
+
+  private static final String HANDLER_FIELD = "mybatisProxyHandler";
+  private static final String FINALIZE_METHOD = "finalize";
+  private static final String WRITE_REPLACE_METHOD = "writeReplace";
+  private static final ClassValue<ProxyClass> proxyClasses = new ClassValue<ProxyClass>() {
+    @Override
+    protected ProxyClass computeValue(Class<?> type) {
+      return generate(type);
+    }
+  };
+
+  private final JavassistProxyFactory fallback = new JavassistProxyFactory();
+
+  public GeneratedProxyFactory() {
+    try {
+      Resources.classForName("javassist.ClassPool");
+    } catch (Throwable e) {
+      throw new IllegalStateException("Cannot enable lazy loading because Javassist is not available. Add Javassist to your classpath.", e);
+    }
+  }
+
+  @Override
+  public Object createProxy(Object target, ResultLoaderMap lazyLoader, Configuration configuration, ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+    final Class<?> type = target.getClass();
+    final ProxyClass proxyClass = proxyClasses.get(type);
+    if (proxyClass.type == null) {
+      return fallback.createProxy(target, lazyLoader, configuration, objectFactory, constructorArgTypes, constructorArgs);
+    }
+    final Object enhanced;
+    try {
+      if (constructorArgTypes.isEmpty()) {
+        enhanced = proxyClass.getDefaultConstructor().newInstance();
+      } else {
+        enhanced = proxyClass.type.getDeclaredConstructor(constructorArgTypes.toArray(new Class[0]))
+            .newInstance(constructorArgs.toArray(new Object[0]));
+      }
+    } catch (InvocationTargetException e) {
+      throw new ExecutorException("Error creating lazy proxy.  Cause: " + e.getTargetException(), e.getTargetException());
+    } catch (Exception e) {
+      throw new ExecutorException("Error creating lazy proxy.  Cause: " + e, e);
+    }
+    ((Proxy) enhanced).mybatisProxyHandler(
+        new GeneratedProxyHandler(type, lazyLoader, configuration, objectFactory, constructorArgTypes, constructorArgs));
+    PropertyCopier.copyBeanProperties(type, target, enhanced);
+    return enhanced;
+  }
+
+  private static ProxyClass generate(Class<?> type) {
+    try {
+      return new ProxyClass(new Generator(type).generate());
+    } catch (CannotCompileException | NotFoundException | RuntimeException | LinkageError e) {
+      if (LogHolder.log.isDebugEnabled()) {
+        LogHolder.log.debug("Cannot generate a lazy loading proxy class for " + type + ", using Javassist proxies. Cause: " + e);
+      }
+      return new ProxyClass(null);
+    }
+  }
+
+  /**
+   * Implemented by generated proxies. This interface is only meant to be used by {@link GeneratedProxyFactory}.
+   */
+  public interface Proxy {
+
+    void mybatisProxyHandler(GeneratedProxyHandler handler);
+
+  }
+
+  private static class ProxyClass {
+
+    private final Class<?> type;
+    private volatile Constructor<?> defaultConstructor;
+
+    ProxyClass(Class<?> type) {
+      this.type = type;
+    }
+
+    Constructor<?> getDefaultConstructor() throws NoSuchMethodException {
+      Constructor<?> constructor = defaultConstructor;
+      if (constructor == null) {
+        constructor = type.getDeclaredConstructor();
+        defaultConstructor = constructor;
+      }
+      return constructor;
+    }
+  }
+
+  private static class Generator {
+
+    private final Class<?> type;
+    private final ClassPool pool = new ClassPool(true);
+    private final CtClass proxy;
+    private final Set<String> overridden = new HashSet<>();
+
+    Generator(Class<?> type) throws NotFoundException {
+      this.type = type;
+      if (type.getClassLoader() != null) {
+        pool.appendClassPath(new LoaderClassPath(type.getClassLoader()));
+      }
+      pool.appendClassPath(new ClassClassPath(GeneratedProxyFactory.class));
+      this.proxy = pool.makeClass(type.getName() + "$$MyBatisProxy", pool.get(type.getName()));
+    }
+
+    Class<?> generate() throws CannotCompileException, NotFoundException {
+      if (Modifier.isAbstract(type.getModifiers()) || Modifier.isFinal(type.getModifiers()) || type.isMemberClass() && !Modifier.isStatic(type.getModifiers())) {
+        throw new CannotCompileException("Cannot subclass " + type);
+      }
+      proxy.addInterface(pool.get(Proxy.class.getName()));
+      proxy.addField(CtField.make("private " + GeneratedProxyHandler.class.getName() + " " + HANDLER_FIELD + ";", proxy));
+      proxy.addMethod(CtNewMethod.make("public void mybatisProxyHandler(" + GeneratedProxyHandler.class.getName() + " handler) { "
+          + HANDLER_FIELD + " = handler; }", proxy));
+      for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+        if (isOverridable(constructor.getModifiers(), type)) {
+          proxy.addConstructor(CtNewConstructor.make(toCtClasses(constructor.getParameterTypes()),
+              toCtClasses(constructor.getExceptionTypes()), proxy));
+        }
+      }
+      boolean hasWriteReplace;
+      try {
+        type.getDeclaredMethod(WRITE_REPLACE_METHOD);
+        hasWriteReplace = true;
+      } catch (NoSuchMethodException e) {
+        hasWriteReplace = false;
+      }
+      final Set<Class<?>> interfaces = new LinkedHashSet<>();
+      for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+        for (Method method : current.getDeclaredMethods()) {
+          overrideMethod(current, method);
+        }
+        addInterfaces(current, interfaces);
+      }
+      // default methods the classes do not override
+      for (Class<?> current : interfaces) {
+        for (Method method : current.getDeclaredMethods()) {
+          if (method.isDefault()) {
+            overrideMethod(current, method);
+          }
+        }
+      }
+      if (!hasWriteReplace) {
+        proxy.addInterface(pool.get(WriteReplaceInterface.class.getName()));
+        proxy.addMethod(CtNewMethod.make("public Object writeReplace() throws java.io.ObjectStreamException { return "
+            + HANDLER_FIELD + " == null ? this : " + HANDLER_FIELD + ".writeReplace(this); }", proxy));
+      }
+      return proxy.toClass(type);
+    }
+
+    private void overrideMethod(Class<?> declaringClass, Method method) throws CannotCompileException, NotFoundException {
+      final int modifiers = method.getModifiers();
+      final String signature = method.getName() + Arrays.toString(method.getParameterTypes());
+      // bridge methods call the methods they bridge, which are overridden
+      if (Modifier.isStatic(modifiers) || Modifier.isPrivate(modifiers) || method.isBridge() || method.isSynthetic()
+          || !overridden.add(signature)) {
+        return;
+      }
+      if (Modifier.isAbstract(modifiers)) {
+        throw new CannotCompileException("Abstract method " + method);
+      }
+      if (Modifier.isFinal(modifiers) || FINALIZE_METHOD.equals(method.getName())
+          || !isOverridable(modifiers, declaringClass)) {
+        return;
+      }
+      final CtMethod override = new CtMethod(pool.get(method.getReturnType().getName()), method.getName(),
+          toCtClasses(method.getParameterTypes()), proxy);
+      override.setExceptionTypes(toCtClasses(method.getExceptionTypes()));
+      override.setModifiers(modifiers & (Modifier.PUBLIC | Modifier.PROTECTED));
+      if (declaringClass.getTypeParameters().length == 0 && method.getTypeParameters().length == 0) {
+        // keeps e.g. the element types of collections, type variables of the declaring class would not resolve
+        final String genericSignature = pool.get(declaringClass.getName())
+            .getDeclaredMethod(method.getName(), toCtClasses(method.getParameterTypes())).getGenericSignature();
+        if (genericSignature != null) {
+          override.setGenericSignature(genericSignature);
+        }
+      }
+      final boolean returnsValue = method.getReturnType() != void.class;
+      final StringBuilder body = new StringBuilder("{ ");
+      if (WRITE_REPLACE_METHOD.equals(method.getName()) && method.getParameterCount() == 0) {
+        body.append("if (").append(HANDLER_FIELD).append(" != null) { return ").append(HANDLER_FIELD)
+            .append(".writeReplace(this); } ");
+      } else {
+        body.append("if (").append(HANDLER_FIELD).append(" != null && ").append(HANDLER_FIELD)
+            .append(".hasPendingLoads()) { ").append(HANDLER_FIELD).append(".beforeInvoke(\"")
+            .append(method.getName()).append("\"); } ");
+      }
+      body.append(returnsValue ? "return " : "").append("super.").append(method.getName()).append("($$); }");
+      override.setBody(body.toString());
+      proxy.addMethod(override);
+    }
+
+    private void addInterfaces(Class<?> current, Set<Class<?>> interfaces) {
+      for (Class<?> implemented : current.getInterfaces()) {
+        if (interfaces.add(implemented)) {
+          addInterfaces(implemented, interfaces);
+        }
+      }
+    }
+
+    /**
+     * Public and protected members can always be overridden, package private ones only from the same package. The
+     * proxy class is defined in the package of the proxied type, by its class loader.
+     */
+    private boolean isOverridable(int modifiers, Class<?> declaringClass) {
+      return Modifier.isPublic(modifiers) || Modifier.isProtected(modifiers)
+          || Objects.equals(declaringClass.getPackage(), type.getPackage())
+              && declaringClass.getClassLoader() == type.getClassLoader();
+    }
+
+    private CtClass[] toCtClasses(Class<?>[] classes) throws NotFoundException {
+      final CtClass[] ctClasses = new CtClass[classes.length];
+      for (int i = 0; i < classes.length; i++) {
+        ctClasses[i] = pool.get(classes[i].getName());
+      }
+      return ctClasses;
+    }
+  }
+
+  private static class LogHolder {
+    private static final Log log = LogFactory.getLog(GeneratedProxyFactory.class);
+  }
+
+}
@@ -0,0 +1,131 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader.javassist;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.executor.loader.ResultLoaderMap;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.property.PropertyCopier;
+import org.apache.ibatis.reflection.property.PropertyNamer;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * The lazy loading state of a proxy created by {@link GeneratedProxyFactory}.
+ * <p>
+ * Generated methods only call {@link #beforeInvoke(String)} while {@link #hasPendingLoads()} is <code>true</code>, so
+ * once every lazy property is loaded a call costs a field read on top of the call of the overridden method.
+ * This class is only meant to be used by generated proxies.
+ *
+ * @since 3.5.8
+ */
+public final class GeneratedProxyHandler {
+
+  private final Class<?> type;
+  private final ResultLoaderMap lazyLoader;
+  private final ReentrantLock lazyLoaderLock = new ReentrantLock();
+  private final boolean aggressive;
+  private final Set<String> lazyLoadTriggerMethods;
+  private final ObjectFactory objectFactory;
+  private final List<Class<?>> constructorArgTypes;
+  private final List<Object> constructorArgs;
+
+  GeneratedProxyHandler(Class<?> type, ResultLoaderMap lazyLoader, Configuration configuration, ObjectFactory objectFactory,
+      List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+    this.type = type;
+    this.lazyLoader = lazyLoader;
+    this.aggressive = configuration.isAggressiveLazyLoading();
+    this.lazyLoadTriggerMethods = configuration.getLazyLoadTriggerMethods();
+    this.objectFactory = objectFactory;
+    this.constructorArgTypes = constructorArgTypes;
+    this.constructorArgs = constructorArgs;
+  }
+
+  public boolean hasPendingLoads() {
+    return lazyLoader.hasPendingLoads();
+  }
+
+  /**
+   * Loads the lazy properties a call of the method needs, or waits until another thread loaded them.
+   *
+   * @param methodName
+   *          the name of the called method
+   * @throws SQLException
+   *           if a property cannot be loaded
+   */
+  public void beforeInvoke(String methodName) throws SQLException {
+    if (!mayLoad(methodName)) {
+      return;
+    }
+    lazyLoaderLock.lock();
+    try {
+      if (lazyLoader.size() > 0) {
+        if (aggressive || lazyLoadTriggerMethods.contains(methodName)) {
+          lazyLoader.loadAll();
+        } else if (PropertyNamer.isSetter(methodName)) {
+          final String property = PropertyNamer.methodToProperty(methodName);
+          lazyLoader.remove(property);
+        } else if (PropertyNamer.isGetter(methodName)) {
+          final String property = PropertyNamer.methodToProperty(methodName);
+          if (lazyLoader.hasLoader(property)) {
+            lazyLoader.load(property);
+          }
+        }
+      }
+    } finally {
+      lazyLoaderLock.unlock();
+    }
+  }
+
+  /**
+   * Returns the object to serialize instead of a proxy.
+   *
+   * @param enhanced
+   *          the proxy
+   * @return a copy of the proxy as an instance of the proxied type, wrapped with the unloaded properties if any
+   */
+  public Object writeReplace(Object enhanced) {
+    lazyLoaderLock.lock();
+    try {
+      Object original;
+      if (constructorArgTypes.isEmpty()) {
+        original = objectFactory.create(type);
+      } else {
+        original = objectFactory.create(type, constructorArgTypes, constructorArgs);
+      }
+      PropertyCopier.copyBeanProperties(type, enhanced, original);
+      if (lazyLoader.size() > 0) {
+        return new JavassistSerialStateHolder(original, lazyLoader.getProperties(), objectFactory, constructorArgTypes, constructorArgs);
+      } else {
+        return original;
+      }
+    } finally {
+      lazyLoaderLock.unlock();
+    }
+  }
+
+  private boolean mayLoad(String methodName) {
+    if (aggressive || lazyLoadTriggerMethods.contains(methodName) || PropertyNamer.isSetter(methodName)) {
+      return true;
+    } else {
+      return PropertyNamer.isGetter(methodName) && lazyLoader.isPending(PropertyNamer.methodToProperty(methodName));
+    }
+  }
+
+}
@@ -19,6 +19,7 @@ import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javassist.util.proxy.MethodHandler;
 import javassist.util.proxy.Proxy;
@@ -96,6 +97,7 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
 
     private final Class<?> type;
     private final ResultLoaderMap lazyLoader;
+    private final ReentrantLock lazyLoaderLock = new ReentrantLock();
     private final boolean aggressive;
     private final Set<String> lazyLoadTriggerMethods;
     private final ObjectFactory objectFactory;
@@ -124,8 +126,9 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
     public Object invoke(Object enhanced, Method method, Method methodProxy, Object[] args) throws Throwable {
       final String methodName = method.getName();
       try {
-        synchronized (lazyLoader) {
-          if (WRITE_REPLACE_METHOD.equals(methodName)) {
+        if (WRITE_REPLACE_METHOD.equals(methodName)) {
+          lazyLoaderLock.lock();
+          try {
             Object original;
             if (constructorArgTypes.isEmpty()) {
               original = objectFactory.create(type);
@@ -138,8 +141,13 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
             } else {
               return original;
             }
-          } else {
-            if (lazyLoader.size() > 0 && !FINALIZE_METHOD.equals(methodName)) {
+          } finally {
+            lazyLoaderLock.unlock();
+          }
+        } else if (!FINALIZE_METHOD.equals(methodName) && mayLoad(methodName)) {
+          lazyLoaderLock.lock();
+          try {
+            if (lazyLoader.size() > 0) {
               if (aggressive || lazyLoadTriggerMethods.contains(methodName)) {
                 lazyLoader.loadAll();
               } else if (PropertyNamer.isSetter(methodName)) {
@@ -152,6 +160,8 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
                 }
               }
             }
+          } finally {
+            lazyLoaderLock.unlock();
           }
         }
         return methodProxy.invoke(enhanced, args);
@@ -159,6 +169,21 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
         throw ExceptionUtil.unwrapThrowable(t);
       }
     }
+
+    /**
+     * Checks without locking whether a method call may have to load lazy properties, or to wait until they are loaded
+     * by another thread. Once every property is loaded, or for getters of properties that are not lazy, the call goes
+     * straight to the target method.
+     */
+    private boolean mayLoad(String methodName) {
+      if (!lazyLoader.hasPendingLoads()) {
+        return false;
+      } else if (aggressive || lazyLoadTriggerMethods.contains(methodName) || PropertyNamer.isSetter(methodName)) {
+        return true;
+      } else {
+        return PropertyNamer.isGetter(methodName) && lazyLoader.isPending(PropertyNamer.methodToProperty(methodName));
+      }
+    }
   }
 
   private static class EnhancedDeserializationProxyImpl extends AbstractEnhancedDeserializationProxy implements MethodHandler {
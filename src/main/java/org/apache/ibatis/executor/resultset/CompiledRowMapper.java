@@ -0,0 +1,274 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.lang.UsesJava7;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.AmbiguousMethodInvoker;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.invoker.MethodInvoker;
+import org.apache.ibatis.reflection.invoker.SetFieldInvoker;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * A row mapper specialised for one result map and one column layout of a result set.
+ * <p>
+ * Columns are read by index and written through {@link MethodHandle}s that are resolved once, so mapping a row
+ * does not need a {@link org.apache.ibatis.reflection.MetaObject} nor any property name resolution.
+ * Only flat result maps can be compiled; {@link DefaultResultSetHandler} keeps using the reflective path for
+ * everything else.
+ *
+ * @since 3.5.8
+ * @see Configuration#isCompiledRowMappingEnabled()
+ */
+public final class CompiledRowMapper {
+
+  /**
+   * Marker stored for a result map and column layout that cannot be compiled.
+   */
+  static final CompiledRowMapper UNSUPPORTED = new CompiledRowMapper(null, null, null, null, new Builder.Column[0]);
+
+  private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+  private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+  private final Configuration configuration;
+  private final Class<?> type;
+  private final ObjectFactory objectFactory;
+  private final MethodHandle constructor;
+  private final String[] properties;
+  private final TypeHandler<?>[] typeHandlers;
+  private final int[] columnIndexes;
+  private final Class<?>[] valueTypes;
+  private final boolean[] primitives;
+  private final MethodHandle[] setters;
+  private final Invoker[] invokers;
+
+  private CompiledRowMapper(Configuration configuration, Class<?> type, ObjectFactory objectFactory,
+      MethodHandle constructor, Builder.Column[] columns) {
+    this.configuration = configuration;
+    this.type = type;
+    this.objectFactory = objectFactory;
+    this.constructor = constructor;
+    this.properties = new String[columns.length];
+    this.typeHandlers = new TypeHandler<?>[columns.length];
+    this.columnIndexes = new int[columns.length];
+    this.valueTypes = new Class<?>[columns.length];
+    this.primitives = new boolean[columns.length];
+    this.setters = new MethodHandle[columns.length];
+    this.invokers = new Invoker[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      Builder.Column column = columns[i];
+      properties[i] = column.property;
+      typeHandlers[i] = column.typeHandler;
+      columnIndexes[i] = column.columnIndex;
+      valueTypes[i] = MethodType.methodType(column.setterType).wrap().returnType();
+      primitives[i] = column.setterType.isPrimitive();
+      setters[i] = column.setter;
+      invokers[i] = column.invoker;
+    }
+  }
+
+  /**
+   * Maps the current row of the result set.
+   *
+   * @param rs
+   *          the result set positioned on the row to map
+   * @return the row value, or <code>null</code> when no column had a value and
+   *         {@link Configuration#isReturnInstanceForEmptyRow()} is disabled
+   * @throws SQLException
+   *           if a column cannot be read
+   */
+  public Object map(ResultSet rs) throws SQLException {
+    final Object rowValue = instantiate();
+    final boolean callSettersOnNulls = configuration.isCallSettersOnNulls();
+    boolean foundValues = false;
+    for (int i = 0; i < typeHandlers.length; i++) {
+      final Object value = typeHandlers[i].getResult(rs, columnIndexes[i]);
+      if (value != null) {
+        foundValues = true;
+      }
+      if (value != null || (callSettersOnNulls && !primitives[i])) {
+        // gcode issue #377, call setter on nulls (value is not 'found')
+        setValue(i, rowValue, value);
+      }
+    }
+    return foundValues || configuration.isReturnInstanceForEmptyRow() ? rowValue : null;
+  }
+
+  @UsesJava7
+  private Object instantiate() {
+    if (constructor == null) {
+      return objectFactory.create(type);
+    }
+    try {
+      return (Object) constructor.invokeExact();
+    } catch (Throwable t) {
+      throw new ReflectionException("Error instantiating " + type + ". Cause: " + t, t);
+    }
+  }
+
+  @UsesJava7
+  private void setValue(int i, Object rowValue, Object value) {
+    try {
+      if (value == null || valueTypes[i].isInstance(value)) {
+        setters[i].invokeExact(rowValue, value);
+      } else {
+        // let reflection apply widening conversions (e.g. Integer to long) exactly like the reflective path does
+        try {
+          invokers[i].invoke(rowValue, new Object[] { value });
+        } catch (Throwable t) {
+          throw ExceptionUtil.unwrapThrowable(t);
+        }
+      }
+    } catch (Throwable t) {
+      throw new ReflectionException("Could not set property '" + properties[i] + "' of '" + rowValue.getClass()
+          + "' with value '" + value + "' Cause: " + t.toString(), t);
+    }
+  }
+
+  static class Builder {
+
+    private final Configuration configuration;
+    private final Class<?> type;
+    private final Reflector reflector;
+    private final List<Column> columns = new ArrayList<>();
+
+    Builder(Configuration configuration, Class<?> type) {
+      this.configuration = configuration;
+      this.type = type;
+      this.reflector = configuration.getReflectorFactory().findForClass(type);
+    }
+
+    /**
+     * Adds a column to property mapping.
+     *
+     * @return <code>false</code> if the property cannot be written without reflection
+     */
+    boolean addColumn(String property, TypeHandler<?> typeHandler, int columnIndex) {
+      if (property.indexOf('.') > -1 || property.indexOf('[') > -1 || !reflector.hasSetter(property)) {
+        return false;
+      }
+      final Invoker invoker = reflector.getSetInvoker(property);
+      final MethodHandle setter;
+      try {
+        setter = setterHandle(invoker);
+      } catch (IllegalAccessException | RuntimeException e) {
+        return false;
+      }
+      if (setter == null) {
+        return false;
+      }
+      columns.add(new Column(property, typeHandler, columnIndex, reflector.getSetterType(property), setter, invoker));
+      return true;
+    }
+
+    CompiledRowMapper build() {
+      final ObjectFactory objectFactory = configuration.getObjectFactory();
+      MethodHandle constructor = null;
+      // custom object factories may do more than invoking the default constructor
+      if (objectFactory.getClass() == DefaultObjectFactory.class) {
+        try {
+          constructor = constructorHandle(reflector.getDefaultConstructor());
+        } catch (IllegalAccessException | RuntimeException e) {
+          // use the object factory
+        }
+      }
+      return new CompiledRowMapper(configuration, type, objectFactory, constructor, columns.toArray(new Column[0]));
+    }
+
+    private static MethodHandle constructorHandle(Constructor<?> constructor) throws IllegalAccessException {
+      MethodHandle handle;
+      try {
+        handle = MethodHandles.lookup().unreflectConstructor(constructor);
+      } catch (IllegalAccessException e) {
+        if (!Reflector.canControlMemberAccessible()) {
+          throw e;
+        }
+        constructor.setAccessible(true);
+        handle = MethodHandles.lookup().unreflectConstructor(constructor);
+      }
+      return handle.asType(CONSTRUCTOR_TYPE);
+    }
+
+    private static MethodHandle setterHandle(Invoker invoker) throws IllegalAccessException {
+      MethodHandle handle;
+      if (invoker instanceof AmbiguousMethodInvoker) {
+        return null;
+      } else if (invoker instanceof MethodInvoker) {
+        final Method method = ((MethodInvoker) invoker).getMethod();
+        try {
+          handle = MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+          if (!Reflector.canControlMemberAccessible()) {
+            throw e;
+          }
+          method.setAccessible(true);
+          handle = MethodHandles.lookup().unreflect(method);
+        }
+      } else if (invoker instanceof SetFieldInvoker) {
+        final Field field = ((SetFieldInvoker) invoker).getField();
+        try {
+          handle = MethodHandles.lookup().unreflectSetter(field);
+        } catch (IllegalAccessException e) {
+          if (!Reflector.canControlMemberAccessible()) {
+            throw e;
+          }
+          field.setAccessible(true);
+          handle = MethodHandles.lookup().unreflectSetter(field);
+        }
+      } else {
+        return null;
+      }
+      return handle.asType(SETTER_TYPE);
+    }
+
+    private static class Column {
+      private final String property;
+      private final TypeHandler<?> typeHandler;
+      private final int columnIndex;
+      private final Class<?> setterType;
+      private final MethodHandle setter;
+      private final Invoker invoker;
+
+      Column(String property, TypeHandler<?> typeHandler, int columnIndex, Class<?> setterType, MethodHandle setter,
+          Invoker invoker) {
+        this.property = property;
+        this.typeHandler = typeHandler;
+        this.columnIndex = columnIndex;
+        this.setterType = setterType;
+        this.setter = setter;
+        this.invoker = invoker;
+      }
+    }
+  }
+
+}
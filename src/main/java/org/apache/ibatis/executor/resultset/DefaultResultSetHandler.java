@@ -33,10 +33,12 @@ import org.apache.ibatis.binding.MapperMethod.ParamMap;
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.cursor.defaults.DefaultCursor;
+import org.apache.ibatis.cursor.defaults.PrefetchingCursor;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.loader.ResultLoader;
+import org.apache.ibatis.executor.loader.ResultLoaderBatch;
 import org.apache.ibatis.executor.loader.ResultLoaderMap;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.result.DefaultResultContext;
@@ -53,6 +55,7 @@ import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.ReflectorFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
 import org.apache.ibatis.session.AutoMappingBehavior;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultContext;
@@ -93,6 +96,14 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private final Map<String, ResultMapping> nextResultMaps = new HashMap<>();
   private final Map<CacheKey, List<PendingRelation>> pendingRelations = new HashMap<>();
 
+  // batched lazy loading
+  private final Map<String, ResultLoaderBatch> resultLoaderBatches = new HashMap<>();
+
+  // nested selects deferred until the end of the result sets
+  private final Map<String, ResultLoaderBatch> nestedSelectBatches = new HashMap<>();
+  private final List<PendingNestedSelect> pendingNestedSelects = new ArrayList<>();
+  private boolean deferNestedSelects;
+
   // Cached Automappings
   private final Map<String, List<UnMappedColumnAutoMapping>> autoMappingsCache = new HashMap<>();
 
@@ -104,6 +115,18 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     public ResultMapping propertyMapping;
   }
 
+  private static class PendingNestedSelect {
+    private final MetaObject metaObject;
+    private final String property;
+    private final ResultLoader resultLoader;
+
+    PendingNestedSelect(MetaObject metaObject, String property, ResultLoader resultLoader) {
+      this.metaObject = metaObject;
+      this.property = property;
+      this.resultLoader = resultLoader;
+    }
+  }
+
   private static class UnMappedColumnAutoMapping {
     private final String column;
     private final String property;
@@ -183,6 +206,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     ErrorContext.instance().activity("handling results").object(mappedStatement.getId());
 
     final List<Object> multipleResults = new ArrayList<>();
+    // results given to a result handler have to be complete when they are handled
+    deferNestedSelects = configuration.getNestedSelectBatchSize() != null && resultHandler == null;
 
     int resultSetCount = 0;
     ResultSetWrapper rsw = getFirstResultSet(stmt);
@@ -213,9 +238,23 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       }
     }
 
+    loadPendingNestedSelects();
     return collapseSingleResultList(multipleResults);
   }
 
+  private void loadPendingNestedSelects() throws SQLException {
+    deferNestedSelects = false;
+    for (PendingNestedSelect pending : pendingNestedSelects) {
+      // the first loader of each chunk loads the whole chunk
+      final Object value = pending.resultLoader.loadResult();
+      if (value != null || (configuration.isCallSettersOnNulls() && !pending.metaObject.getSetterType(pending.property).isPrimitive())) {
+        pending.metaObject.setValue(pending.property, value);
+      }
+    }
+    pendingNestedSelects.clear();
+    nestedSelectBatches.clear();
+  }
+
   @Override
   public <E> Cursor<E> handleCursorResultSets(Statement stmt) throws SQLException {
     ErrorContext.instance().activity("handling cursor results").object(mappedStatement.getId());
@@ -231,7 +270,37 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
 
     ResultMap resultMap = resultMaps.get(0);
-    return new DefaultCursor<>(this, resultMap, rsw, rowBounds);
+    DefaultCursor<E> cursor = new DefaultCursor<>(this, resultMap, rsw, rowBounds);
+    Integer prefetchSize = configuration.getCursorPrefetchSize();
+    // nested selects would use the executor from the prefetching thread
+    if (prefetchSize != null && prefetchSize > 0 && !hasNestedQueries(resultMap, new HashSet<>())) {
+      return new PrefetchingCursor<>(cursor, prefetchSize);
+    }
+    return cursor;
+  }
+
+  private boolean hasNestedQueries(ResultMap resultMap, Set<String> visitedResultMapIds) {
+    if (!visitedResultMapIds.add(resultMap.getId())) {
+      return false;
+    }
+    if (resultMap.hasNestedQueries()) {
+      return true;
+    }
+    for (ResultMapping resultMapping : resultMap.getResultMappings()) {
+      if (resultMapping.getNestedResultMapId() != null
+          && hasNestedQueries(configuration.getResultMap(resultMapping.getNestedResultMapId()), visitedResultMapIds)) {
+        return true;
+      }
+    }
+    Discriminator discriminator = resultMap.getDiscriminator();
+    if (discriminator != null) {
+      for (String caseResultMapId : discriminator.getDiscriminatorMap().values()) {
+        if (hasNestedQueries(configuration.getResultMap(caseResultMapId), visitedResultMapIds)) {
+          return true;
+        }
+      }
+    }
+    return false;
   }
 
   private ResultSetWrapper getFirstResultSet(Statement stmt) throws SQLException {
@@ -394,6 +463,12 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   //
 
   private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap, String columnPrefix) throws SQLException {
+    if (configuration.isCompiledRowMappingEnabled()) {
+      final CompiledRowMapper rowMapper = getCompiledRowMapper(rsw, resultMap, columnPrefix);
+      if (rowMapper != CompiledRowMapper.UNSUPPORTED) {
+        return rowMapper.map(rsw.getResultSet());
+      }
+    }
     final ResultLoaderMap lazyLoader = new ResultLoaderMap();
     Object rowValue = createResultObject(rsw, resultMap, lazyLoader, columnPrefix);
     if (rowValue != null && !hasTypeHandlerForResultObject(rsw, resultMap.getType())) {
@@ -409,6 +484,62 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return rowValue;
   }
 
+  //
+  // COMPILED ROW MAPPERS
+  //
+
+  private CompiledRowMapper getCompiledRowMapper(ResultSetWrapper rsw, ResultMap resultMap, String columnPrefix) throws SQLException {
+    CompiledRowMapper rowMapper = rsw.getCompiledRowMapper(resultMap, columnPrefix);
+    if (rowMapper == null) {
+      final String key = resultMap.getId() + ":" + columnPrefix + ":" + rsw.getColumnLayout();
+      rowMapper = configuration.getCompiledRowMapper(key);
+      if (rowMapper == null) {
+        rowMapper = compileRowMapper(rsw, resultMap, columnPrefix);
+        configuration.addCompiledRowMapper(key, rowMapper);
+      }
+      rsw.setCompiledRowMapper(resultMap, columnPrefix, rowMapper);
+    }
+    return rowMapper;
+  }
+
+  private CompiledRowMapper compileRowMapper(ResultSetWrapper rsw, ResultMap resultMap, String columnPrefix) throws SQLException {
+    final Class<?> resultType = resultMap.getType();
+    if (resultMap.hasNestedResultMaps() || resultMap.hasNestedQueries()
+        || !resultMap.getConstructorResultMappings().isEmpty()
+        || configuration.getObjectWrapperFactory().getClass() != DefaultObjectWrapperFactory.class
+        || resultType.isInterface() || resultType.isArray() || Map.class.isAssignableFrom(resultType)
+        || objectFactory.isCollection(resultType) || !MetaClass.forClass(resultType, reflectorFactory).hasDefaultConstructor()
+        || hasTypeHandlerForResultObject(rsw, resultType)) {
+      return CompiledRowMapper.UNSUPPORTED;
+    }
+    final ResultSet rs = rsw.getResultSet();
+    final CompiledRowMapper.Builder builder = new CompiledRowMapper.Builder(configuration, resultType);
+    if (shouldApplyAutomaticMappings(resultMap, false)) {
+      final MetaObject metaObject = configuration.newMetaObject(objectFactory.create(resultType));
+      for (UnMappedColumnAutoMapping mapping : createAutomaticMappings(rsw, resultMap, metaObject, columnPrefix)) {
+        if (!builder.addColumn(mapping.property, mapping.typeHandler, rs.findColumn(mapping.column))) {
+          return CompiledRowMapper.UNSUPPORTED;
+        }
+      }
+    }
+    final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
+    for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+      if (propertyMapping.isCompositeResult() || propertyMapping.getResultSet() != null) {
+        return CompiledRowMapper.UNSUPPORTED;
+      }
+      final String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
+      // issue #541 make property optional
+      if (column == null || propertyMapping.getProperty() == null
+          || !mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
+        continue;
+      }
+      if (!builder.addColumn(propertyMapping.getProperty(), propertyMapping.getTypeHandler(), rs.findColumn(column))) {
+        return CompiledRowMapper.UNSUPPORTED;
+      }
+    }
+    return builder.build();
+  }
+
   //
   // GET VALUE FROM ROW FOR NESTED RESULT MAP
   //
@@ -792,7 +923,24 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         executor.deferLoad(nestedQuery, metaResultObject, property, key, targetType);
         value = DEFERRED;
       } else {
-        final ResultLoader resultLoader = new ResultLoader(configuration, executor, nestedQuery, nestedQueryParameterObject, targetType, key, nestedBoundSql);
+        final String batchKey = nestedQueryId + ":" + nestedBoundSql.getSql();
+        final ResultLoader resultLoader;
+        if (propertyMapping.isLazy() && configuration.getLazyLoadingBatchSize() != null) {
+          // loaded together with the same property of the sibling result objects
+          final ResultLoaderBatch batch = resultLoaderBatches.computeIfAbsent(batchKey,
+              k -> new ResultLoaderBatch(configuration, nestedQuery, nestedBoundSql, configuration.getLazyLoadingBatchSize()));
+          resultLoader = batch.newResultLoader(executor, nestedQueryParameterObject, targetType, key, nestedBoundSql);
+        } else if (!propertyMapping.isLazy() && deferNestedSelects && property != null) {
+          final ResultLoaderBatch batch = nestedSelectBatches.computeIfAbsent(batchKey,
+              k -> new ResultLoaderBatch(configuration, nestedQuery, nestedBoundSql, configuration.getNestedSelectBatchSize()));
+          resultLoader = batch.newResultLoader(executor, nestedQueryParameterObject, targetType, key, nestedBoundSql);
+          if (batch.isBatchable()) {
+            pendingNestedSelects.add(new PendingNestedSelect(metaResultObject, property, resultLoader));
+            return DEFERRED;
+          }
+        } else {
+          resultLoader = new ResultLoader(configuration, executor, nestedQuery, nestedQueryParameterObject, targetType, key, nestedBoundSql);
+        }
         if (propertyMapping.isLazy()) {
           lazyLoader.addLoader(property, metaResultObject, resultLoader);
           value = DEFERRED;
@@ -49,6 +49,8 @@ public class ResultSetWrapper {
   private final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap = new HashMap<>();
   private final Map<String, List<String>> mappedColumnNamesMap = new HashMap<>();
   private final Map<String, List<String>> unMappedColumnNamesMap = new HashMap<>();
+  private final Map<String, CompiledRowMapper> compiledRowMappers = new HashMap<>();
+  private String columnLayout;
 
   public ResultSetWrapper(ResultSet rs, Configuration configuration) throws SQLException {
     super();
@@ -179,6 +181,31 @@ public class ResultSetWrapper {
     return unMappedColumnNames;
   }
 
+  CompiledRowMapper getCompiledRowMapper(ResultMap resultMap, String columnPrefix) {
+    return compiledRowMappers.get(getMapKey(resultMap, columnPrefix));
+  }
+
+  void setCompiledRowMapper(ResultMap resultMap, String columnPrefix, CompiledRowMapper rowMapper) {
+    compiledRowMappers.put(getMapKey(resultMap, columnPrefix), rowMapper);
+  }
+
+  /**
+   * Gets a description of the column labels and types of this result set, used to share compiled row mappers
+   * between result sets with the same layout.
+   *
+   * @return the column layout
+   */
+  String getColumnLayout() {
+    if (columnLayout == null) {
+      final StringBuilder layout = new StringBuilder();
+      for (int i = 0; i < columnNames.size(); i++) {
+        layout.append(columnNames.get(i)).append('|').append(jdbcTypes.get(i)).append('|').append(classNames.get(i)).append(',');
+      }
+      columnLayout = layout.toString();
+    }
+    return columnLayout;
+  }
+
   private String getMapKey(ResultMap resultMap, String columnPrefix) {
     return resultMap.getId() + ":" + columnPrefix;
   }
@@ -25,12 +25,18 @@ import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
 import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.ExpiringCache;
+import org.apache.ibatis.cache.decorators.FifoCache;
 import org.apache.ibatis.cache.decorators.LoggingCache;
 import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.RefreshAheadCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
 import org.apache.ibatis.cache.decorators.SerializedCache;
 import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.impl.ConcurrentCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.serializer.CacheSerializer;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.SystemMetaObject;
 
@@ -41,11 +47,14 @@ public class CacheBuilder {
   private final String id;
   private Class<? extends Cache> implementation;
   private final List<Class<? extends Cache>> decorators;
+  private Class<? extends Cache> refreshAheadDecorator;
   private Integer size;
   private Long clearInterval;
+  private Long timeToLive;
   private boolean readWrite;
   private Properties properties;
   private boolean blocking;
+  private CacheSerializer serializer;
 
   public CacheBuilder(String id) {
     this.id = id;
@@ -58,7 +67,10 @@ public class CacheBuilder {
   }
 
   public CacheBuilder addDecorator(Class<? extends Cache> decorator) {
-    if (decorator != null) {
+    if (decorator != null && RefreshAheadCache.class.isAssignableFrom(decorator)) {
+      // applied on top of the standard decorators, the eviction policy stays the default one
+      this.refreshAheadDecorator = decorator;
+    } else if (decorator != null) {
       this.decorators.add(decorator);
     }
     return this;
@@ -74,6 +86,20 @@ public class CacheBuilder {
     return this;
   }
 
+  /**
+   * Sets the time after which entries expire, each on its own. Unless it is set, the results of statements with a
+   * <code>cacheTimeToLive</code> only expire in caches that expire entries by themselves.
+   *
+   * @param timeToLive
+   *          the time to live in milliseconds, 0 if only the entries put with a time to live expire
+   * @return the builder
+   * @since 3.5.8
+   */
+  public CacheBuilder timeToLive(Long timeToLive) {
+    this.timeToLive = timeToLive;
+    return this;
+  }
+
   public CacheBuilder readWrite(boolean readWrite) {
     this.readWrite = readWrite;
     return this;
@@ -84,6 +110,11 @@ public class CacheBuilder {
     return this;
   }
 
+  public CacheBuilder serializer(CacheSerializer serializer) {
+    this.serializer = serializer;
+    return this;
+  }
+
   public CacheBuilder properties(Properties properties) {
     this.properties = properties;
     return this;
@@ -95,11 +126,33 @@ public class CacheBuilder {
     setCacheProperties(cache);
     // issue #352, do not apply decorators to custom caches
     if (PerpetualCache.class.equals(cache.getClass())) {
+      ExpiringCache expiringCache = null;
+      if (timeToLive != null && refreshAheadDecorator == null) {
+        // below the eviction decorators, so that the entries they evict are also removed from the expiration queue
+        expiringCache = new ExpiringCache(cache);
+        expiringCache.setTimeToLive(timeToLive);
+        cache = expiringCache;
+      }
       for (Class<? extends Cache> decorator : decorators) {
         cache = newCacheDecoratorInstance(decorator, cache);
         setCacheProperties(cache);
       }
-      cache = setStandardDecorators(cache);
+      if (expiringCache != null) {
+        // and expired entries are removed through them, so that they stop counting them
+        expiringCache.setRemovalTarget(cache);
+      }
+      cache = setStandardDecorators(cache, true, readWrite);
+    } else if (ConcurrentCache.class.equals(cache.getClass())) {
+      cache = setConcurrentDecorators((ConcurrentCache) cache);
+    } else if (OffHeapCache.class.equals(cache.getClass())) {
+      // evicts, expires and copies values by itself
+      if (serializer != null) {
+        ((OffHeapCache) cache).setSerializer(serializer);
+      }
+      if (timeToLive != null && refreshAheadDecorator == null) {
+        ((OffHeapCache) cache).setTimeToLive(timeToLive);
+      }
+      cache = setStandardDecorators(cache, false, false);
     } else if (!LoggingCache.class.isAssignableFrom(cache.getClass())) {
       cache = new LoggingCache(cache);
     }
@@ -115,7 +168,28 @@ public class CacheBuilder {
     }
   }
 
-  private Cache setStandardDecorators(Cache cache) {
+  private Cache setConcurrentDecorators(ConcurrentCache concurrentCache) {
+    Cache cache = concurrentCache;
+    if (timeToLive != null && refreshAheadDecorator == null) {
+      concurrentCache.setTimeToLive(timeToLive);
+    }
+    // the eviction policies ConcurrentCache implements itself are not applied as decorators
+    boolean synchronize = false;
+    for (Class<? extends Cache> decorator : decorators) {
+      if (LruCache.class.equals(decorator)) {
+        concurrentCache.setAccessOrder(true);
+      } else if (FifoCache.class.equals(decorator)) {
+        concurrentCache.setAccessOrder(false);
+      } else {
+        cache = newCacheDecoratorInstance(decorator, cache);
+        setCacheProperties(cache);
+        synchronize = true;
+      }
+    }
+    return setStandardDecorators(cache, synchronize, readWrite);
+  }
+
+  private Cache setStandardDecorators(Cache cache, boolean synchronize, boolean serialize) {
     try {
       MetaObject metaCache = SystemMetaObject.forObject(cache);
       if (size != null && metaCache.hasSetter("size")) {
@@ -125,12 +199,24 @@ public class CacheBuilder {
         cache = new ScheduledCache(cache);
         ((ScheduledCache) cache).setClearInterval(clearInterval);
       }
-      if (readWrite) {
-        cache = new SerializedCache(cache);
+      if (serialize) {
+        cache = serializer == null ? new SerializedCache(cache) : new SerializedCache(cache, serializer);
       }
       cache = new LoggingCache(cache);
-      cache = new SynchronizedCache(cache);
-      if (blocking) {
+      if (synchronize) {
+        cache = new SynchronizedCache(cache);
+      }
+      if (refreshAheadDecorator != null) {
+        // blocks misses by itself, a BlockingCache would also block the readers of stale entries
+        cache = newCacheDecoratorInstance(refreshAheadDecorator, cache);
+        setCacheProperties(cache);
+        if (timeToLive != null) {
+          ((RefreshAheadCache) cache).setTimeToLive(timeToLive);
+        }
+        if (blocking) {
+          ((RefreshAheadCache) cache).setBlocking(true);
+        }
+      } else if (blocking) {
         cache = new BlockingCache(cache);
       }
       return cache;
@@ -18,6 +18,7 @@ package org.apache.ibatis.mapping;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
@@ -46,6 +47,8 @@ public final class MappedStatement {
   private List<ResultMap> resultMaps;
   private boolean flushCacheRequired;
   private boolean useCache;
+  private Long cacheTimeToLive;
+  private String[] cacheTables;
   private boolean resultOrdered;
   private SqlCommandType sqlCommandType;
   private KeyGenerator keyGenerator;
@@ -139,6 +142,39 @@ public final class MappedStatement {
       return this;
     }
 
+    /**
+     * Cache time to live.
+     *
+     * @param cacheTimeToLive
+     *          the time in milliseconds after which the cached results of this statement expire, or
+     *          <code>null</code> to use the time to live of the cache
+     * @return the builder
+     * @since 3.5.8
+     */
+    public Builder cacheTimeToLive(Long cacheTimeToLive) {
+      mappedStatement.cacheTimeToLive = cacheTimeToLive;
+      return this;
+    }
+
+    /**
+     * Cache tables.
+     *
+     * @param cacheTables
+     *          comma separated names of the tables this statement reads, when it is a select, or writes
+     * @return the builder
+     * @since 3.5.8
+     */
+    public Builder cacheTables(String cacheTables) {
+      String[] tables = delimitedStringToArray(cacheTables);
+      if (tables != null) {
+        for (int i = 0; i < tables.length; i++) {
+          tables[i] = tables[i].trim().toLowerCase(Locale.ENGLISH);
+        }
+      }
+      mappedStatement.cacheTables = tables;
+      return this;
+    }
+
     public Builder resultOrdered(boolean resultOrdered) {
       mappedStatement.resultOrdered = resultOrdered;
       return this;
@@ -262,6 +298,28 @@ public final class MappedStatement {
     return useCache;
   }
 
+  /**
+   * Gets the time to live of the cached results of this statement.
+   *
+   * @return the time to live in milliseconds, or <code>null</code> to use the time to live of the cache
+   * @since 3.5.8
+   */
+  public Long getCacheTimeToLive() {
+    return cacheTimeToLive;
+  }
+
+  /**
+   * Gets the tables this statement reads, when it is a select, or writes. When declared, writes invalidate the cached
+   * results of the selects reading the same tables instead of clearing their whole cache.
+   *
+   * @return the lower case table names, or <code>null</code> if not declared
+   * @since 3.5.8
+   * @see org.apache.ibatis.cache.TableVersions
+   */
+  public String[] getCacheTables() {
+    return cacheTables;
+  }
+
   public boolean isResultOrdered() {
     return resultOrdered;
   }
@@ -56,4 +56,14 @@ public class MethodInvoker implements Invoker {
   public Class<?> getType() {
     return type;
   }
+
+  /**
+   * Gets the method this invoker delegates to.
+   *
+   * @return the method
+   * @since 3.5.8
+   */
+  public Method getMethod() {
+    return method;
+  }
 }
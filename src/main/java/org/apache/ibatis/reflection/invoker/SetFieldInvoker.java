@@ -48,4 +48,14 @@ public class SetFieldInvoker implements Invoker {
   public Class<?> getType() {
     return field.getType();
   }
+
+  /**
+   * Gets the field this invoker writes to.
+   *
+   * @return the field
+   * @since 3.5.8
+   */
+  public Field getField() {
+    return field;
+  }
 }
@@ -0,0 +1,279 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.defaults;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.lang.UsesJava7;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.invoker.GetFieldInvoker;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.invoker.MethodInvoker;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapper;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeException;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * A parameter binder specialised for one statement, one parameter type and one list of parameter mappings.
+ * <p>
+ * How each value is read from the parameter object is decided once: the parameter object itself, a map entry or a
+ * getter invoked through a {@link MethodHandle}. Only nested and indexed properties still go through a
+ * {@link MetaObject}, created at most once per call. Additional parameters are still looked up on every call, as a
+ * <code>&lt;bind&gt;</code> inside a condition may or may not define one for the same statement and parameter type.
+ *
+ * @since 3.5.8
+ * @see Configuration#isCompiledParameterBindingEnabled()
+ */
+public final class CompiledParameterBinder {
+
+  /**
+   * Marker stored for a parameter shape that cannot be compiled.
+   */
+  static final CompiledParameterBinder UNSUPPORTED = new CompiledParameterBinder(null, new Source[0], new String[0],
+      new MethodHandle[0]);
+
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+  private enum Source {
+    OUT, NULL, PARAMETER_OBJECT, MAP_ENTRY, GETTER, META_OBJECT
+  }
+
+  private final Configuration configuration;
+  private final Source[] sources;
+  private final String[] properties;
+  private final MethodHandle[] getters;
+
+  private CompiledParameterBinder(Configuration configuration, Source[] sources, String[] properties,
+      MethodHandle[] getters) {
+    this.configuration = configuration;
+    this.sources = sources;
+    this.properties = properties;
+    this.getters = getters;
+  }
+
+  /**
+   * Sets the parameters of a statement.
+   *
+   * @param ps
+   *          the statement
+   * @param parameterObject
+   *          the parameter object, of the type this binder was compiled for
+   * @param boundSql
+   *          the bound SQL, with the parameter mappings this binder was compiled for
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  public void bind(PreparedStatement ps, Object parameterObject, BoundSql boundSql) {
+    final List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+    MetaObject metaObject = null;
+    for (int i = 0; i < sources.length; i++) {
+      if (sources[i] == Source.OUT) {
+        continue;
+      }
+      final Object value;
+      if (boundSql.hasAdditionalParameter(properties[i])) { // issue #448 ask first for additional params
+        value = boundSql.getAdditionalParameter(properties[i]);
+      } else {
+        switch (sources[i]) {
+          case NULL:
+            value = null;
+            break;
+          case PARAMETER_OBJECT:
+            value = parameterObject;
+            break;
+          case MAP_ENTRY:
+            value = ((Map<?, ?>) parameterObject).get(properties[i]);
+            break;
+          case GETTER:
+            value = getValue(i, parameterObject);
+            break;
+          default:
+            if (metaObject == null) {
+              metaObject = configuration.newMetaObject(parameterObject);
+            }
+            value = metaObject.getValue(properties[i]);
+        }
+      }
+      final ParameterMapping parameterMapping = parameterMappings.get(i);
+      final TypeHandler typeHandler = parameterMapping.getTypeHandler();
+      JdbcType jdbcType = parameterMapping.getJdbcType();
+      if (value == null && jdbcType == null) {
+        jdbcType = configuration.getJdbcTypeForNull();
+      }
+      try {
+        typeHandler.setParameter(ps, i + 1, value, jdbcType);
+      } catch (TypeException | SQLException e) {
+        throw new TypeException("Could not set parameters for mapping: " + parameterMapping + ". Cause: " + e, e);
+      }
+    }
+  }
+
+  @UsesJava7
+  private Object getValue(int i, Object parameterObject) {
+    try {
+      return (Object) getters[i].invokeExact(parameterObject);
+    } catch (Throwable t) {
+      throw new ReflectionException("Could not get property '" + properties[i] + "' from "
+          + parameterObject.getClass() + ".  Cause: " + t.toString(), t);
+    }
+  }
+
+  /**
+   * Compiles a binder for the parameter mappings of a bound SQL and the type of its parameter object.
+   *
+   * @return the binder, or {@link #UNSUPPORTED} if parameter objects are wrapped by a custom object wrapper factory
+   */
+  static CompiledParameterBinder compile(Configuration configuration, BoundSql boundSql, Object parameterObject) {
+    if (configuration.getObjectWrapperFactory().getClass() != DefaultObjectWrapperFactory.class) {
+      return UNSUPPORTED;
+    }
+    final List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+    final Source[] sources = new Source[parameterMappings.size()];
+    final String[] properties = new String[sources.length];
+    final MethodHandle[] getters = new MethodHandle[sources.length];
+    final Reflector reflector = parameterObject == null || parameterObject instanceof Map
+        || parameterObject instanceof Collection || parameterObject instanceof ObjectWrapper ? null
+        : configuration.getReflectorFactory().findForClass(parameterObject.getClass());
+    for (int i = 0; i < sources.length; i++) {
+      final ParameterMapping parameterMapping = parameterMappings.get(i);
+      final String property = parameterMapping.getProperty();
+      properties[i] = property;
+      if (parameterMapping.getMode() == ParameterMode.OUT) {
+        sources[i] = Source.OUT;
+      } else if (parameterObject == null) {
+        sources[i] = Source.NULL;
+      } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+        sources[i] = Source.PARAMETER_OBJECT;
+      } else if (property.indexOf('.') > -1 || property.indexOf('[') > -1) {
+        sources[i] = Source.META_OBJECT;
+      } else if (parameterObject instanceof Map) {
+        sources[i] = Source.MAP_ENTRY;
+      } else {
+        getters[i] = reflector != null && reflector.hasGetter(property) ? getterHandle(reflector.getGetInvoker(property))
+            : null;
+        sources[i] = getters[i] == null ? Source.META_OBJECT : Source.GETTER;
+      }
+    }
+    return new CompiledParameterBinder(configuration, sources, properties, getters);
+  }
+
+  private static MethodHandle getterHandle(Invoker invoker) {
+    try {
+      MethodHandle handle;
+      if (invoker instanceof MethodInvoker) {
+        final Method method = ((MethodInvoker) invoker).getMethod();
+        try {
+          handle = MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+          if (!Reflector.canControlMemberAccessible()) {
+            return null;
+          }
+          method.setAccessible(true);
+          handle = MethodHandles.lookup().unreflect(method);
+        }
+      } else if (invoker instanceof GetFieldInvoker) {
+        final Field field = ((GetFieldInvoker) invoker).getField();
+        try {
+          handle = MethodHandles.lookup().unreflectGetter(field);
+        } catch (IllegalAccessException e) {
+          if (!Reflector.canControlMemberAccessible()) {
+            return null;
+          }
+          field.setAccessible(true);
+          handle = MethodHandles.lookup().unreflectGetter(field);
+        }
+      } else {
+        // e.g. ambiguous getters, which must keep failing the way they do with a MetaObject
+        return null;
+      }
+      return handle.asType(GETTER_TYPE);
+    } catch (IllegalAccessException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Identifies the binders that can be shared: same statement, same parameter type and same parameter properties.
+   */
+  public static final class Key {
+
+    private final MappedStatement mappedStatement;
+    private final Class<?> parameterType;
+    private final List<ParameterMapping> parameterMappings;
+    private final int hashCode;
+
+    Key(MappedStatement mappedStatement, Object parameterObject, List<ParameterMapping> parameterMappings) {
+      this.mappedStatement = mappedStatement;
+      this.parameterType = parameterObject == null ? null : parameterObject.getClass();
+      this.parameterMappings = parameterMappings;
+      int hash = mappedStatement.hashCode() * 31 + (parameterType == null ? 0 : parameterType.hashCode());
+      for (ParameterMapping parameterMapping : parameterMappings) {
+        hash = hash * 31 + parameterMapping.getProperty().hashCode();
+      }
+      this.hashCode = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      if (hashCode != other.hashCode || mappedStatement != other.mappedStatement
+          || parameterType != other.parameterType || parameterMappings.size() != other.parameterMappings.size()) {
+        return false;
+      }
+      if (parameterMappings == other.parameterMappings) {
+        return true;
+      }
+      for (int i = 0; i < parameterMappings.size(); i++) {
+        ParameterMapping mapping = parameterMappings.get(i);
+        ParameterMapping otherMapping = other.parameterMappings.get(i);
+        if (mapping != otherMapping && (mapping.getMode() != otherMapping.getMode()
+            || !mapping.getProperty().equals(otherMapping.getProperty()))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+}
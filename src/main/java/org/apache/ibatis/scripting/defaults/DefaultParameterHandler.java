@@ -62,6 +62,13 @@ public class DefaultParameterHandler implements ParameterHandler {
   public void setParameters(PreparedStatement ps) {
     ErrorContext.instance().activity("setting parameters").object(mappedStatement.getParameterMap().getId());
     List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+    if (parameterMappings != null && configuration.isCompiledParameterBindingEnabled()) {
+      final CompiledParameterBinder binder = getCompiledParameterBinder(parameterMappings);
+      if (binder != CompiledParameterBinder.UNSUPPORTED) {
+        binder.bind(ps, parameterObject, boundSql);
+        return;
+      }
+    }
     if (parameterMappings != null) {
       for (int i = 0; i < parameterMappings.size(); i++) {
         ParameterMapping parameterMapping = parameterMappings.get(i);
@@ -93,4 +100,14 @@ public class DefaultParameterHandler implements ParameterHandler {
     }
   }
 
+  private CompiledParameterBinder getCompiledParameterBinder(List<ParameterMapping> parameterMappings) {
+    final CompiledParameterBinder.Key key = new CompiledParameterBinder.Key(mappedStatement, parameterObject, parameterMappings);
+    CompiledParameterBinder binder = configuration.getCompiledParameterBinder(key);
+    if (binder == null) {
+      binder = CompiledParameterBinder.compile(configuration, boundSql, parameterObject);
+      configuration.addCompiledParameterBinder(key, binder);
+    }
+    return binder;
+  }
+
 }
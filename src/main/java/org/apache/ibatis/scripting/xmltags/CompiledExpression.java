@@ -0,0 +1,306 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ognl.ASTAnd;
+import ognl.ASTChain;
+import ognl.ASTConst;
+import ognl.ASTMethod;
+import ognl.ASTNot;
+import ognl.ASTOr;
+import ognl.ASTProperty;
+import ognl.ComparisonExpression;
+import ognl.MapPropertyAccessor;
+import ognl.Node;
+import ognl.ObjectPropertyAccessor;
+import ognl.Ognl;
+import ognl.OgnlException;
+import ognl.OgnlOps;
+import ognl.OgnlRuntime;
+import ognl.PropertyAccessor;
+
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+
+/**
+ * An OGNL expression compiled into plain Java evaluators.
+ * <p>
+ * Constants, property paths, <code>size()</code>, <code>isEmpty()</code> and <code>length()</code> calls, comparisons
+ * and the boolean operators are compiled. Operators use the {@link OgnlOps} functions and properties are read the way
+ * the registered {@link PropertyAccessor} would, so the results are the ones OGNL gives. Expressions containing
+ * anything else are always evaluated by OGNL. A value the compiled form does not handle (e.g. a property of a list, or
+ * a property of a <code>null</code> value) only makes OGNL evaluate the expression that one time.
+ *
+ * @since 3.5.8
+ */
+final class CompiledExpression {
+
+  private static final Map<String, CompiledExpression> expressionCache = new ConcurrentHashMap<>();
+  private static final ReflectorFactory REFLECTOR_FACTORY = new DefaultReflectorFactory();
+  private static final DynamicContext.ContextAccessor CONTEXT_ACCESSOR = new DynamicContext.ContextAccessor();
+  private static final UnsupportedValueException UNSUPPORTED_VALUE = new UnsupportedValueException();
+
+  private final Evaluator evaluator;
+
+  private CompiledExpression(Evaluator evaluator) {
+    this.evaluator = evaluator;
+  }
+
+  static Object getValue(String expression, Object root) {
+    CompiledExpression compiledExpression = expressionCache.get(expression);
+    if (compiledExpression == null) {
+      compiledExpression = new CompiledExpression(compile(expression));
+      expressionCache.put(expression, compiledExpression);
+    }
+    if (compiledExpression.evaluator != null) {
+      try {
+        return compiledExpression.evaluator.evaluate(root);
+      } catch (GetterException e) {
+        // the getter already ran, so it is not called again by OGNL
+        OgnlException ognlException = new OgnlException(e.getMessage(), e.getCause());
+        throw new BuilderException("Error evaluating expression '" + expression + "'. Cause: " + ognlException,
+            ognlException);
+      } catch (UnsupportedValueException e) {
+        // let OGNL evaluate this value
+      }
+    }
+    return OgnlCache.getValue(expression, root);
+  }
+
+  private static Evaluator compile(String expression) {
+    try {
+      return compile((Node) Ognl.parseExpression(expression));
+    } catch (OgnlException e) {
+      // OGNL reports the syntax error
+      return null;
+    }
+  }
+
+  private static Evaluator compile(Node node) {
+    Class<?> type = node.getClass();
+    if (type == ASTConst.class) {
+      Object value = ((ASTConst) node).getValue();
+      return source -> value;
+    } else if (type == ASTProperty.class) {
+      return compileProperty((ASTProperty) node);
+    } else if (type == ASTMethod.class) {
+      return compileMethod((ASTMethod) node);
+    } else if (type == ASTChain.class) {
+      Evaluator[] links = compileChildren(node);
+      return links == null ? null : source -> {
+        Object value = source;
+        for (Evaluator link : links) {
+          value = link.evaluate(value);
+        }
+        return value;
+      };
+    } else if (type == ASTAnd.class) {
+      Evaluator[] operands = compileChildren(node);
+      return operands == null ? null : source -> {
+        Object value = null;
+        for (int i = 0; i < operands.length; i++) {
+          value = operands[i].evaluate(source);
+          if (i < operands.length - 1 && !OgnlOps.booleanValue(value)) {
+            break;
+          }
+        }
+        return value;
+      };
+    } else if (type == ASTOr.class) {
+      Evaluator[] operands = compileChildren(node);
+      return operands == null ? null : source -> {
+        Object value = null;
+        for (int i = 0; i < operands.length; i++) {
+          value = operands[i].evaluate(source);
+          if (i < operands.length - 1 && OgnlOps.booleanValue(value)) {
+            break;
+          }
+        }
+        return value;
+      };
+    } else if (type == ASTNot.class) {
+      Evaluator[] operands = compileChildren(node);
+      return operands == null || operands.length != 1 ? null
+          : source -> OgnlOps.booleanValue(operands[0].evaluate(source)) ? Boolean.FALSE : Boolean.TRUE;
+    } else if (node instanceof ComparisonExpression) {
+      return compileComparison((ComparisonExpression) node);
+    }
+    return null;
+  }
+
+  private static Evaluator compileComparison(ComparisonExpression node) {
+    Evaluator[] operands = compileChildren(node);
+    if (operands == null || operands.length != 2) {
+      return null;
+    }
+    Evaluator left = operands[0];
+    Evaluator right = operands[1];
+    // not all the comparison nodes are public, so they are told apart by their operator
+    switch (node.getExpressionOperator(0)) {
+      case "==":
+        return source -> OgnlOps.equal(left.evaluate(source), right.evaluate(source)) ? Boolean.TRUE : Boolean.FALSE;
+      case "!=":
+        return source -> OgnlOps.equal(left.evaluate(source), right.evaluate(source)) ? Boolean.FALSE : Boolean.TRUE;
+      case "<":
+        return source -> OgnlOps.less(left.evaluate(source), right.evaluate(source)) ? Boolean.TRUE : Boolean.FALSE;
+      case ">":
+        return source -> OgnlOps.greater(left.evaluate(source), right.evaluate(source)) ? Boolean.TRUE : Boolean.FALSE;
+      case "<=":
+        return source -> OgnlOps.greater(left.evaluate(source), right.evaluate(source)) ? Boolean.FALSE : Boolean.TRUE;
+      case ">=":
+        return source -> OgnlOps.less(left.evaluate(source), right.evaluate(source)) ? Boolean.FALSE : Boolean.TRUE;
+      default:
+        return null;
+    }
+  }
+
+  private static Evaluator[] compileChildren(Node node) {
+    Evaluator[] children = new Evaluator[node.jjtGetNumChildren()];
+    for (int i = 0; i < children.length; i++) {
+      children[i] = compile(node.jjtGetChild(i));
+      if (children[i] == null) {
+        return null;
+      }
+    }
+    return children;
+  }
+
+  private static Evaluator compileProperty(ASTProperty node) {
+    if (node.isIndexedAccess() || node.jjtGetNumChildren() != 1 || node.jjtGetChild(0).getClass() != ASTConst.class
+        || !(((ASTConst) node.jjtGetChild(0)).getValue() instanceof String)) {
+      return null;
+    }
+    String name = (String) ((ASTConst) node.jjtGetChild(0)).getValue();
+    return source -> getProperty(source, name);
+  }
+
+  private static Evaluator compileMethod(ASTMethod node) {
+    if (node.jjtGetNumChildren() != 0) {
+      return null;
+    }
+    switch (node.getMethodName()) {
+      case "size":
+        return source -> {
+          if (source instanceof Collection) {
+            return ((Collection<?>) source).size();
+          } else if (source instanceof Map) {
+            return ((Map<?, ?>) source).size();
+          }
+          throw UNSUPPORTED_VALUE;
+        };
+      case "isEmpty":
+        return source -> {
+          if (source instanceof Collection) {
+            return ((Collection<?>) source).isEmpty();
+          } else if (source instanceof Map) {
+            return ((Map<?, ?>) source).isEmpty();
+          } else if (source instanceof String) {
+            return ((String) source).isEmpty();
+          }
+          throw UNSUPPORTED_VALUE;
+        };
+      case "length":
+        return source -> {
+          if (source instanceof String) {
+            return ((String) source).length();
+          }
+          throw UNSUPPORTED_VALUE;
+        };
+      default:
+        return null;
+    }
+  }
+
+  private static Object getProperty(Object source, String name) {
+    if (source == null) {
+      throw UNSUPPORTED_VALUE;
+    }
+    PropertyAccessor accessor;
+    try {
+      accessor = OgnlRuntime.getPropertyAccessor(source.getClass());
+    } catch (OgnlException e) {
+      throw UNSUPPORTED_VALUE;
+    }
+    if (accessor instanceof DynamicContext.ContextAccessor) {
+      return CONTEXT_ACCESSOR.getProperty(null, source, name);
+    } else if (accessor.getClass() == MapPropertyAccessor.class) {
+      return getMapProperty((Map<?, ?>) source, name);
+    } else if (accessor.getClass() == ObjectPropertyAccessor.class) {
+      return getBeanProperty(source, name);
+    }
+    throw UNSUPPORTED_VALUE;
+  }
+
+  private static Object getMapProperty(Map<?, ?> map, String name) {
+    // same special names as the MapPropertyAccessor
+    switch (name) {
+      case "size":
+        return map.size();
+      case "keys":
+      case "keySet":
+        return map.keySet();
+      case "values":
+        return map.values();
+      case "isEmpty":
+        return map.isEmpty() ? Boolean.TRUE : Boolean.FALSE;
+      default:
+        return map.get(name);
+    }
+  }
+
+  private static Object getBeanProperty(Object bean, String name) {
+    Reflector reflector = REFLECTOR_FACTORY.findForClass(bean.getClass());
+    if (!reflector.hasGetter(name)) {
+      throw UNSUPPORTED_VALUE;
+    }
+    try {
+      return reflector.getGetInvoker(name).invoke(bean, null);
+    } catch (IllegalAccessException e) {
+      throw UNSUPPORTED_VALUE;
+    } catch (InvocationTargetException e) {
+      throw new GetterException(name, e.getTargetException());
+    }
+  }
+
+  @FunctionalInterface
+  private interface Evaluator {
+    Object evaluate(Object source);
+  }
+
+  private static class UnsupportedValueException extends RuntimeException {
+    private static final long serialVersionUID = -5094574563520427853L;
+
+    UnsupportedValueException() {
+      super("Value not supported by the compiled expression", null, false, false);
+    }
+  }
+
+  private static class GetterException extends RuntimeException {
+    private static final long serialVersionUID = 2418364640739412575L;
+
+    GetterException(String name, Throwable cause) {
+      super(name, cause, false, false);
+    }
+  }
+
+}
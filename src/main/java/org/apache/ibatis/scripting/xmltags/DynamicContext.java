@@ -23,6 +23,7 @@ import ognl.OgnlContext;
 import ognl.OgnlRuntime;
 import ognl.PropertyAccessor;
 
+import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
 
@@ -41,8 +42,21 @@ public class DynamicContext {
   private final ContextMap bindings;
   private final StringJoiner sqlBuilder = new StringJoiner(" ");
   private int uniqueNumber = 0;
+  private final CacheKey shape;
+  private boolean parameterDependent;
 
   public DynamicContext(Configuration configuration, Object parameterObject) {
+    this(configuration, parameterObject, null);
+  }
+
+  /**
+   * Creates a context that records the decisions taken by the sql nodes into <code>shape</code> instead of building
+   * the sql text when a shape is given.
+   *
+   * @since 3.5.8
+   */
+  DynamicContext(Configuration configuration, Object parameterObject, CacheKey shape) {
+    this.shape = shape;
     if (parameterObject != null && !(parameterObject instanceof Map)) {
       MetaObject metaObject = configuration.newMetaObject(parameterObject);
       boolean existsTypeHandler = configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass());
@@ -63,7 +77,9 @@ public class DynamicContext {
   }
 
   public void appendSql(String sql) {
-    sqlBuilder.add(sql);
+    if (shape == null) {
+      sqlBuilder.add(sql);
+    }
   }
 
   public String getSql() {
@@ -74,6 +90,34 @@ public class DynamicContext {
     return uniqueNumber++;
   }
 
+  /**
+   * Returns whether the sql text is being discarded because only the shape of the statement is recorded.
+   */
+  boolean isRecordingShape() {
+    return shape != null;
+  }
+
+  /**
+   * Records a decision that changes the generated sql text, such as a branch taken or the size of a collection.
+   */
+  void recordShape(int decision) {
+    if (shape != null) {
+      shape.update(decision);
+    }
+  }
+
+  /**
+   * Records that the generated sql text depends on the parameter values themselves, so it cannot be derived from the
+   * recorded shape.
+   */
+  void markParameterDependent() {
+    parameterDependent = true;
+  }
+
+  boolean isParameterDependent() {
+    return parameterDependent;
+  }
+
   static class ContextMap extends HashMap<String, Object> {
     private static final long serialVersionUID = 2977601501966151582L;
     private final MetaObject parameterMetaObject;
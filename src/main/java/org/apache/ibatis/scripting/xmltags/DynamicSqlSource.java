@@ -15,9 +15,16 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.apache.ibatis.builder.SqlSourceBuilder;
+import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
 
 /**
@@ -25,8 +32,16 @@ import org.apache.ibatis.session.Configuration;
  */
 public class DynamicSqlSource implements SqlSource {
 
+  /**
+   * Maximum number of shapes for which a sql plan is kept, so statements with unbounded shapes (e.g. a
+   * <code>&lt;foreach&gt;</code> over collections of any size) cannot grow the cache forever.
+   */
+  private static final int MAX_SQL_PLANS = 256;
+
   private final Configuration configuration;
   private final SqlNode rootSqlNode;
+  private final Map<CacheKey, SqlPlan> sqlPlans = new ConcurrentHashMap<>();
+  private volatile boolean parameterDependent;
 
   public DynamicSqlSource(Configuration configuration, SqlNode rootSqlNode) {
     this.configuration = configuration;
@@ -35,6 +50,12 @@ public class DynamicSqlSource implements SqlSource {
 
   @Override
   public BoundSql getBoundSql(Object parameterObject) {
+    if (configuration.isDynamicSqlPlanCacheEnabled() && !parameterDependent) {
+      BoundSql boundSql = getPlannedBoundSql(parameterObject);
+      if (boundSql != null) {
+        return boundSql;
+      }
+    }
     DynamicContext context = new DynamicContext(configuration, parameterObject);
     rootSqlNode.apply(context);
     SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
@@ -45,4 +66,72 @@ public class DynamicSqlSource implements SqlSource {
     return boundSql;
   }
 
+  /**
+   * Evaluates only the decisions of the sql nodes and reuses the sql text and parameter mappings built the last time
+   * the same decisions were taken.
+   *
+   * @return <code>null</code> if the sql text depends on parameter values
+   */
+  private BoundSql getPlannedBoundSql(Object parameterObject) {
+    Class<?> parameterType = parameterObject == null ? Object.class : parameterObject.getClass();
+    CacheKey shape = new CacheKey();
+    shape.update(parameterType);
+    DynamicContext context = new DynamicContext(configuration, parameterObject, shape);
+    rootSqlNode.apply(context);
+    if (context.isParameterDependent()) {
+      parameterDependent = true;
+      return null;
+    }
+    Map<String, Object> bindings = context.getBindings();
+    MetaObject metaParameters = configuration.newMetaObject(bindings);
+    SqlPlan cachedPlan = sqlPlans.get(shape);
+    SqlPlan sqlPlan = cachedPlan;
+    if (sqlPlan == null || !sqlPlan.matches(metaParameters)) {
+      DynamicContext sqlContext = new DynamicContext(configuration, parameterObject);
+      rootSqlNode.apply(sqlContext);
+      SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
+      BoundSql parsed = sqlSourceParser.parse(sqlContext.getSql(), parameterType, bindings).getBoundSql(parameterObject);
+      sqlPlan = new SqlPlan(parsed.getSql(), parsed.getParameterMappings(), metaParameters);
+      if (cachedPlan != null || sqlPlans.size() < MAX_SQL_PLANS) {
+        sqlPlans.put(shape, sqlPlan);
+      }
+    }
+    BoundSql boundSql = new BoundSql(configuration, sqlPlan.sql, sqlPlan.parameterMappings, parameterObject);
+    bindings.forEach(boundSql::setAdditionalParameter);
+    return boundSql;
+  }
+
+  /**
+   * The sql text and parameter mappings built for one shape of the statement.
+   */
+  private static class SqlPlan {
+    private final String sql;
+    private final List<ParameterMapping> parameterMappings;
+    // the types of the parameters resolved from the values bound by the sql nodes (issue #448)
+    private final Class<?>[] additionalParameterTypes;
+
+    SqlPlan(String sql, List<ParameterMapping> parameterMappings, MetaObject metaParameters) {
+      this.sql = sql;
+      this.parameterMappings = parameterMappings;
+      this.additionalParameterTypes = new Class<?>[parameterMappings.size()];
+      for (int i = 0; i < additionalParameterTypes.length; i++) {
+        additionalParameterTypes[i] = additionalParameterType(metaParameters, i);
+      }
+    }
+
+    boolean matches(MetaObject metaParameters) {
+      for (int i = 0; i < additionalParameterTypes.length; i++) {
+        if (additionalParameterTypes[i] != additionalParameterType(metaParameters, i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private Class<?> additionalParameterType(MetaObject metaParameters, int i) {
+      String property = parameterMappings.get(i).getProperty();
+      return property != null && metaParameters.hasGetter(property) ? metaParameters.getGetterType(property) : null;
+    }
+  }
+
 }
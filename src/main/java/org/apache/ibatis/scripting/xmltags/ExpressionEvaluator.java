@@ -28,8 +28,26 @@ import org.apache.ibatis.builder.BuilderException;
  */
 public class ExpressionEvaluator {
 
+  private final boolean compileExpressions;
+
+  public ExpressionEvaluator() {
+    this(false);
+  }
+
+  /**
+   * Creates an evaluator.
+   *
+   * @param compileExpressions
+   *          true to evaluate the expressions that can be compiled without OGNL
+   * @since 3.5.8
+   * @see org.apache.ibatis.session.Configuration#isCompiledExpressionsEnabled()
+   */
+  public ExpressionEvaluator(boolean compileExpressions) {
+    this.compileExpressions = compileExpressions;
+  }
+
   public boolean evaluateBoolean(String expression, Object parameterObject) {
-    Object value = OgnlCache.getValue(expression, parameterObject);
+    Object value = getValue(expression, parameterObject);
     if (value instanceof Boolean) {
       return (Boolean) value;
     }
@@ -40,7 +58,7 @@ public class ExpressionEvaluator {
   }
 
   public Iterable<?> evaluateIterable(String expression, Object parameterObject) {
-    Object value = OgnlCache.getValue(expression, parameterObject);
+    Object value = getValue(expression, parameterObject);
     if (value == null) {
       throw new BuilderException("The expression '" + expression + "' evaluated to a null value.");
     }
@@ -65,4 +83,9 @@ public class ExpressionEvaluator {
     throw new BuilderException("Error evaluating expression '" + expression + "'.  Return value (" + value + ") was not iterable.");
   }
 
+  private Object getValue(String expression, Object parameterObject) {
+    return compileExpressions ? CompiledExpression.getValue(expression, parameterObject)
+        : OgnlCache.getValue(expression, parameterObject);
+  }
+
 }
@@ -37,7 +37,7 @@ public class ForEachSqlNode implements SqlNode {
   private final Configuration configuration;
 
   public ForEachSqlNode(Configuration configuration, SqlNode contents, String collectionExpression, String index, String item, String open, String close, String separator) {
-    this.evaluator = new ExpressionEvaluator();
+    this.evaluator = new ExpressionEvaluator(configuration.isCompiledExpressionsEnabled());
     this.collectionExpression = collectionExpression;
     this.contents = contents;
     this.open = open;
@@ -53,12 +53,14 @@ public class ForEachSqlNode implements SqlNode {
     Map<String, Object> bindings = context.getBindings();
     final Iterable<?> iterable = evaluator.evaluateIterable(collectionExpression, bindings);
     if (!iterable.iterator().hasNext()) {
+      context.recordShape(0);
       return true;
     }
     boolean first = true;
     applyOpen(context);
     int i = 0;
     for (Object o : iterable) {
+      context.recordShape(1);
       DynamicContext oldContext = context;
       if (first || separator == null) {
         context = new PrefixedContext(context, "");
@@ -84,6 +86,7 @@ public class ForEachSqlNode implements SqlNode {
       i++;
     }
     applyClose(context);
+    context.recordShape(0);
     context.getBindings().remove(item);
     context.getBindings().remove(index);
     return true;
@@ -150,6 +153,9 @@ public class ForEachSqlNode implements SqlNode {
 
     @Override
     public void appendSql(String sql) {
+      if (delegate.isRecordingShape()) {
+        return;
+      }
       GenericTokenParser parser = new GenericTokenParser("#{", "}", content -> {
         String newContent = content.replaceFirst("^\\s*" + item + "(?![^.,:\\s])", itemizeItem(item, index));
         if (itemIndex != null && newContent.equals(content)) {
@@ -166,6 +172,21 @@ public class ForEachSqlNode implements SqlNode {
       return delegate.getUniqueNumber();
     }
 
+    @Override
+    boolean isRecordingShape() {
+      return delegate.isRecordingShape();
+    }
+
+    @Override
+    void recordShape(int decision) {
+      delegate.recordShape(decision);
+    }
+
+    @Override
+    void markParameterDependent() {
+      delegate.markParameterDependent();
+    }
+
   }
 
 
@@ -213,6 +234,21 @@ public class ForEachSqlNode implements SqlNode {
     public int getUniqueNumber() {
       return delegate.getUniqueNumber();
     }
+
+    @Override
+    boolean isRecordingShape() {
+      return delegate.isRecordingShape();
+    }
+
+    @Override
+    void recordShape(int decision) {
+      delegate.recordShape(decision);
+    }
+
+    @Override
+    void markParameterDependent() {
+      delegate.markParameterDependent();
+    }
   }
 
 }
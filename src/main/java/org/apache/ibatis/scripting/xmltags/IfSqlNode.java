@@ -15,6 +15,8 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import org.apache.ibatis.session.Configuration;
+
 /**
  * @author Clinton Begin
  */
@@ -29,12 +31,25 @@ public class IfSqlNode implements SqlNode {
     this.evaluator = new ExpressionEvaluator();
   }
 
+  /**
+   * Creates an if node whose test is compiled when {@link Configuration#isCompiledExpressionsEnabled()} is set.
+   *
+   * @since 3.5.8
+   */
+  public IfSqlNode(Configuration configuration, SqlNode contents, String test) {
+    this.test = test;
+    this.contents = contents;
+    this.evaluator = new ExpressionEvaluator(configuration.isCompiledExpressionsEnabled());
+  }
+
   @Override
   public boolean apply(DynamicContext context) {
     if (evaluator.evaluateBoolean(test, context.getBindings())) {
+      context.recordShape(1);
       contents.apply(context);
       return true;
     }
+    context.recordShape(0);
     return false;
   }
 
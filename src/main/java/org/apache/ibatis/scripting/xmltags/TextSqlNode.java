@@ -28,6 +28,7 @@ import org.apache.ibatis.type.SimpleTypeRegistry;
 public class TextSqlNode implements SqlNode {
   private final String text;
   private final Pattern injectionFilter;
+  private final boolean dynamic;
 
   public TextSqlNode(String text) {
     this(text, null);
@@ -36,17 +37,23 @@ public class TextSqlNode implements SqlNode {
   public TextSqlNode(String text, Pattern injectionFilter) {
     this.text = text;
     this.injectionFilter = injectionFilter;
+    DynamicCheckerTokenParser checker = new DynamicCheckerTokenParser();
+    createParser(checker).parse(text);
+    this.dynamic = checker.isDynamic();
   }
 
   public boolean isDynamic() {
-    DynamicCheckerTokenParser checker = new DynamicCheckerTokenParser();
-    GenericTokenParser parser = createParser(checker);
-    parser.parse(text);
-    return checker.isDynamic();
+    return dynamic;
   }
 
   @Override
   public boolean apply(DynamicContext context) {
+    if (dynamic) {
+      context.markParameterDependent();
+    }
+    if (context.isRecordingShape()) {
+      return true;
+    }
     GenericTokenParser parser = createParser(new BindingTokenParser(context, injectionFilter));
     context.appendSql(parser.parse(text));
     return true;
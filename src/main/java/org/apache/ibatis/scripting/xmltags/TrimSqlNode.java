@@ -108,6 +108,21 @@ public class TrimSqlNode implements SqlNode {
       return delegate.getUniqueNumber();
     }
 
+    @Override
+    boolean isRecordingShape() {
+      return delegate.isRecordingShape();
+    }
+
+    @Override
+    void recordShape(int decision) {
+      delegate.recordShape(decision);
+    }
+
+    @Override
+    void markParameterDependent() {
+      delegate.markParameterDependent();
+    }
+
     @Override
     public void appendSql(String sql) {
       sqlBuffer.append(sql);
@@ -0,0 +1,169 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import org.apache.ibatis.executor.BatchResult;
+
+/**
+ * A session running its statements on the executor of the {@link Configuration} instead of the calling thread.
+ * <p>
+ * The statements of a session run one after the other, in the order they were submitted, on the same underlying
+ * {@link SqlSession} and therefore in the same transaction. Independent statements run in parallel when submitted to
+ * different sessions.
+ *
+ * @since 3.5.8
+ * @see SqlSessionFactory#openAsyncSession()
+ */
+public interface AsyncSqlSession extends Closeable {
+
+  /**
+   * Retrieve a single row mapped from the statement key.
+   * @param <T> the returned object type
+   * @param statement Unique identifier matching the statement to use.
+   * @return Future of the mapped object
+   */
+  <T> CompletableFuture<T> selectOne(String statement);
+
+  /**
+   * Retrieve a single row mapped from the statement key and parameter.
+   * @param <T> the returned object type
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @return Future of the mapped object
+   */
+  <T> CompletableFuture<T> selectOne(String statement, Object parameter);
+
+  /**
+   * Retrieve a list of mapped objects from the statement key.
+   * @param <E> the returned list element type
+   * @param statement Unique identifier matching the statement to use.
+   * @return Future of the list of mapped objects
+   */
+  <E> CompletableFuture<List<E>> selectList(String statement);
+
+  /**
+   * Retrieve a list of mapped objects from the statement key and parameter.
+   * @param <E> the returned list element type
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @return Future of the list of mapped objects
+   */
+  <E> CompletableFuture<List<E>> selectList(String statement, Object parameter);
+
+  /**
+   * Retrieve a list of mapped objects from the statement key and parameter, within the specified row bounds.
+   * @param <E> the returned list element type
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param rowBounds  Bounds to limit object retrieval
+   * @return Future of the list of mapped objects
+   */
+  <E> CompletableFuture<List<E>> selectList(String statement, Object parameter, RowBounds rowBounds);
+
+  /**
+   * Retrieve a map of mapped objects keyed by one of their properties.
+   * @param <K> the returned Map keys type
+   * @param <V> the returned Map values type
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param mapKey The property to use as key for each value in the list.
+   * @return Future of the map containing key pair data.
+   */
+  <K, V> CompletableFuture<Map<K, V>> selectMap(String statement, Object parameter, String mapKey);
+
+  /**
+   * Execute an insert statement with the given parameter object.
+   * @param statement Unique identifier matching the statement to execute.
+   * @param parameter A parameter object to pass to the statement.
+   * @return Future of the number of rows affected by the insert.
+   */
+  CompletableFuture<Integer> insert(String statement, Object parameter);
+
+  /**
+   * Execute an update statement with the given parameter object.
+   * @param statement Unique identifier matching the statement to execute.
+   * @param parameter A parameter object to pass to the statement.
+   * @return Future of the number of rows affected by the update.
+   */
+  CompletableFuture<Integer> update(String statement, Object parameter);
+
+  /**
+   * Execute a delete statement with the given parameter object.
+   * @param statement Unique identifier matching the statement to execute.
+   * @param parameter A parameter object to pass to the statement.
+   * @return Future of the number of rows affected by the delete.
+   */
+  CompletableFuture<Integer> delete(String statement, Object parameter);
+
+  /**
+   * Runs an operation on the underlying session, after the statements submitted before.
+   * <p>
+   * The operation must not use the session once it has returned, e.g. through a cursor.
+   * @param <T> the result type
+   * @param operation the operation
+   * @return Future of the result of the operation
+   */
+  <T> CompletableFuture<T> submit(Function<SqlSession, T> operation);
+
+  /**
+   * Flushes batch statements and commits database connection, after the statements submitted before.
+   * @return Future completed once committed
+   */
+  CompletableFuture<Void> commit();
+
+  /**
+   * Discards pending batch statements and rolls database connection back, after the statements submitted before.
+   * @return Future completed once rolled back
+   */
+  CompletableFuture<Void> rollback();
+
+  /**
+   * Flushes batch statements, after the statements submitted before.
+   * @return Future of the updated records
+   */
+  CompletableFuture<List<BatchResult>> flushStatements();
+
+  /**
+   * Retrieves a mapper running its statements on this session.
+   * <p>
+   * Methods returning a {@link java.util.concurrent.CompletableFuture} return immediately. Other methods wait for
+   * their statement, which still runs after the ones submitted before.
+   * @param <T> the mapper type
+   * @param type Mapper interface class
+   * @return a mapper bound to this session
+   */
+  <T> T getMapper(Class<T> type);
+
+  /**
+   * Retrieves current configuration.
+   * @return Configuration
+   */
+  Configuration getConfiguration();
+
+  /**
+   * Closes the session once the statements submitted before have run, waiting for them.
+   * Statements submitted afterwards fail.
+   */
+  @Override
+  void close();
+
+}
@@ -25,6 +25,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.function.BiFunction;
 
 import org.apache.ibatis.binding.MapperRegistry;
@@ -34,12 +36,21 @@ import org.apache.ibatis.builder.ResultMapResolver;
 import org.apache.ibatis.builder.annotation.MethodResolver;
 import org.apache.ibatis.builder.xml.XMLStatementBuilder;
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.TableVersions;
 import org.apache.ibatis.cache.decorators.FifoCache;
 import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.RefreshAheadCache;
 import org.apache.ibatis.cache.decorators.SoftCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
+import org.apache.ibatis.cache.decorators.WeightedCache;
+import org.apache.ibatis.cache.impl.ConcurrentCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.serializer.BinaryCacheSerializer;
+import org.apache.ibatis.cache.serializer.CacheSerializer;
+import org.apache.ibatis.cache.serializer.JavaCacheSerializer;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
+import org.apache.ibatis.datasource.pooled.ConcurrentPooledDataSourceFactory;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
 import org.apache.ibatis.executor.BatchExecutor;
@@ -50,8 +61,10 @@ import org.apache.ibatis.executor.SimpleExecutor;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
+import org.apache.ibatis.executor.loader.javassist.GeneratedProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.resultset.CompiledRowMapper;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
 import org.apache.ibatis.executor.statement.RoutingStatementHandler;
@@ -85,6 +98,7 @@ import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
 import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
 import org.apache.ibatis.scripting.LanguageDriver;
 import org.apache.ibatis.scripting.LanguageDriverRegistry;
+import org.apache.ibatis.scripting.defaults.CompiledParameterBinder;
 import org.apache.ibatis.scripting.defaults.RawLanguageDriver;
 import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
 import org.apache.ibatis.transaction.Transaction;
@@ -114,6 +128,20 @@ public class Configuration {
   protected boolean useActualParamName = true;
   protected boolean returnInstanceForEmptyRow;
   protected boolean shrinkWhitespacesInSql;
+  protected boolean compiledRowMappingEnabled;
+  protected boolean dynamicSqlPlanCacheEnabled;
+  protected boolean compiledExpressionsEnabled;
+  protected Integer cursorPrefetchSize;
+  protected ExecutorService asyncExecutor;
+  protected Integer maxReusedStatements;
+  protected Integer batchInsertRowsPerStatement;
+  protected Integer batchFlushSize;
+  protected Long batchFlushBytes;
+  protected boolean retainBatchParameterObjects = true;
+  protected boolean compiledParameterBindingEnabled;
+  protected Integer lazyLoadingBatchSize;
+  protected Integer nestedSelectBatchSize;
+  protected ExecutorService lazyLoadingExecutor;
 
   protected String logPrefix;
   protected Class<? extends Log> logImpl;
@@ -136,6 +164,7 @@ public class Configuration {
 
   protected boolean lazyLoadingEnabled = false;
   protected ProxyFactory proxyFactory = new JavassistProxyFactory(); // #224 Using internal Javassist instead of OGNL
+  protected CacheSerializer cacheSerializer = new JavaCacheSerializer();
 
   protected String databaseId;
   /**
@@ -151,6 +180,7 @@ public class Configuration {
   protected final TypeHandlerRegistry typeHandlerRegistry = new TypeHandlerRegistry(this);
   protected final TypeAliasRegistry typeAliasRegistry = new TypeAliasRegistry();
   protected final LanguageDriverRegistry languageRegistry = new LanguageDriverRegistry();
+  protected final TableVersions tableVersions = new TableVersions();
 
   protected final Map<String, MappedStatement> mappedStatements = new StrictMap<MappedStatement>("Mapped Statements collection")
       .conflictMessageProducer((savedValue, targetValue) ->
@@ -175,6 +205,22 @@ public class Configuration {
    */
   protected final Map<String, String> cacheRefMap = new HashMap<>();
 
+  /*
+   * Maximum number of compiled row mappers and of compiled parameter binders kept, so keys made of unbounded values
+   * (e.g. the parameters of a <foreach> over collections of any size) cannot grow the caches forever.
+   */
+  private static final int MAX_COMPILED_MAPPERS = 1024;
+
+  /*
+   * Row mappers compiled at runtime, keyed by result map id, column prefix and result set column layout.
+   */
+  protected final Map<String, CompiledRowMapper> compiledRowMappers = new ConcurrentHashMap<>();
+
+  /*
+   * Parameter binders compiled at runtime, keyed by statement, parameter type and parameter properties.
+   */
+  protected final Map<CompiledParameterBinder.Key, CompiledParameterBinder> compiledParameterBinders = new ConcurrentHashMap<>();
+
   public Configuration(Environment environment) {
     this();
     this.environment = environment;
@@ -186,13 +232,18 @@ public class Configuration {
 
     typeAliasRegistry.registerAlias("JNDI", JndiDataSourceFactory.class);
     typeAliasRegistry.registerAlias("POOLED", PooledDataSourceFactory.class);
+    typeAliasRegistry.registerAlias("CONCURRENT_POOLED", ConcurrentPooledDataSourceFactory.class);
     typeAliasRegistry.registerAlias("UNPOOLED", UnpooledDataSourceFactory.class);
 
     typeAliasRegistry.registerAlias("PERPETUAL", PerpetualCache.class);
+    typeAliasRegistry.registerAlias("CONCURRENT", ConcurrentCache.class);
+    typeAliasRegistry.registerAlias("OFF_HEAP", OffHeapCache.class);
     typeAliasRegistry.registerAlias("FIFO", FifoCache.class);
     typeAliasRegistry.registerAlias("LRU", LruCache.class);
     typeAliasRegistry.registerAlias("SOFT", SoftCache.class);
     typeAliasRegistry.registerAlias("WEAK", WeakCache.class);
+    typeAliasRegistry.registerAlias("WEIGHTED", WeightedCache.class);
+    typeAliasRegistry.registerAlias("REFRESH_AHEAD", RefreshAheadCache.class);
 
     typeAliasRegistry.registerAlias("DB_VENDOR", VendorDatabaseIdProvider.class);
 
@@ -209,6 +260,10 @@ public class Configuration {
 
     typeAliasRegistry.registerAlias("CGLIB", CglibProxyFactory.class);
     typeAliasRegistry.registerAlias("JAVASSIST", JavassistProxyFactory.class);
+    typeAliasRegistry.registerAlias("GENERATED", GeneratedProxyFactory.class);
+
+    typeAliasRegistry.registerAlias("JAVA_SERIALIZER", JavaCacheSerializer.class);
+    typeAliasRegistry.registerAlias("BINARY_SERIALIZER", BinaryCacheSerializer.class);
 
     languageRegistry.setDefaultDriverClass(XMLLanguageDriver.class);
     languageRegistry.register(RawLanguageDriver.class);
@@ -297,6 +352,353 @@ public class Configuration {
     this.shrinkWhitespacesInSql = shrinkWhitespacesInSql;
   }
 
+  /**
+   * Gets whether flat result maps are mapped by row mappers compiled per result set column layout.
+   *
+   * @return true if compiled row mapping is enabled
+   * @since 3.5.8
+   */
+  public boolean isCompiledRowMappingEnabled() {
+    return compiledRowMappingEnabled;
+  }
+
+  /**
+   * Sets whether flat result maps are mapped by row mappers compiled per result set column layout.
+   * Result maps that cannot be compiled (constructor mappings, nested result maps, nested queries, ...) are always
+   * mapped reflectively.
+   *
+   * @param compiledRowMappingEnabled
+   *          true to enable compiled row mapping
+   * @since 3.5.8
+   */
+  public void setCompiledRowMappingEnabled(boolean compiledRowMappingEnabled) {
+    this.compiledRowMappingEnabled = compiledRowMappingEnabled;
+  }
+
+  /**
+   * Gets whether dynamic sql statements reuse the sql built for the same shape of parameters.
+   *
+   * @return true if the dynamic sql plan cache is enabled
+   * @since 3.5.8
+   */
+  public boolean isDynamicSqlPlanCacheEnabled() {
+    return dynamicSqlPlanCacheEnabled;
+  }
+
+  /**
+   * Sets whether dynamic sql statements reuse the sql built for the same shape of parameters.
+   * The shape is made of the parameter type, the outcome of every <code>&lt;if&gt;</code>/<code>&lt;when&gt;</code>
+   * test and the size of every <code>&lt;foreach&gt;</code> collection. Statements containing <code>${}</code> are
+   * always built from scratch.
+   *
+   * @param dynamicSqlPlanCacheEnabled
+   *          true to enable the dynamic sql plan cache
+   * @since 3.5.8
+   */
+  public void setDynamicSqlPlanCacheEnabled(boolean dynamicSqlPlanCacheEnabled) {
+    this.dynamicSqlPlanCacheEnabled = dynamicSqlPlanCacheEnabled;
+  }
+
+  /**
+   * Gets whether the test expressions of dynamic sql are compiled instead of interpreted by OGNL.
+   *
+   * @return true if compiled expressions are enabled
+   * @since 3.5.8
+   */
+  public boolean isCompiledExpressionsEnabled() {
+    return compiledExpressionsEnabled;
+  }
+
+  /**
+   * Sets whether the <code>test</code> of <code>&lt;if&gt;</code>/<code>&lt;when&gt;</code> and the
+   * <code>collection</code> of <code>&lt;foreach&gt;</code> are compiled instead of interpreted by OGNL.
+   * Expressions made of property paths, constants, comparisons, boolean operators and <code>size()</code>,
+   * <code>isEmpty()</code> or <code>length()</code> calls are compiled; any other expression is still evaluated by
+   * OGNL. It applies to the statements parsed after it is set.
+   *
+   * @param compiledExpressionsEnabled
+   *          true to enable compiled expressions
+   * @since 3.5.8
+   */
+  public void setCompiledExpressionsEnabled(boolean compiledExpressionsEnabled) {
+    this.compiledExpressionsEnabled = compiledExpressionsEnabled;
+  }
+
+  /**
+   * Gets the number of rows cursors map ahead of their consumer.
+   *
+   * @return the prefetch size, or <code>null</code> if cursors do not prefetch
+   * @since 3.5.8
+   */
+  public Integer getCursorPrefetchSize() {
+    return cursorPrefetchSize;
+  }
+
+  /**
+   * Sets the number of rows cursors map ahead of their consumer. When set, rows are fetched and mapped on a
+   * background thread into a buffer of this size while the consumer processes the previous ones. Cursors whose result
+   * map has nested selects, directly or in nested result maps and discriminator cases, do not prefetch, as these run on
+   * the session's executor.
+   * <p>
+   * The background thread reads the result set over the connection of the session, which JDBC drivers are not required
+   * to support concurrently. The session must therefore not execute other statements while a prefetching cursor is
+   * open.
+   *
+   * @param cursorPrefetchSize
+   *          the prefetch size, <code>null</code> or 0 to fetch rows on the consumer thread
+   * @since 3.5.8
+   */
+  public void setCursorPrefetchSize(Integer cursorPrefetchSize) {
+    this.cursorPrefetchSize = cursorPrefetchSize;
+  }
+
+  /**
+   * Gets the maximum number of statements a {@link ExecutorType#REUSE} executor keeps open.
+   *
+   * @return the maximum number of statements, or <code>null</code> if unbounded
+   * @since 3.5.8
+   */
+  public Integer getMaxReusedStatements() {
+    return maxReusedStatements;
+  }
+
+  /**
+   * Sets the maximum number of statements a {@link ExecutorType#REUSE} executor keeps open. Beyond it, the least
+   * recently used statement is closed, which returns it to the connection when the pooled data source caches
+   * statements.
+   *
+   * @param maxReusedStatements
+   *          the maximum number of statements, <code>null</code> for no limit
+   * @since 3.5.8
+   */
+  public void setMaxReusedStatements(Integer maxReusedStatements) {
+    this.maxReusedStatements = maxReusedStatements;
+  }
+
+  /**
+   * Gets the number of rows a {@link ExecutorType#BATCH} executor sends per rewritten multi-row insert.
+   *
+   * @return the number of rows per statement, or <code>null</code> if inserts are not rewritten
+   * @since 3.5.8
+   */
+  public Integer getBatchInsertRowsPerStatement() {
+    return batchInsertRowsPerStatement;
+  }
+
+  /**
+   * Sets the number of rows a {@link ExecutorType#BATCH} executor sends per rewritten multi-row insert.
+   * <p>
+   * When set, consecutive single-row <code>INSERT ... VALUES (...)</code> statements are sent as
+   * <code>INSERT ... VALUES (...),(...),...</code> statements of up to that many rows. Keys generated with
+   * <code>useGeneratedKeys</code> are still assigned to every parameter object and the update counts of the
+   * {@link org.apache.ibatis.executor.BatchResult} stay one per inserted row.
+   *
+   * @param batchInsertRowsPerStatement
+   *          the number of rows per statement, <code>null</code> to disable rewriting
+   * @since 3.5.8
+   */
+  public void setBatchInsertRowsPerStatement(Integer batchInsertRowsPerStatement) {
+    this.batchInsertRowsPerStatement = batchInsertRowsPerStatement;
+  }
+
+  /**
+   * Gets the number of batched rows after which a {@link ExecutorType#BATCH} executor flushes its statements.
+   *
+   * @return the number of rows, or <code>null</code> if statements are only flushed on demand
+   * @since 3.5.8
+   */
+  public Integer getBatchFlushSize() {
+    return batchFlushSize;
+  }
+
+  /**
+   * Sets the number of batched rows after which a {@link ExecutorType#BATCH} executor flushes its statements.
+   * <p>
+   * The results of these flushes are returned by the next {@link SqlSession#flushStatements()}. They keep their
+   * parameter objects until then unless {@link #setRetainBatchParameterObjects(boolean)} is disabled, so the memory
+   * used by a long batch is only bounded when it is.
+   *
+   * @param batchFlushSize
+   *          the number of rows, <code>null</code> to only flush on demand
+   * @since 3.5.8
+   */
+  public void setBatchFlushSize(Integer batchFlushSize) {
+    this.batchFlushSize = batchFlushSize;
+  }
+
+  /**
+   * Gets the estimated size of batched parameter values after which a {@link ExecutorType#BATCH} executor flushes
+   * its statements.
+   *
+   * @return the size in bytes, or <code>null</code> if the size is not checked
+   * @since 3.5.8
+   */
+  public Long getBatchFlushBytes() {
+    return batchFlushBytes;
+  }
+
+  /**
+   * Sets the estimated size of batched parameter values after which a {@link ExecutorType#BATCH} executor flushes
+   * its statements. The size of a row is estimated from its strings and byte arrays plus a fixed overhead per
+   * parameter.
+   * <p>
+   * As with {@link #setBatchFlushSize(Integer)}, the memory used by a long batch is only bounded when
+   * {@link #setRetainBatchParameterObjects(boolean)} is disabled.
+   *
+   * @param batchFlushBytes
+   *          the size in bytes, <code>null</code> to not check the size
+   * @since 3.5.8
+   */
+  public void setBatchFlushBytes(Long batchFlushBytes) {
+    this.batchFlushBytes = batchFlushBytes;
+  }
+
+  /**
+   * Returns whether {@link org.apache.ibatis.executor.BatchResult}s keep the parameter objects of statements that do
+   * not generate keys.
+   *
+   * @return <code>true</code> if parameter objects are always kept
+   * @since 3.5.8
+   */
+  public boolean isRetainBatchParameterObjects() {
+    return retainBatchParameterObjects;
+  }
+
+  /**
+   * Sets whether {@link org.apache.ibatis.executor.BatchResult}s keep the parameter objects of statements that do
+   * not generate keys. Parameter objects of statements generating keys are always kept until the keys are assigned,
+   * and the results of batches flushed on their own then drop them.
+   *
+   * @param retainBatchParameterObjects
+   *          <code>false</code> to let parameter objects be garbage collected once their row is batched
+   * @since 3.5.8
+   */
+  public void setRetainBatchParameterObjects(boolean retainBatchParameterObjects) {
+    this.retainBatchParameterObjects = retainBatchParameterObjects;
+  }
+
+  /**
+   * Gets whether statement parameters are set by binders compiled per statement and parameter type.
+   *
+   * @return true if compiled parameter binding is enabled
+   * @since 3.5.8
+   */
+  public boolean isCompiledParameterBindingEnabled() {
+    return compiledParameterBindingEnabled;
+  }
+
+  /**
+   * Sets whether statement parameters are set by binders compiled per statement and parameter type.
+   * Binders resolve once where each value is read from, so binding a parameter neither creates a {@link MetaObject}
+   * nor looks up a property by name, except for nested and indexed properties.
+   *
+   * @param compiledParameterBindingEnabled
+   *          true to enable compiled parameter binding
+   * @since 3.5.8
+   */
+  public void setCompiledParameterBindingEnabled(boolean compiledParameterBindingEnabled) {
+    this.compiledParameterBindingEnabled = compiledParameterBindingEnabled;
+  }
+
+  /**
+   * Gets the maximum number of lazy loaded properties loaded by one query.
+   *
+   * @return the lazy loading batch size, or <code>null</code> if lazy loaded properties are loaded one by one
+   * @since 3.5.8
+   */
+  public Integer getLazyLoadingBatchSize() {
+    return lazyLoadingBatchSize;
+  }
+
+  /**
+   * Sets the maximum number of lazy loaded properties loaded by one query.
+   * When a lazy loaded property is loaded, the same property of the other objects read from the same result set is
+   * loaded too, by a single query replacing the <code>column = ?</code> condition of the nested select by
+   * <code>column IN (?, ...)</code>. Nested selects that cannot be rewritten that way are still loaded one by one.
+   *
+   * @param lazyLoadingBatchSize
+   *          the lazy loading batch size, or <code>null</code> to load lazy loaded properties one by one
+   * @since 3.5.8
+   * @see org.apache.ibatis.executor.loader.ResultLoaderBatch
+   */
+  public void setLazyLoadingBatchSize(Integer lazyLoadingBatchSize) {
+    this.lazyLoadingBatchSize = lazyLoadingBatchSize;
+  }
+
+  /**
+   * Gets the maximum number of result objects whose nested select is loaded by one query once the result set has
+   * been read.
+   *
+   * @return the nested select batch size, or <code>null</code> if nested selects are executed row by row
+   * @since 3.5.8
+   */
+  public Integer getNestedSelectBatchSize() {
+    return nestedSelectBatchSize;
+  }
+
+  /**
+   * Sets the maximum number of result objects whose nested select is loaded by one query once the result set has
+   * been read. When set, the nested selects that are not lazy loaded are deferred until the whole result set has been
+   * read, and then executed in chunks by replacing the <code>column = ?</code> condition of the nested select by
+   * <code>column IN (?, ...)</code>, so N rows need 1 + N / nestedSelectBatchSize queries instead of 1 + N.
+   * Nested selects that cannot be rewritten that way, as well as results handled by a
+   * {@link org.apache.ibatis.session.ResultHandler} or read through a {@link org.apache.ibatis.cursor.Cursor}, are
+   * still loaded row by row.
+   *
+   * @param nestedSelectBatchSize
+   *          the nested select batch size, or <code>null</code> to execute nested selects row by row
+   * @since 3.5.8
+   * @see org.apache.ibatis.executor.loader.ResultLoaderBatch
+   */
+  public void setNestedSelectBatchSize(Integer nestedSelectBatchSize) {
+    this.nestedSelectBatchSize = nestedSelectBatchSize;
+  }
+
+  /**
+   * Gets the executor running the lazy loads that cannot use the executor of the session that read the result object.
+   *
+   * @return the executor, or <code>null</code> if such loads run on the calling thread
+   * @since 3.5.8
+   */
+  public ExecutorService getLazyLoadingExecutor() {
+    return lazyLoadingExecutor;
+  }
+
+  /**
+   * Sets the executor running the lazy loads that cannot use the executor of the session that read the result object,
+   * i.e. loads triggered from another thread or once the session is closed. Each of these loads opens its own
+   * connection, so a bounded pool bounds the number of connections they use; the calling thread waits for its load.
+   *
+   * @param lazyLoadingExecutor
+   *          the executor, <code>null</code> to run such loads on the calling thread
+   * @since 3.5.8
+   */
+  public void setLazyLoadingExecutor(ExecutorService lazyLoadingExecutor) {
+    this.lazyLoadingExecutor = lazyLoadingExecutor;
+  }
+
+  /**
+   * Gets the executor running the statements of {@link AsyncSqlSession}s.
+   *
+   * @return the executor, or <code>null</code> to use the default one
+   * @since 3.5.8
+   */
+  public ExecutorService getAsyncExecutor() {
+    return asyncExecutor;
+  }
+
+  /**
+   * Sets the executor running the statements of {@link AsyncSqlSession}s. By default a new virtual thread runs each
+   * statement on JDKs supporting them, and a shared pool of daemon threads is used otherwise.
+   *
+   * @param asyncExecutor
+   *          the executor, <code>null</code> to use the default one
+   * @since 3.5.8
+   */
+  public void setAsyncExecutor(ExecutorService asyncExecutor) {
+    this.asyncExecutor = asyncExecutor;
+  }
+
   public String getDatabaseId() {
     return databaseId;
   }
@@ -401,6 +803,30 @@ public class Configuration {
     this.proxyFactory = proxyFactory;
   }
 
+  /**
+   * Gets the serializer used to copy objects of read-write caches.
+   *
+   * @return the cache serializer
+   * @since 3.5.8
+   */
+  public CacheSerializer getCacheSerializer() {
+    return cacheSerializer;
+  }
+
+  /**
+   * Sets the serializer used to copy objects of read-write caches. It has to be set before mappers are loaded.
+   *
+   * @param cacheSerializer
+   *          the cache serializer, <code>null</code> for Java serialization
+   * @since 3.5.8
+   */
+  public void setCacheSerializer(CacheSerializer cacheSerializer) {
+    if (cacheSerializer == null) {
+      cacheSerializer = new JavaCacheSerializer();
+    }
+    this.cacheSerializer = cacheSerializer;
+  }
+
   public boolean isAggressiveLazyLoading() {
     return aggressiveLazyLoading;
   }
@@ -561,6 +987,16 @@ public class Configuration {
     return mapperRegistry;
   }
 
+  /**
+   * Gets the versions of the tables declared by the <code>cacheTables</code> of mapped statements.
+   *
+   * @return the table versions
+   * @since 3.5.8
+   */
+  public TableVersions getTableVersions() {
+    return tableVersions;
+  }
+
   public ReflectorFactory getReflectorFactory() {
     return reflectorFactory;
   }
@@ -722,6 +1158,62 @@ public class Configuration {
     return caches.containsKey(id);
   }
 
+  /**
+   * Gets a row mapper compiled for a result map and a result set column layout.
+   *
+   * @param key
+   *          the row mapper key
+   * @return the compiled row mapper, or <code>null</code> if it has not been compiled yet
+   * @since 3.5.8
+   */
+  public CompiledRowMapper getCompiledRowMapper(String key) {
+    return compiledRowMappers.get(key);
+  }
+
+  /**
+   * Adds a row mapper compiled for a result map and a result set column layout. It is not kept once 1024 row mappers
+   * are.
+   *
+   * @param key
+   *          the row mapper key
+   * @param rowMapper
+   *          the compiled row mapper
+   * @since 3.5.8
+   */
+  public void addCompiledRowMapper(String key, CompiledRowMapper rowMapper) {
+    if (compiledRowMappers.size() < MAX_COMPILED_MAPPERS) {
+      compiledRowMappers.putIfAbsent(key, rowMapper);
+    }
+  }
+
+  /**
+   * Gets a parameter binder compiled for a statement, a parameter type and parameter properties.
+   *
+   * @param key
+   *          the parameter binder key
+   * @return the compiled parameter binder, or <code>null</code> if it has not been compiled yet
+   * @since 3.5.8
+   */
+  public CompiledParameterBinder getCompiledParameterBinder(CompiledParameterBinder.Key key) {
+    return compiledParameterBinders.get(key);
+  }
+
+  /**
+   * Adds a parameter binder compiled for a statement, a parameter type and parameter properties. It is not kept once
+   * 1024 parameter binders are.
+   *
+   * @param key
+   *          the parameter binder key
+   * @param binder
+   *          the compiled parameter binder
+   * @since 3.5.8
+   */
+  public void addCompiledParameterBinder(CompiledParameterBinder.Key key, CompiledParameterBinder binder) {
+    if (compiledParameterBinders.size() < MAX_COMPILED_MAPPERS) {
+      compiledParameterBinders.putIfAbsent(key, binder);
+    }
+  }
+
   public void addResultMap(ResultMap rm) {
     resultMaps.put(rm.getId(), rm);
     checkLocallyForDiscriminatedNestedResultMaps(rm);
@@ -766,6 +1258,7 @@ public class Configuration {
 
   public void addMappedStatement(MappedStatement ms) {
     mappedStatements.put(ms.getId(), ms);
+    tableVersions.addMappedStatement(ms);
   }
 
   public Collection<String> getMappedStatementNames() {
@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.Publisher;
 import org.apache.ibatis.executor.BatchResult;
 
 /**
@@ -144,6 +145,39 @@ public interface SqlSession extends Closeable {
    */
   <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds);
 
+  /**
+   * A Publisher offers the same results as a Cursor, except it only fetches the rows its subscriber requests.
+   * @param <T> the returned publisher element type.
+   * @param statement Unique identifier matching the statement to use.
+   * @return Publisher of mapped objects
+   * @since 3.5.8
+   */
+  <T> Publisher<T> selectPublisher(String statement);
+
+  /**
+   * A Publisher offers the same results as a Cursor, except it only fetches the rows its subscriber requests.
+   * @param <T> the returned publisher element type.
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @return Publisher of mapped objects
+   * @since 3.5.8
+   */
+  <T> Publisher<T> selectPublisher(String statement, Object parameter);
+
+  /**
+   * A Publisher offers the same results as a Cursor, except it only fetches the rows its subscriber requests.
+   * <p>
+   * The statement is executed on the first request and rows are emitted on the requesting thread, so this session
+   * must stay open and must not be used by another thread until the subscription ends.
+   * @param <T> the returned publisher element type.
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param rowBounds  Bounds to limit object retrieval
+   * @return Publisher of mapped objects
+   * @since 3.5.8
+   */
+  <T> Publisher<T> selectPublisher(String statement, Object parameter, RowBounds rowBounds);
+
   /**
    * Retrieve a single row mapped from the statement key and parameter
    * using a {@code ResultHandler}.
@@ -42,4 +42,34 @@ public interface SqlSessionFactory {
 
   Configuration getConfiguration();
 
+  /**
+   * Opens a session running its statements on the {@link Configuration#getAsyncExecutor() asynchronous executor}.
+   *
+   * @return the session
+   * @since 3.5.8
+   */
+  AsyncSqlSession openAsyncSession();
+
+  /**
+   * Opens a session running its statements on the {@link Configuration#getAsyncExecutor() asynchronous executor}.
+   *
+   * @param autoCommit
+   *          whether the statements are committed on completion
+   * @return the session
+   * @since 3.5.8
+   */
+  AsyncSqlSession openAsyncSession(boolean autoCommit);
+
+  /**
+   * Opens a session running its statements on the {@link Configuration#getAsyncExecutor() asynchronous executor}.
+   *
+   * @param execType
+   *          the executor type of the underlying session
+   * @param autoCommit
+   *          whether the statements are committed on completion
+   * @return the session
+   * @since 3.5.8
+   */
+  AsyncSqlSession openAsyncSession(ExecutorType execType, boolean autoCommit);
+
 }
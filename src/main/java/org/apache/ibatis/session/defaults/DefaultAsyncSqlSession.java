@@ -0,0 +1,250 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session.defaults;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.session.AsyncSqlSession;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionException;
+
+/**
+ * The default implementation for {@link AsyncSqlSession}.
+ * <p>
+ * Each operation is chained to the previous one, so that the wrapped {@link SqlSession}, which is not thread safe, is
+ * only used by one thread at a time and always sees the effects of the operations submitted before.
+ *
+ * @since 3.5.8
+ */
+public class DefaultAsyncSqlSession implements AsyncSqlSession {
+
+  private final SqlSession sqlSession;
+  private final ExecutorService executor;
+  private final ReentrantLock lock = new ReentrantLock();
+  private CompletableFuture<?> lastOperation = CompletableFuture.completedFuture(null);
+  private boolean closed;
+
+  /**
+   * @param sqlSession
+   *          the session running the statements
+   * @param executor
+   *          the executor running the statements, <code>null</code> to use the default one
+   */
+  public DefaultAsyncSqlSession(SqlSession sqlSession, ExecutorService executor) {
+    this.sqlSession = sqlSession;
+    this.executor = executor == null ? DefaultExecutorHolder.EXECUTOR : executor;
+  }
+
+  @Override
+  public <T> CompletableFuture<T> selectOne(String statement) {
+    return submit(session -> session.selectOne(statement));
+  }
+
+  @Override
+  public <T> CompletableFuture<T> selectOne(String statement, Object parameter) {
+    return submit(session -> session.selectOne(statement, parameter));
+  }
+
+  @Override
+  public <E> CompletableFuture<List<E>> selectList(String statement) {
+    return submit(session -> session.selectList(statement));
+  }
+
+  @Override
+  public <E> CompletableFuture<List<E>> selectList(String statement, Object parameter) {
+    return submit(session -> session.selectList(statement, parameter));
+  }
+
+  @Override
+  public <E> CompletableFuture<List<E>> selectList(String statement, Object parameter, RowBounds rowBounds) {
+    return submit(session -> session.selectList(statement, parameter, rowBounds));
+  }
+
+  @Override
+  public <K, V> CompletableFuture<Map<K, V>> selectMap(String statement, Object parameter, String mapKey) {
+    return submit(session -> session.selectMap(statement, parameter, mapKey));
+  }
+
+  @Override
+  public CompletableFuture<Integer> insert(String statement, Object parameter) {
+    return submit(session -> session.insert(statement, parameter));
+  }
+
+  @Override
+  public CompletableFuture<Integer> update(String statement, Object parameter) {
+    return submit(session -> session.update(statement, parameter));
+  }
+
+  @Override
+  public CompletableFuture<Integer> delete(String statement, Object parameter) {
+    return submit(session -> session.delete(statement, parameter));
+  }
+
+  @Override
+  public CompletableFuture<Void> commit() {
+    return submit(session -> {
+      session.commit();
+      return null;
+    });
+  }
+
+  @Override
+  public CompletableFuture<Void> rollback() {
+    return submit(session -> {
+      session.rollback();
+      return null;
+    });
+  }
+
+  @Override
+  public CompletableFuture<List<BatchResult>> flushStatements() {
+    return submit(SqlSession::flushStatements);
+  }
+
+  @Override
+  public <T> CompletableFuture<T> submit(Function<SqlSession, T> operation) {
+    lock.lock();
+    try {
+      if (closed) {
+        CompletableFuture<T> rejected = new CompletableFuture<>();
+        rejected.completeExceptionally(new SqlSessionException("Error submitting statement.  Cause: The AsyncSqlSession is closed."));
+        return rejected;
+      }
+      CompletableFuture<T> result = lastOperation.handle((value, failure) -> null)
+          .thenApplyAsync(ignored -> operation.apply(sqlSession), executor);
+      lastOperation = result;
+      // a caller cancelling its future must not let the next operation start before this one ends
+      return result.thenApply(Function.identity());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T getMapper(Class<T> type) {
+    T mapper = sqlSession.getMapper(type);
+    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[] { type }, new AsyncMapperHandler(mapper));
+  }
+
+  @Override
+  public Configuration getConfiguration() {
+    return sqlSession.getConfiguration();
+  }
+
+  @Override
+  public void close() {
+    CompletableFuture<Void> closing;
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closing = submit(session -> {
+        session.close();
+        return null;
+      });
+      closed = true;
+    } finally {
+      lock.unlock();
+    }
+    try {
+      closing.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw e;
+    }
+  }
+
+  private class AsyncMapperHandler implements InvocationHandler {
+
+    private final Object mapper;
+
+    AsyncMapperHandler(Object mapper) {
+      this.mapper = mapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if (Object.class.equals(method.getDeclaringClass())) {
+        return method.invoke(this, args);
+      }
+      CompletableFuture<Object> result = submit(session -> invokeMapper(method, args));
+      if (CompletableFuture.class.equals(method.getReturnType())) {
+        // the mapper method returns the future of its statement, which has already run
+        return result.thenCompose(
+            future -> future == null ? CompletableFuture.completedFuture(null) : (CompletableFuture<Object>) future);
+      }
+      try {
+        return result.join();
+      } catch (CompletionException e) {
+        throw e.getCause();
+      }
+    }
+
+    private Object invokeMapper(Method method, Object[] args) {
+      try {
+        return method.invoke(mapper, args);
+      } catch (IllegalAccessException | InvocationTargetException e) {
+        Throwable cause = ExceptionUtil.unwrapThrowable(e);
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        throw new CompletionException(cause);
+      }
+    }
+  }
+
+  private static class DefaultExecutorHolder {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private static ExecutorService createExecutor() {
+      try {
+        // virtual threads are only available from Java 21
+        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      } catch (ReflectiveOperationException e) {
+        return Executors.newCachedThreadPool(runnable -> {
+          Thread thread = new Thread(runnable, "mybatis-async-" + THREAD_COUNT.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
+    }
+  }
+
+}
@@ -0,0 +1,93 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.junit.platform.launcher.LauncherDiscoveryRequest;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+import org.junit.platform.launcher.listeners.TestExecutionSummary;
+
+/**
+ * Runs integration tests of the code that blocks while holding a lock (pooled connections, blocking caches, lazy
+ * loading) on a virtual thread and fails if they pin its carrier thread.
+ * <p>
+ * Pinning is reported by <code>-Djdk.tracePinnedThreads</code>, so this test only runs on Java 21 and later with that
+ * option, which the <code>virtual-threads</code> profile sets.
+ */
+@EnabledIf("isPinningTraced")
+class VirtualThreadPinningTest {
+
+  private static final String[] TEST_CLASSES = { "org.apache.ibatis.jdbc.PooledDataSourceTest",
+      "org.apache.ibatis.datasource.unpooled.UnpooledDataSourceTest",
+      "org.apache.ibatis.submitted.blocking_cache.BlockingCacheTest", "org.apache.ibatis.submitted.cache.CacheTest",
+      "org.apache.ibatis.submitted.lazy_loading_executor.LazyLoadingExecutorTest",
+      "org.apache.ibatis.submitted.lazy_properties.LazyPropertiesTest",
+      "org.apache.ibatis.executor.loader.JavassistProxyTest", "org.apache.ibatis.executor.loader.GeneratedProxyTest" };
+
+  static boolean isPinningTraced() {
+    String version = System.getProperty("java.specification.version");
+    return !version.startsWith("1.") && Integer.parseInt(version) >= 21
+        && System.getProperty("jdk.tracePinnedThreads") != null;
+  }
+
+  @Test
+  void shouldNotPinCarrierThreads() throws Exception {
+    LauncherDiscoveryRequest request = LauncherDiscoveryRequestBuilder.request()
+        .selectors(Arrays.stream(TEST_CLASSES).map(name -> selectClass(name)).collect(Collectors.toList())).build();
+    SummaryGeneratingListener listener = new SummaryGeneratingListener();
+    ByteArrayOutputStream trace = new ByteArrayOutputStream();
+    PrintStream out = System.out;
+    // pinned threads are traced to System.out
+    System.setOut(new PrintStream(trace, true, StandardCharsets.UTF_8.name()));
+    try {
+      Thread thread = (Thread) Thread.class.getMethod("startVirtualThread", Runnable.class).invoke(null,
+          (Runnable) () -> LauncherFactory.create().execute(request, listener));
+      thread.join();
+    } finally {
+      System.setOut(out);
+    }
+    String output = new String(trace.toByteArray(), StandardCharsets.UTF_8);
+    out.print(output);
+
+    TestExecutionSummary summary = listener.getSummary();
+    StringWriter failures = new StringWriter();
+    summary.printFailuresTo(new PrintWriter(failures));
+    assertEquals(0, summary.getTotalFailureCount(), failures::toString);
+    assertTrue(summary.getTestsSucceededCount() > 0);
+    // monitors held by the JDBC driver are not ours to fix
+    List<String> pinningFrames = Arrays.stream(output.split("\\R"))
+        .filter(line -> line.contains("<== monitors") && line.contains("org.apache.ibatis."))
+        .collect(Collectors.toList());
+    assertTrue(pinningFrames.isEmpty(), () -> "Carrier threads pinned by " + pinningFrames);
+  }
+
+}
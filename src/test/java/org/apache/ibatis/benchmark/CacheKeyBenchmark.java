@@ -0,0 +1,180 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.reflection.ArrayUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Creation, snapshot and comparison of cache keys as done per query by the executor and per row by the nested result
+ * map handling. The <code>list*</code> benchmarks use a copy of the former {@link ArrayList} based key as baseline.
+ * Run with <code>-prof gc</code> to compare the allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheKeyBenchmark {
+
+  private final String statementId = "org.apache.ibatis.domain.blog.mappers.BlogMapper.selectBlogsWithPosts";
+  private final String sql = "select * from blog b left join post p on p.blog_id = b.id where b.id = ? and b.author_id = ?";
+  private final Object[] parameters = { 101, 102 };
+  private final CacheKey queryKey = createQueryKey();
+  private final ListCacheKey listQueryKey = createListQueryKey();
+  private final CacheKey parentRowKey = createRowKey(1);
+  private final ListCacheKey listParentRowKey = createListRowKey(1);
+
+  @Benchmark
+  public CacheKey createQueryKey() {
+    CacheKey cacheKey = new CacheKey();
+    cacheKey.update(statementId);
+    cacheKey.update(0);
+    cacheKey.update(Integer.MAX_VALUE);
+    cacheKey.update(sql);
+    for (Object parameter : parameters) {
+      cacheKey.update(parameter);
+    }
+    cacheKey.update("development");
+    return cacheKey;
+  }
+
+  @Benchmark
+  public ListCacheKey listCreateQueryKey() {
+    return createListQueryKey();
+  }
+
+  @Benchmark
+  public boolean lookupQueryKey() {
+    return createQueryKey().equals(queryKey);
+  }
+
+  @Benchmark
+  public boolean listLookupQueryKey() {
+    return createListQueryKey().equals(listQueryKey);
+  }
+
+  @Benchmark
+  public CacheKey combineRowKeys() throws CloneNotSupportedException {
+    CacheKey combinedKey = createRowKey(2).clone();
+    combinedKey.update(parentRowKey);
+    return combinedKey;
+  }
+
+  @Benchmark
+  public ListCacheKey listCombineRowKeys() {
+    ListCacheKey combinedKey = createListRowKey(2).copy();
+    combinedKey.update(listParentRowKey);
+    return combinedKey;
+  }
+
+  private CacheKey createRowKey(int id) {
+    CacheKey cacheKey = new CacheKey();
+    cacheKey.update("blogWithPosts");
+    cacheKey.update("ID");
+    cacheKey.update(id);
+    return cacheKey;
+  }
+
+  private ListCacheKey createListQueryKey() {
+    ListCacheKey cacheKey = new ListCacheKey();
+    cacheKey.update(statementId);
+    cacheKey.update(0);
+    cacheKey.update(Integer.MAX_VALUE);
+    cacheKey.update(sql);
+    for (Object parameter : parameters) {
+      cacheKey.update(parameter);
+    }
+    cacheKey.update("development");
+    return cacheKey;
+  }
+
+  private ListCacheKey createListRowKey(int id) {
+    ListCacheKey cacheKey = new ListCacheKey();
+    cacheKey.update("blogWithPosts");
+    cacheKey.update("ID");
+    cacheKey.update(id);
+    return cacheKey;
+  }
+
+  /**
+   * The cache key as implemented up to 3.5.7.
+   */
+  public static class ListCacheKey {
+    private int hashcode = 17;
+    private long checksum;
+    private int count;
+    private List<Object> updateList = new ArrayList<>();
+
+    void update(Object object) {
+      int baseHashCode = object == null ? 1 : ArrayUtil.hashCode(object);
+      count++;
+      checksum += baseHashCode;
+      baseHashCode *= count;
+      hashcode = 37 * hashcode + baseHashCode;
+      updateList.add(object);
+    }
+
+    ListCacheKey copy() {
+      ListCacheKey copy = new ListCacheKey();
+      copy.hashcode = hashcode;
+      copy.checksum = checksum;
+      copy.count = count;
+      copy.updateList = new ArrayList<>(updateList);
+      return copy;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (this == object) {
+        return true;
+      }
+      if (!(object instanceof ListCacheKey)) {
+        return false;
+      }
+      final ListCacheKey cacheKey = (ListCacheKey) object;
+      if (hashcode != cacheKey.hashcode || checksum != cacheKey.checksum || count != cacheKey.count) {
+        return false;
+      }
+      for (int i = 0; i < updateList.size(); i++) {
+        if (!ArrayUtil.equals(updateList.get(i), cacheKey.updateList.get(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashcode;
+    }
+  }
+
+}
@@ -0,0 +1,42 @@
+--
+--    Copyright 2009-2021 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+drop table post if exists;
+drop table author if exists;
+
+create table author (
+  id int primary key,
+  username varchar(32),
+  email varchar(64),
+  bio varchar(256),
+  active boolean
+);
+
+create table post (
+  id int generated by default as identity primary key,
+  author_id int,
+  created_on timestamp,
+  subject varchar(64),
+  body varchar(1024)
+);
+
+insert into author (id, username, email, bio, active)
+  select c, 'author' || c, 'author' || c || '@example.com', 'Bio of author ' || c, mod(c, 2) = 0
+  from unnest(sequence_array(1, 100, 1)) as t(c);
+
+insert into post (author_id, created_on, subject, body)
+  select a, timestamp '2021-01-01 00:00:00', 'Subject ' || p, 'Body of post ' || p || ' by author ' || a
+  from unnest(sequence_array(1, 100, 1)) as ta(a), unnest(sequence_array(1, 5, 1)) as tp(p);
@@ -0,0 +1,86 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link org.apache.ibatis.scripting.xmltags.DynamicSqlSource#getBoundSql(Object)} of a statement with
+ * <code>&lt;where&gt;</code>, <code>&lt;if&gt;</code> and <code>&lt;foreach&gt;</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DynamicSqlSourceBenchmark {
+
+  @Param({ "1", "10", "100" })
+  private int ids;
+
+  @Param({ "false", "true" })
+  private boolean planCache;
+
+  @Param({ "false", "true" })
+  private boolean compiledExpressions;
+
+  private MappedStatement mappedStatement;
+  private Map<String, Object> parameter;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Configuration configuration = new Configuration();
+    configuration.setDynamicSqlPlanCacheEnabled(planCache);
+    configuration.setCompiledExpressionsEnabled(compiledExpressions);
+    configuration.addMapper(BenchmarkMapper.class);
+    mappedStatement = configuration.getMappedStatement("org.apache.ibatis.benchmark.BenchmarkMapper.findAuthors");
+    List<Integer> idList = new ArrayList<>();
+    for (int i = 1; i <= ids; i++) {
+      idList.add(i);
+    }
+    parameter = new HashMap<>();
+    parameter.put("username", "author%");
+    parameter.put("ids", idList);
+    parameter.put("active", null);
+  }
+
+  @Benchmark
+  public BoundSql getBoundSql() {
+    return mappedStatement.getBoundSql(parameter);
+  }
+
+}
@@ -0,0 +1,83 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Dispatch overhead of {@link org.apache.ibatis.binding.MapperProxy#invoke(Object, java.lang.reflect.Method, Object[])}
+ * for a mapped method, a default method and an {@link Object} method. The session is a stub so no SQL is executed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperProxyBenchmark {
+
+  private final Integer id = 1;
+  private BenchmarkMapper mapper;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    Configuration configuration = BenchmarkDatabase.createSqlSessionFactory().getConfiguration();
+    Author author = new Author();
+    SqlSession sqlSession = (SqlSession) Proxy.newProxyInstance(getClass().getClassLoader(),
+        new Class<?>[] { SqlSession.class }, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "selectOne":
+              return author;
+            case "getConfiguration":
+              return configuration;
+            default:
+              throw new UnsupportedOperationException(method.getName());
+          }
+        });
+    mapper = configuration.getMapper(BenchmarkMapper.class, sqlSession);
+  }
+
+  @Benchmark
+  public Author mappedMethod() {
+    return mapper.getAuthor(id);
+  }
+
+  @Benchmark
+  public Author defaultMethod() {
+    return mapper.getFirstAuthor();
+  }
+
+  @Benchmark
+  public int objectMethod() {
+    return mapper.hashCode();
+  }
+
+}
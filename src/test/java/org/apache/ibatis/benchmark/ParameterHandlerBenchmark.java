@@ -0,0 +1,85 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parameter binding by {@link DefaultParameterHandler} for a point lookup and a four-column insert. The prepared
+ * statement is a stub so only the binding itself is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParameterHandlerBenchmark {
+
+  @Param({ "false", "true" })
+  private boolean compiledParameterBinding;
+
+  private final Integer id = 1;
+  private final Post post = new Post(null, 1, new Date(), "Subject", "Body");
+  private MappedStatement getAuthor;
+  private BoundSql getAuthorSql;
+  private MappedStatement insertPost;
+  private BoundSql insertPostSql;
+  private PreparedStatement ps;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    Configuration configuration = BenchmarkDatabase.createSqlSessionFactory().getConfiguration();
+    configuration.setCompiledParameterBindingEnabled(compiledParameterBinding);
+    getAuthor = configuration.getMappedStatement(BenchmarkMapper.class.getName() + ".getAuthor");
+    getAuthorSql = getAuthor.getBoundSql(id);
+    insertPost = configuration.getMappedStatement(BenchmarkMapper.class.getName() + ".insertPost");
+    insertPostSql = insertPost.getBoundSql(post);
+    ps = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+        new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> null);
+  }
+
+  @Benchmark
+  public void pointLookup() {
+    new DefaultParameterHandler(getAuthor, id, getAuthorSql).setParameters(ps);
+  }
+
+  @Benchmark
+  public void insert() {
+    new DefaultParameterHandler(insertPost, post, insertPostSql).setParameters(ps);
+  }
+
+}
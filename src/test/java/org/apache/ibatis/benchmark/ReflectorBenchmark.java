@@ -0,0 +1,88 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Property access through {@link Reflector} and {@link MetaObject} as done for every mapped column and every
+ * parameter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReflectorBenchmark {
+
+  private final ObjectFactory objectFactory = new DefaultObjectFactory();
+  private final ObjectWrapperFactory objectWrapperFactory = new DefaultObjectWrapperFactory();
+  private final ReflectorFactory reflectorFactory = new DefaultReflectorFactory();
+  private final Author author = new Author();
+
+  public ReflectorBenchmark() {
+    author.setUsername("author1");
+    author.setPosts(new ArrayList<>(Collections.singletonList(new Post(1, 1, null, "Subject 1", "Body 1"))));
+  }
+
+  @Benchmark
+  public Reflector findReflector() {
+    return reflectorFactory.findForClass(Author.class);
+  }
+
+  @Benchmark
+  public Object getProperty() {
+    return forObject(author).getValue("username");
+  }
+
+  @Benchmark
+  public MetaObject setProperty() {
+    MetaObject metaObject = forObject(author);
+    metaObject.setValue("username", "author2");
+    return metaObject;
+  }
+
+  @Benchmark
+  public Object getNestedProperty() {
+    return forObject(author).getValue("posts[0].subject");
+  }
+
+  private MetaObject forObject(Object object) {
+    return MetaObject.forObject(object, objectFactory, objectWrapperFactory, reflectorFactory);
+  }
+
+}
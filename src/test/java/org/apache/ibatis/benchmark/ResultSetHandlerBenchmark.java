@@ -0,0 +1,76 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Row mapping by {@link org.apache.ibatis.executor.resultset.DefaultResultSetHandler}: 100 flat rows, and 100 authors
+ * joined with their 500 posts into a nested collection.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResultSetHandlerBenchmark {
+
+  @Param({ "false", "true" })
+  private boolean compiledRowMapping;
+
+  private SqlSession sqlSession;
+  private BenchmarkMapper mapper;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    sqlSession = BenchmarkDatabase.createSqlSessionFactory().openSession();
+    sqlSession.getConfiguration().setCompiledRowMappingEnabled(compiledRowMapping);
+    mapper = sqlSession.getMapper(BenchmarkMapper.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    sqlSession.close();
+  }
+
+  @Benchmark
+  public List<Author> simpleRows() {
+    return mapper.getAuthors();
+  }
+
+  @Benchmark
+  public List<Author> nestedRows() {
+    return mapper.getAuthorsWithPosts();
+  }
+
+}
@@ -37,6 +37,8 @@ import java.util.Properties;
 import org.apache.ibatis.builder.mapper.CustomMapper;
 import org.apache.ibatis.builder.typehandler.CustomIntegerTypeHandler;
 import org.apache.ibatis.builder.xml.XMLConfigBuilder;
+import org.apache.ibatis.cache.serializer.BinaryCacheSerializer;
+import org.apache.ibatis.cache.serializer.JavaCacheSerializer;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
 import org.apache.ibatis.domain.blog.Author;
 import org.apache.ibatis.domain.blog.Blog;
@@ -102,6 +104,19 @@ class XmlConfigBuilderTest {
       assertThat(config.getTypeHandlerRegistry().getTypeHandler(RoundingMode.class)).isInstanceOf(EnumTypeHandler.class);
       assertThat(config.isShrinkWhitespacesInSql()).isFalse();
       assertThat(config.getDefaultSqlProviderType()).isNull();
+      assertThat(config.isCompiledRowMappingEnabled()).isFalse();
+      assertThat(config.getCacheSerializer()).isInstanceOf(JavaCacheSerializer.class);
+      assertThat(config.isDynamicSqlPlanCacheEnabled()).isFalse();
+      assertThat(config.isCompiledExpressionsEnabled()).isFalse();
+      assertNull(config.getCursorPrefetchSize());
+      assertNull(config.getMaxReusedStatements());
+      assertNull(config.getBatchInsertRowsPerStatement());
+      assertNull(config.getBatchFlushSize());
+      assertNull(config.getBatchFlushBytes());
+      assertTrue(config.isRetainBatchParameterObjects());
+      assertThat(config.isCompiledParameterBindingEnabled()).isFalse();
+      assertNull(config.getLazyLoadingBatchSize());
+      assertNull(config.getNestedSelectBatchSize());
     }
   }
 
@@ -198,6 +213,20 @@ class XmlConfigBuilderTest {
       assertThat(config.getConfigurationFactory().getName()).isEqualTo(String.class.getName());
       assertThat(config.isShrinkWhitespacesInSql()).isTrue();
       assertThat(config.getDefaultSqlProviderType().getName()).isEqualTo(MySqlProvider.class.getName());
+      assertThat(config.isCompiledRowMappingEnabled()).isTrue();
+      assertThat(config.getCacheSerializer()).isInstanceOf(BinaryCacheSerializer.class);
+      assertThat(config.getCacheSerializer()).extracting("reflectorFactory").isSameAs(config.getReflectorFactory());
+      assertThat(config.isDynamicSqlPlanCacheEnabled()).isTrue();
+      assertThat(config.isCompiledExpressionsEnabled()).isTrue();
+      assertThat(config.getCursorPrefetchSize()).isEqualTo(64);
+      assertThat(config.getMaxReusedStatements()).isEqualTo(128);
+      assertThat(config.getBatchInsertRowsPerStatement()).isEqualTo(50);
+      assertThat(config.getBatchFlushSize()).isEqualTo(1000);
+      assertThat(config.getBatchFlushBytes()).isEqualTo(8388608L);
+      assertThat(config.isRetainBatchParameterObjects()).isFalse();
+      assertThat(config.isCompiledParameterBindingEnabled()).isTrue();
+      assertThat(config.getLazyLoadingBatchSize()).isEqualTo(25);
+      assertThat(config.getNestedSelectBatchSize()).isEqualTo(100);
 
       assertThat(config.getTypeAliasRegistry().getTypeAliases().get("blogauthor")).isEqualTo(Author.class);
       assertThat(config.getTypeAliasRegistry().getTypeAliases().get("blog")).isEqualTo(Blog.class);
@@ -23,6 +23,7 @@ import java.io.InputStream;
 import java.util.regex.Pattern;
 
 import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ResultSetType;
@@ -62,6 +63,26 @@ class XmlMapperBuilderTest {
     }
   }
 
+  @Test
+  void mappedStatementWithCacheTimeToLive() throws Exception {
+    Configuration configuration = new Configuration();
+    String resource = "org/apache/ibatis/builder/ExpiringAuthorMapper.xml";
+    try (InputStream inputStream = Resources.getResourceAsStream(resource)) {
+      XMLMapperBuilder builder = new XMLMapperBuilder(inputStream, configuration, resource, configuration.getSqlFragments());
+      builder.parse();
+
+      assertThat(configuration.getMappedStatement("selectAuthor").getCacheTimeToLive()).isEqualTo(60000L);
+      assertThat(configuration.getMappedStatement("selectAllAuthors").getCacheTimeToLive()).isNull();
+      // the cache expires entries although it has no time to live of its own
+      Cache cache = configuration.getCache("org.apache.ibatis.builder.ExpiringAuthorMapper");
+      cache.putObject("expiring", "value", 10);
+      cache.putObject("permanent", "value");
+      Thread.sleep(50);
+      assertThat(cache.getObject("expiring")).isNull();
+      assertThat(cache.getObject("permanent")).isEqualTo("value");
+    }
+  }
+
   @Test
   void mappedStatementWithoutOptionsWhenSpecifyDefaultValue() throws Exception {
     Configuration configuration = new Configuration();
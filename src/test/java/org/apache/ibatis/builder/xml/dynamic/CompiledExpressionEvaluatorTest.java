@@ -0,0 +1,172 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.builder.xml.dynamic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.scripting.xmltags.DynamicContext;
+import org.apache.ibatis.scripting.xmltags.ExpressionEvaluator;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class CompiledExpressionEvaluatorTest {
+
+  private static final String[] BOOLEAN_EXPRESSIONS = {
+      "name != null", "name == null", "name == 'Steve'", "name neq 'Bob'", "'Steve' == name", "missing == null",
+      "id > 0", "id >= 1", "id < 1", "id lte 1", "id == 1L", "id == 1.0", "id == '1'", "ratio > 0.5",
+      "name != null and name.length() > 3", "name == null or name.isEmpty()", "!active", "not active and id != 0",
+      "ids != null and ids.size() > 0", "ids.isEmpty()", "map.size", "map.isEmpty", "map.key == 'value'", "map.none",
+      "author.username == 'cbegin'", "author.favouriteSection == null", "author.id", "author.bio != null and ids",
+      "ids.size() == map.size() or name", "empty.isEmpty() and empty.length() == 0", "0", "'x'", "null", "true",
+      "section == 'NEWS'", "_parameter.name", "_parameter != null", "ids[0] == 1", "ids.size == 3",
+      "@java.lang.Integer@MAX_VALUE > id", "name.substring(1) == 'teve'", "id + 1 == 2", "name in {'Bob', 'Steve'}" };
+
+  private static final String[] ITERABLE_EXPRESSIONS = { "ids", "map", "array", "map.keys", "_parameter.ids" };
+
+  private final ExpressionEvaluator ognlEvaluator = new ExpressionEvaluator();
+  private final ExpressionEvaluator compiledEvaluator = new ExpressionEvaluator(true);
+
+  @Test
+  void shouldEvaluateLikeOgnl() {
+    for (String expression : BOOLEAN_EXPRESSIONS) {
+      assertEquals(evaluateBoolean(ognlEvaluator, expression), evaluateBoolean(compiledEvaluator, expression),
+          expression);
+    }
+  }
+
+  @Test
+  void shouldEvaluateIterablesLikeOgnl() {
+    for (String expression : ITERABLE_EXPRESSIONS) {
+      assertEquals(iterableToString(ognlEvaluator.evaluateIterable(expression, bindings())),
+          iterableToString(compiledEvaluator.evaluateIterable(expression, bindings())), expression);
+    }
+  }
+
+  @Test
+  void shouldReportOgnlErrorForPropertyOfNull() {
+    Map<String, Object> bindings = bindings();
+    BuilderException ognlError = assertThrows(BuilderException.class,
+        () -> ognlEvaluator.evaluateBoolean("nothing.name != null", bindings));
+    BuilderException compiledError = assertThrows(BuilderException.class,
+        () -> compiledEvaluator.evaluateBoolean("nothing.name != null", bindings));
+    assertEquals(ognlError.getMessage(), compiledError.getMessage());
+  }
+
+  @Test
+  void shouldKeepEvaluatingAfterFallingBackToOgnl() {
+    Map<String, Object> listItems = new HashMap<>();
+    listItems.put("value", new ArrayList<>(Arrays.asList(1, 2)));
+    Map<String, Object> bindings = new DynamicContext(new Configuration(), listItems).getBindings();
+    // a property of a list is not compiled
+    assertEquals(true, compiledEvaluator.evaluateBoolean("value.size == 2", bindings));
+    assertEquals(false, compiledEvaluator.evaluateBoolean("value.size == 3", bindings));
+  }
+
+  @Test
+  void shouldOnlyFallBackToOgnlForTheValueNotCompiled() {
+    CountingBean bean = new CountingBean();
+    Map<String, Object> bindings = new DynamicContext(new Configuration(), bean).getBindings();
+    // a property of a list is not compiled, a property of a map is
+    bean.value = Collections.singletonList("x");
+    assertEquals(true, compiledEvaluator.evaluateBoolean("value.size == 1", bindings));
+    bean.value = new HashMap<>(bindings());
+    assertEquals(false, compiledEvaluator.evaluateBoolean("value.size == 1", bindings));
+    bean.value = new CountingBean();
+    assertEquals(true, compiledEvaluator.evaluateBoolean("value.name == 'name'", bindings));
+    assertEquals(1, ((CountingBean) bean.value).nameReads);
+    bean.value = Collections.singletonList("x");
+    assertEquals(true, compiledEvaluator.evaluateBoolean("value.size == 1", bindings));
+    bean.value = Collections.emptyMap();
+    assertEquals(false, compiledEvaluator.evaluateBoolean("value.size == 1", bindings));
+  }
+
+  @Test
+  void shouldCallFailingGetterOnceAndReportItLikeOgnl() {
+    for (String expression : new String[] { "failing != null", "value.failing != null" }) {
+      CountingBean ognlBean = new CountingBean();
+      ognlBean.value = new CountingBean();
+      RuntimeException ognlError = assertThrows(RuntimeException.class, () -> ognlEvaluator
+          .evaluateBoolean(expression, new DynamicContext(new Configuration(), ognlBean).getBindings()));
+      CountingBean compiledBean = new CountingBean();
+      compiledBean.value = new CountingBean();
+      RuntimeException compiledError = assertThrows(RuntimeException.class, () -> compiledEvaluator
+          .evaluateBoolean(expression, new DynamicContext(new Configuration(), compiledBean).getBindings()));
+      assertEquals(ognlError.toString(), compiledError.toString(), expression);
+      assertEquals(1, compiledBean.failingReads + ((CountingBean) compiledBean.value).failingReads, expression);
+    }
+  }
+
+  public static class CountingBean {
+    private Object value;
+    private int nameReads;
+    private int failingReads;
+
+    public Object getValue() {
+      return value;
+    }
+
+    public String getName() {
+      nameReads++;
+      return "name";
+    }
+
+    public Object getFailing() {
+      failingReads++;
+      throw new IllegalStateException("failing getter");
+    }
+  }
+
+  private Object evaluateBoolean(ExpressionEvaluator evaluator, String expression) {
+    try {
+      return evaluator.evaluateBoolean(expression, bindings());
+    } catch (RuntimeException e) {
+      return e.toString();
+    }
+  }
+
+  private Map<String, Object> bindings() {
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("name", "Steve");
+    parameter.put("id", 1);
+    parameter.put("ratio", 0.75);
+    parameter.put("active", Boolean.FALSE);
+    parameter.put("ids", new ArrayList<>(Arrays.asList(1, 2, 3)));
+    parameter.put("array", new int[] { 4, 5 });
+    parameter.put("empty", "");
+    parameter.put("section", Section.NEWS);
+    parameter.put("map", new HashMap<>(Collections.singletonMap("key", "value")));
+    parameter.put("author", new Author(1, "cbegin", null, "cbegin@apache.org", "N/A", null));
+    parameter.put("nothing", null);
+    return new DynamicContext(new Configuration(), parameter).getBindings();
+  }
+
+  private String iterableToString(Iterable<?> iterable) {
+    StringBuilder builder = new StringBuilder();
+    iterable.forEach(item -> builder.append(item).append(','));
+    return builder.toString();
+  }
+
+}
@@ -16,12 +16,14 @@
 package org.apache.ibatis.builder.xml.dynamic;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import java.io.IOException;
 import java.io.Reader;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +38,7 @@ import org.apache.ibatis.scripting.xmltags.IfSqlNode;
 import org.apache.ibatis.scripting.xmltags.MixedSqlNode;
 import org.apache.ibatis.scripting.xmltags.SetSqlNode;
 import org.apache.ibatis.scripting.xmltags.SqlNode;
+import org.apache.ibatis.scripting.xmltags.StaticTextSqlNode;
 import org.apache.ibatis.scripting.xmltags.TextSqlNode;
 import org.apache.ibatis.scripting.xmltags.WhereSqlNode;
 import org.apache.ibatis.session.Configuration;
@@ -376,6 +379,65 @@ class DynamicSqlSourceTest extends BaseDataTest {
     assertEquals("__frch_u_0", boundSql.getParameterMappings().get(3).getProperty());
   }
 
+  @Test
+  void shouldReuseSqlPlanForSameShape() throws Exception {
+    DynamicSqlSource source = createPlannedDynamicSqlSource(
+        new StaticTextSqlNode("SELECT * FROM BLOG"),
+        new WhereSqlNode(new Configuration(), mixedContents(
+            new IfSqlNode(mixedContents(new StaticTextSqlNode("AND title = #{title}")), "title != null"),
+            new ForEachSqlNode(new Configuration(), mixedContents(new StaticTextSqlNode("#{id}")), "ids", null, "id",
+                "AND id in (", ")", ","))));
+    Map<String, Object> parameterObject = new HashMap<>();
+    parameterObject.put("title", "Title");
+    parameterObject.put("ids", Arrays.asList(1, 2));
+    BoundSql first = source.getBoundSql(parameterObject);
+    assertEquals("SELECT * FROM BLOG WHERE  title = ?AND id in (?,?)", first.getSql());
+
+    parameterObject.put("ids", Arrays.asList(3, 4));
+    BoundSql second = source.getBoundSql(parameterObject);
+    assertEquals(first.getSql(), second.getSql());
+    assertSame(first.getParameterMappings(), second.getParameterMappings());
+    assertEquals(3, second.getAdditionalParameter("__frch_id_0"));
+    assertEquals(4, second.getAdditionalParameter("__frch_id_1"));
+
+    parameterObject.put("title", null);
+    parameterObject.put("ids", Arrays.asList(5, 6, 7));
+    BoundSql third = source.getBoundSql(parameterObject);
+    assertEquals("SELECT * FROM BLOG WHERE  id in (?,?,?)", third.getSql());
+    assertEquals(3, third.getParameterMappings().size());
+    assertEquals("__frch_id_2", third.getParameterMappings().get(2).getProperty());
+  }
+
+  @Test
+  void shouldRebuildSqlPlanWhenBoundValueTypeChanges() throws Exception {
+    DynamicSqlSource source = createPlannedDynamicSqlSource(
+        new StaticTextSqlNode("SELECT * FROM BLOG WHERE id in"),
+        new ForEachSqlNode(new Configuration(), mixedContents(new StaticTextSqlNode("#{id}")), "list", null, "id",
+            "(", ")", ","));
+    BoundSql integers = source.getBoundSql(Collections.singletonMap("list", Arrays.asList(1, 2)));
+    assertEquals(Integer.class, integers.getParameterMappings().get(0).getJavaType());
+    BoundSql strings = source.getBoundSql(Collections.singletonMap("list", Arrays.asList("1", "2")));
+    assertEquals(integers.getSql(), strings.getSql());
+    assertEquals(String.class, strings.getParameterMappings().get(0).getJavaType());
+  }
+
+  @Test
+  void shouldNotReuseSqlPlanWhenSqlDependsOnParameterValues() throws Exception {
+    DynamicSqlSource source = createPlannedDynamicSqlSource(
+        new StaticTextSqlNode("SELECT * FROM BLOG"),
+        new IfSqlNode(mixedContents(new TextSqlNode("ORDER BY ${orderBy}")), "orderBy != null"));
+    assertEquals("SELECT * FROM BLOG ORDER BY id",
+        source.getBoundSql(Collections.singletonMap("orderBy", "id")).getSql());
+    assertEquals("SELECT * FROM BLOG ORDER BY title",
+        source.getBoundSql(Collections.singletonMap("orderBy", "title")).getSql());
+  }
+
+  private DynamicSqlSource createPlannedDynamicSqlSource(SqlNode... contents) {
+    Configuration configuration = new Configuration();
+    configuration.setDynamicSqlPlanCacheEnabled(true);
+    return new DynamicSqlSource(configuration, mixedContents(contents));
+  }
+
   private DynamicSqlSource createDynamicSqlSource(SqlNode... contents) throws IOException, SQLException {
     createBlogDataSource();
     final String resource = "org/apache/ibatis/builder/MapperConfig.xml";
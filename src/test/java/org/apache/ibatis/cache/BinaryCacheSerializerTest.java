@@ -0,0 +1,198 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.serializer.BinaryCacheSerializer;
+import org.apache.ibatis.cache.serializer.CacheSerializer;
+import org.apache.ibatis.cache.serializer.JavaCacheSerializer;
+import org.junit.jupiter.api.Test;
+
+class BinaryCacheSerializerTest {
+
+  private final CacheSerializer serializer = new BinaryCacheSerializer();
+
+  @Test
+  void shouldCopyValueTypes() {
+    Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+    timestamp.setNanos(123456789);
+    List<Object> values = Arrays.asList(null, "text", 1, 2L, 3.0d, 4.0f, (short) 5, (byte) 6, 'c', true,
+        new BigDecimal("123.450"), timestamp, new java.util.Date(), new java.sql.Date(0L), LocalDateTime.now(),
+        Kind.B, new int[] { 1, 2 });
+    for (Object value : values) {
+      Object copy = serializer.deserialize(serializer.serialize(value));
+      if (value instanceof int[]) {
+        assertArrayEquals((int[]) value, (int[]) copy);
+      } else {
+        assertEquals(value, copy);
+      }
+    }
+    assertArrayEquals(new byte[] { 1, 2 }, (byte[]) serializer.deserialize(serializer.serialize(new byte[] { 1, 2 })));
+  }
+
+  @Test
+  void shouldCopyBeansThatAreNotSerializable() {
+    Label label = new Label();
+    label.setText("Jane");
+    label.setKind(Kind.A);
+    label.tags.add("x");
+
+    Label copy = (Label) serializer.deserialize(serializer.serialize(label));
+    assertNotSame(label, copy);
+    assertEquals("Jane", copy.getText());
+    assertEquals(Kind.A, copy.getKind());
+    assertEquals(Collections.singletonList("x"), copy.tags);
+  }
+
+  @Test
+  void shouldPreserveSharedAndCircularReferences() {
+    Person parent = new Person();
+    parent.setName("parent");
+    Person child = new Person();
+    child.setName("child");
+    child.setParent(parent);
+    parent.getChildren().add(child);
+    List<Person> list = new ArrayList<>(Arrays.asList(parent, child, parent));
+
+    @SuppressWarnings("unchecked")
+    List<Person> copy = (List<Person>) serializer.deserialize(serializer.serialize(list));
+    assertEquals(3, copy.size());
+    assertSame(copy.get(0), copy.get(2));
+    assertSame(copy.get(0), copy.get(1).getParent());
+    assertSame(copy.get(1), copy.get(0).getChildren().get(0));
+  }
+
+  @Test
+  void shouldCopyMapsAndFallBackToJavaSerialization() {
+    Map<String, Object> map = new HashMap<>();
+    map.put("sorted", new TreeSet<>(Arrays.asList(3, 1, 2)));
+    map.put("immutable", Collections.unmodifiableList(Arrays.asList("a", "b")));
+    map.put("array", new String[] { "c", null });
+
+    @SuppressWarnings("unchecked")
+    Map<String, Object> copy = (Map<String, Object>) serializer.deserialize(serializer.serialize(map));
+    assertEquals(map.get("sorted"), copy.get("sorted"));
+    assertEquals(map.get("immutable"), copy.get("immutable"));
+    assertArrayEquals((String[]) map.get("array"), (String[]) copy.get("array"));
+  }
+
+  @Test
+  void shouldBeUsableBySerializedCache() {
+    Cache cache = new SerializedCache(new PerpetualCache("default"), serializer);
+    Person person = new Person();
+    person.setName("John");
+    cache.putObject(0, person);
+    Person copy = (Person) cache.getObject(0);
+    assertEquals("John", copy.getName());
+    assertNotSame(person, copy);
+  }
+
+  @Test
+  void shouldProduceSmallerOutputThanJavaSerializationForBeans() {
+    List<Person> people = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      Person person = new Person();
+      person.setName("name" + i);
+      person.setAge(i);
+      people.add(person);
+    }
+    int binary = serializer.serialize(people).length;
+    int java = new JavaCacheSerializer().serialize(people).length;
+    assertTrue(binary < java, binary + " >= " + java);
+  }
+
+  enum Kind {
+    A, B
+  }
+
+  public static class Label {
+    private String text;
+    private Kind kind;
+    private List<String> tags = new ArrayList<>();
+
+    public String getText() {
+      return text;
+    }
+
+    public void setText(String text) {
+      this.text = text;
+    }
+
+    public Kind getKind() {
+      return kind;
+    }
+
+    public void setKind(Kind kind) {
+      this.kind = kind;
+    }
+  }
+
+  public static class Person implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private String name;
+    private int age;
+    private Person parent;
+    private List<Person> children = new ArrayList<>();
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public int getAge() {
+      return age;
+    }
+
+    public void setAge(int age) {
+      this.age = age;
+    }
+
+    public Person getParent() {
+      return parent;
+    }
+
+    public void setParent(Person parent) {
+      this.parent = parent;
+    }
+
+    public List<Person> getChildren() {
+      return children;
+    }
+
+    public void setChildren(List<Person> children) {
+      this.children = children;
+    }
+  }
+
+}
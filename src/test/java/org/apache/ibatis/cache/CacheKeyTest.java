@@ -22,6 +22,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.NotSerializableException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.Base64;
 import java.util.Date;
 
 import org.junit.jupiter.api.Test;
@@ -106,6 +107,33 @@ class CacheKeyTest {
     assertEquals(cacheKey.hashCode(), clonedCacheKey.hashCode());
   }
 
+  @Test
+  void shouldNotAffectClonesWhenUpdated() throws Exception {
+    CacheKey cacheKey = new CacheKey(new Object[] { "a", "b" });
+    CacheKey clonedCacheKey = cacheKey.clone();
+    assertEquals(cacheKey, clonedCacheKey);
+    cacheKey.update("c");
+    clonedCacheKey.update("d");
+    assertNotEquals(cacheKey, clonedCacheKey);
+    assertEquals(new CacheKey(new Object[] { "a", "b", "c" }), cacheKey);
+    assertEquals(new CacheKey(new Object[] { "a", "b", "d" }), clonedCacheKey);
+    assertEquals("c", cacheKey.toString().substring(cacheKey.toString().lastIndexOf(':') + 1));
+  }
+
+  @Test
+  void shouldGrowBeyondInitialCapacity() {
+    CacheKey key1 = new CacheKey();
+    CacheKey key2 = new CacheKey();
+    for (int i = 0; i < 100; i++) {
+      key1.update(i);
+      key2.update(i);
+    }
+    assertEquals(100, key1.getUpdateCount());
+    assertEquals(key1, key2);
+    key2.update(100);
+    assertNotEquals(key1, key2);
+  }
+
   @Test
   void serializationExceptionTest() {
     CacheKey cacheKey = new CacheKey();
@@ -122,6 +150,24 @@ class CacheKeyTest {
     assertEquals(cacheKey, serialize(cacheKey));
   }
 
+  @Test
+  void shouldReadKeysSerializedByTheListBasedImplementation() throws Exception {
+    // a key of "select * from users where id = ?", 1 and null serialized by MyBatis 3.5.7
+    String serialized = "rO0ABXNyACBvcmcuYXBhY2hlLmliYXRpcy5jYWNoZS5DYWNoZUtleQ/p1bTNM6iCAgAFSgAIY2hlY2tzdW1JAAVjb3Vu"
+        + "dEkACGhhc2hjb2RlSQAKbXVsdGlwbGllckwACnVwZGF0ZUxpc3R0ABBMamF2YS91dGlsL0xpc3Q7eHD/////8B0lJgAA"
+        + "AAML6MF+AAAAJXNyABNqYXZhLnV0aWwuQXJyYXlMaXN0eIHSHZnHYZ0DAAFJAARzaXpleHAAAAADdwQAAAADdAAgc2Vs"
+        + "ZWN0ICogZnJvbSB1c2VycyB3aGVyZSBpZCA9ID9zcgARamF2YS5sYW5nLkludGVnZXIS4qCk94GHOAIAAUkABXZhbHVl"
+        + "eHIAEGphdmEubGFuZy5OdW1iZXKGrJUdC5TgiwIAAHhwAAAAAXB4";
+    byte[] bytes = Base64.getDecoder().decode(serialized);
+    CacheKey expected = new CacheKey(new Object[] { "select * from users where id = ?", 1, null });
+    CacheKey cacheKey = (CacheKey) new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+    assertEquals(expected, cacheKey);
+    assertEquals(expected.hashCode(), cacheKey.hashCode());
+    cacheKey.update("more");
+    expected.update("more");
+    assertEquals(expected, cacheKey);
+  }
+
   private static <T> T serialize(T object) throws Exception {
       ByteArrayOutputStream baos = new ByteArrayOutputStream();
       new ObjectOutputStream(baos).writeObject(object);
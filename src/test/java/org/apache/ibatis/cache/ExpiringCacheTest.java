@@ -0,0 +1,169 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.apache.ibatis.cache.decorators.ExpiringCache;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.TransactionalCache;
+import org.apache.ibatis.cache.decorators.WeightedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.junit.jupiter.api.Test;
+
+class ExpiringCacheTest {
+
+  @Test
+  void shouldExpireEachEntryOnItsOwn() throws Exception {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.setTimeToLive(100);
+    cache.putObject(0, 0);
+    cache.putObject(1, 1, 60000);
+    Thread.sleep(50);
+    cache.putObject(2, 2);
+    assertEquals(3, cache.getSize());
+    Thread.sleep(75);
+    assertNull(cache.getObject(0));
+    assertEquals(1, cache.getObject(1));
+    assertEquals(2, cache.getObject(2));
+    assertEquals(2, cache.getSize());
+  }
+
+  @Test
+  void shouldNotExpireEntriesWithoutTimeToLive() throws Exception {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.putObject(0, 0);
+    cache.putObject(1, 1, 50);
+    Thread.sleep(100);
+    assertEquals(0, cache.getObject(0));
+    assertNull(cache.getObject(1));
+  }
+
+  @Test
+  void shouldRestartTimeToLiveWhenPutAgain() throws Exception {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.putObject(0, "old", 50);
+    Thread.sleep(30);
+    cache.putObject(0, "new", 60000);
+    Thread.sleep(50);
+    assertEquals("new", cache.getObject(0));
+    cache.putObject(0, "forever");
+    Thread.sleep(50);
+    assertEquals("forever", cache.getObject(0));
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.setTimeToLive(60000);
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    cache.removeObject(0);
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.setTimeToLive(60000);
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldPassTimeToLiveThroughStandardDecorators() throws Exception {
+    Cache cache = new CacheBuilder("DefaultCache").timeToLive(0L).readWrite(true).blocking(true).build();
+    TransactionalCache transactionalCache = new TransactionalCache(cache);
+    assertNull(transactionalCache.getObject(0));
+    assertNull(transactionalCache.getObject(1));
+    transactionalCache.putObject(0, "expiring", 50);
+    transactionalCache.putObject(1, "permanent");
+    transactionalCache.commit();
+    assertEquals("expiring", cache.getObject(0));
+    assertEquals("permanent", cache.getObject(1));
+    Thread.sleep(100);
+    assertEquals("permanent", cache.getObject(1));
+    assertNull(cache.getObject(0));
+    cache.putObject(0, "released");
+  }
+
+  @Test
+  void shouldForgetExpirationsOfEvictedAndReplacedEntries() {
+    ExpiringCache expiringCache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    expiringCache.setTimeToLive(60000);
+    LruCache cache = new LruCache(expiringCache);
+    cache.setSize(2);
+    for (int i = 0; i < 10; i++) {
+      cache.putObject(i, i);
+      cache.putObject(i, i, 30000);
+    }
+    cache.removeObject(9);
+    assertEquals(1, cache.getSize());
+    MetaObject metaCache = SystemMetaObject.forObject(expiringCache);
+    assertEquals(1, ((Map<?, ?>) metaCache.getValue("expirationsByKey")).size());
+    assertEquals(1, ((Collection<?>) metaCache.getValue("expirations")).size());
+  }
+
+  @Test
+  void shouldRemoveExpiredEntriesThroughEvictionDecorators() throws Exception {
+    Cache cache = new CacheBuilder("DefaultCache").addDecorator(WeightedCache.class).timeToLive(50L).build();
+    cache.putObject(0, "zero");
+    cache.putObject(1, "one!", 60000);
+    WeightedCache weightedCache = unwrap(cache, WeightedCache.class);
+    long weight = weightedCache.getWeight();
+    Thread.sleep(100);
+    assertNull(cache.getObject(0));
+    assertEquals(weight / 2, weightedCache.getWeight());
+    assertEquals(1, ((Map<?, ?>) SystemMetaObject.forObject(weightedCache).getValue("keyWeights")).size());
+
+    cache = new CacheBuilder("DefaultCache").timeToLive(50L).build();
+    cache.putObject(0, "zero");
+    cache.putObject(1, "one!", 60000);
+    Thread.sleep(100);
+    assertNull(cache.getObject(0));
+    LruCache lruCache = unwrap(cache, LruCache.class);
+    assertEquals(1, ((Map<?, ?>) SystemMetaObject.forObject(lruCache).getValue("keyMap")).size());
+  }
+
+  @Test
+  void shouldApplyTimeToLiveOfTheCache() throws Exception {
+    Cache cache = new CacheBuilder("DefaultCache").timeToLive(50L).build();
+    cache.putObject(0, 0);
+    cache.putObject(1, 1, 60000);
+    Thread.sleep(100);
+    assertNull(cache.getObject(0));
+    assertEquals(1, cache.getObject(1));
+  }
+
+  private static <T extends Cache> T unwrap(Cache cache, Class<T> type) {
+    while (!type.isInstance(cache)) {
+      cache = (Cache) SystemMetaObject.forObject(cache).getValue("delegate");
+    }
+    return type.cast(cache);
+  }
+
+}
@@ -0,0 +1,132 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.junit.jupiter.api.Test;
+
+class OffHeapCacheTest {
+
+  @Test
+  void shouldReturnCopiesOfCachedObjects() {
+    OffHeapCache cache = new OffHeapCache("default");
+    List<String> value = new ArrayList<>(Arrays.asList("a", "b"));
+    cache.putObject(0, value);
+    Object cached = cache.getObject(0);
+    assertEquals(value, cached);
+    assertNotSame(value, cached);
+    assertNotSame(cached, cache.getObject(0));
+  }
+
+  @Test
+  void shouldCacheNullValues() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.putObject(0, null);
+    assertEquals(1, cache.getSize());
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldEvictOldestSlab() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setSlabSize(1024);
+    cache.setMaxBytes(2048);
+    int entries = 0;
+    while (cache.getSize() == entries) {
+      cache.putObject(entries++, new byte[100]);
+    }
+    assertNull(cache.getObject(0));
+    assertNotNull(cache.getObject(entries - 1));
+    assertTrue(cache.getSize() > 1);
+  }
+
+  @Test
+  void shouldReplaceItem() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.putObject(0, "a");
+    cache.putObject(0, "b");
+    assertEquals(1, cache.getSize());
+    assertEquals("b", cache.getObject(0));
+  }
+
+  @Test
+  void shouldNotCacheItemsLargerThanASlab() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setSlabSize(1024);
+    cache.putObject(0, "a");
+    cache.putObject(0, new byte[2048]);
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldRejectNonSerializableObjects() {
+    OffHeapCache cache = new OffHeapCache("default");
+    assertThrows(CacheException.class, () -> cache.putObject(0, new Object()));
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    Cache cache = new OffHeapCache("default");
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    cache.removeObject(0);
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    Cache cache = new OffHeapCache("default");
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertNotNull(cache.getObject(0));
+    assertNotNull(cache.getObject(4));
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+    cache.putObject(0, 0);
+    assertEquals(0, cache.getObject(0));
+  }
+
+  @Test
+  void shouldExpireEachEntryOnItsOwn() throws Exception {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setTimeToLive(50);
+    cache.putObject(0, 0);
+    cache.putObject(1, 1, 60000);
+    Thread.sleep(100);
+    assertNull(cache.getObject(0));
+    assertEquals(1, cache.getObject(1));
+    assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  void shouldOnlyBeDecoratedWithLogging() {
+    Cache cache = new CacheBuilder("default").implementation(OffHeapCache.class).readWrite(true).build();
+    assertTrue(cache instanceof LoggingCache);
+    cache.putObject(0, "a");
+    assertEquals("a", cache.getObject(0));
+  }
+
+}
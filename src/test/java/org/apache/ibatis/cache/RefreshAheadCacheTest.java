@@ -0,0 +1,191 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.RefreshAheadCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.junit.jupiter.api.Test;
+
+class RefreshAheadCacheTest {
+
+  @Test
+  void shouldServeStaleEntryWhileOneReaderRefreshes() {
+    RefreshAheadCache cache = newCache(60000, 60000);
+    cache.putObject(0, "stale");
+    assertNull(cache.getObject(0));
+    assertEquals("stale", cache.getObject(0));
+    assertEquals("stale", cache.getObject(0));
+    cache.putObject(0, "fresh");
+    assertNull(cache.getObject(0));
+    assertEquals("fresh", cache.getObject(0));
+  }
+
+  @Test
+  void shouldNotRefreshFreshEntries() {
+    RefreshAheadCache cache = newCache(60000, 0);
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    for (int i = 0; i < 5; i++) {
+      assertEquals(i, cache.getObject(i));
+      assertEquals(i, cache.getObject(i));
+    }
+  }
+
+  @Test
+  void shouldKeepStaleEntryWhenRefreshIsRolledBack() {
+    RefreshAheadCache cache = newCache(60000, 60000);
+    cache.putObject(0, "stale");
+    assertNull(cache.getObject(0));
+    cache.removeObject(0);
+    assertNull(cache.getObject(0));
+    assertEquals("stale", cache.getObject(0));
+  }
+
+  @Test
+  void shouldExpireEntries() throws Exception {
+    RefreshAheadCache cache = newCache(50, 0);
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertEquals(0, cache.getObject(0));
+    assertEquals(5, cache.getSize());
+    Thread.sleep(100);
+    // the first read after a time to live sweeps everything that expired
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldSpreadExpiriesWithJitter() throws Exception {
+    RefreshAheadCache cache = newCache(200, 0);
+    cache.setJitter(1.0);
+    for (int i = 0; i < 100; i++) {
+      cache.putObject(i, i);
+    }
+    Thread.sleep(100);
+    int expired = 0;
+    for (int i = 0; i < 100; i++) {
+      if (cache.getObject(i) == null) {
+        expired++;
+      }
+    }
+    assertTrue(expired > 0 && expired < 100, "expired " + expired);
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    RefreshAheadCache cache = newCache(60000, 0);
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldBlockMissesButNotStaleReads() throws Exception {
+    RefreshAheadCache cache = newCache(60000, 60000);
+    cache.setBlocking(true);
+    cache.setTimeout(100);
+    cache.putObject(0, "stale");
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(1));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      assertEquals("stale", executor.submit(() -> cache.getObject(0)).get(1, TimeUnit.SECONDS));
+      assertThrows(ExecutionException.class, () -> executor.submit(() -> cache.getObject(1)).get(1, TimeUnit.SECONDS));
+      cache.setTimeout(0);
+      Future<Object> waiting = executor.submit(() -> cache.getObject(1));
+      Thread.sleep(50);
+      assertFalse(waiting.isDone());
+      cache.putObject(1, "loaded");
+      assertEquals("loaded", waiting.get(1, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldLetOneReaderRefreshUnderContention() throws Exception {
+    RefreshAheadCache cache = newCache(60000, 60000);
+    cache.putObject(0, "stale");
+    int threads = 8;
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      @SuppressWarnings("unchecked")
+      Future<Object>[] reads = new Future[threads];
+      for (int i = 0; i < threads; i++) {
+        reads[i] = executor.submit(() -> {
+          start.await();
+          return cache.getObject(0);
+        });
+      }
+      start.countDown();
+      int misses = 0;
+      for (Future<Object> read : reads) {
+        if (read.get(1, TimeUnit.SECONDS) == null) {
+          misses++;
+        }
+      }
+      assertEquals(1, misses);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldBeBuiltOnTopOfStandardDecorators() {
+    Cache cache = new CacheBuilder("RefreshAhead").addDecorator(RefreshAheadCache.class).blocking(true).build();
+    assertEquals(RefreshAheadCache.class, cache.getClass());
+    assertTrue(((RefreshAheadCache) cache).isBlocking());
+    Object delegate = cache;
+    while (SystemMetaObject.forObject(delegate).hasGetter("delegate")) {
+      assertNotEquals(BlockingCache.class, delegate.getClass());
+      delegate = SystemMetaObject.forObject(delegate).getValue("delegate");
+      if (delegate instanceof LruCache) {
+        return;
+      }
+    }
+    fail("LRU eviction is not applied");
+  }
+
+  private static RefreshAheadCache newCache(long timeToLive, long refreshAhead) {
+    RefreshAheadCache cache = new RefreshAheadCache(new LoggingCache(new PerpetualCache("DefaultCache")));
+    cache.setTimeToLive(timeToLive);
+    cache.setRefreshAhead(refreshAhead);
+    cache.setJitter(0);
+    return cache;
+  }
+
+}
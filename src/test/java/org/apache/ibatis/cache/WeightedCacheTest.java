@@ -0,0 +1,134 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.cache.decorators.WeightedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class WeightedCacheTest {
+
+  @Test
+  void shouldRemoveLeastRecentlyUsedItemsBeyondMaxWeight() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    cache.putObject(0, rows(10));
+    long weight = cache.getWeight();
+    assertTrue(weight > 0);
+    cache.setMaxWeight(weight * 3);
+    cache.putObject(1, rows(10));
+    cache.putObject(2, rows(10));
+    assertEquals(3 * weight, cache.getWeight());
+    assertNotNull(cache.getObject(0));
+    cache.putObject(3, rows(10));
+    assertNotNull(cache.getObject(0));
+    assertNull(cache.getObject(1));
+    assertEquals(3, cache.getSize());
+    assertEquals(3 * weight, cache.getWeight());
+  }
+
+  @Test
+  void shouldWeighLargeResultsHeavier() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    cache.putObject(0, rows(10));
+    long small = cache.getWeight();
+    cache.clear();
+    cache.putObject(0, rows(1000));
+    assertTrue(cache.getWeight() > 50 * small);
+  }
+
+  @Test
+  void shouldEvictSeveralItemsForOneLargeItem() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    cache.putObject(0, rows(10));
+    cache.setMaxWeight(cache.getWeight() * 10);
+    for (int i = 1; i < 10; i++) {
+      cache.putObject(i, rows(10));
+    }
+    assertEquals(10, cache.getSize());
+    cache.putObject(10, rows(50));
+    assertTrue(cache.getSize() < 10);
+    assertNotNull(cache.getObject(10));
+    assertTrue(cache.getWeight() <= cache.getMaxWeight());
+  }
+
+  @Test
+  void shouldUpdateWeightOnRemoveAndReplace() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    cache.putObject(0, rows(10));
+    long weight = cache.getWeight();
+    cache.putObject(0, rows(10));
+    assertEquals(weight, cache.getWeight());
+    cache.removeObject(0);
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getWeight());
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, rows(i));
+    }
+    assertNotNull(cache.getObject(0));
+    assertNotNull(cache.getObject(4));
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+    assertEquals(0, cache.getWeight());
+  }
+
+  @Test
+  void shouldWeighSelfContainingValues() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    List<Object> list = new ArrayList<>();
+    list.add(list);
+    Map<Object, Object> map = new HashMap<>();
+    map.put("self", map);
+    Object[] array = new Object[1];
+    array[0] = array;
+    cache.putObject(0, list);
+    cache.putObject(1, map);
+    cache.putObject(2, array);
+    assertEquals(3, cache.getSize());
+    assertTrue(cache.getWeight() > 0);
+  }
+
+  private static List<Row> rows(int count) {
+    List<Row> rows = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      rows.add(new Row(i, "name" + i));
+    }
+    return rows;
+  }
+
+  private static class Row {
+    private final int id;
+    private final String name;
+
+    Row(int id, String name) {
+      this.id = id;
+      this.name = name;
+    }
+  }
+
+}
@@ -0,0 +1,158 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.cursor.Subscriber;
+import org.apache.ibatis.cursor.Subscription;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CursorPublisherTest {
+
+  @Mock
+  private DefaultCursor<String> cursor;
+
+  @Test
+  void shouldOnlyEmitRequestedItems() throws Exception {
+    when(cursor.iterator()).thenReturn(Arrays.asList("a", "b", "c").iterator());
+    when(cursor.isConsumed()).thenReturn(true);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new CursorPublisher<>(() -> cursor).subscribe(subscriber);
+    verifyNoInteractions(cursor);
+
+    subscriber.subscription.request(2);
+    assertEquals(Arrays.asList("a", "b"), subscriber.items);
+    assertFalse(subscriber.completed);
+    verify(cursor).setFetchSize(2);
+
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertEquals(Arrays.asList("a", "b", "c"), subscriber.items);
+    assertTrue(subscriber.completed);
+    assertNull(subscriber.error);
+    verify(cursor).close();
+  }
+
+  @Test
+  void shouldNotRecurseWhenRequestingFromOnNext() {
+    when(cursor.iterator()).thenReturn(Arrays.asList("a", "b", "c").iterator());
+    when(cursor.isConsumed()).thenReturn(true);
+    List<Integer> depths = new ArrayList<>();
+    RecordingSubscriber subscriber = new RecordingSubscriber() {
+      private int depth;
+
+      @Override
+      public void onNext(String item) {
+        super.onNext(item);
+        depths.add(++depth);
+        subscription.request(1);
+        depth--;
+      }
+    };
+    new CursorPublisher<>(() -> cursor).subscribe(subscriber);
+    subscriber.subscription.request(1);
+    assertEquals(Arrays.asList("a", "b", "c"), subscriber.items);
+    assertEquals(Arrays.asList(1, 1, 1), depths);
+    assertTrue(subscriber.completed);
+  }
+
+  @Test
+  void shouldCloseCursorWhenCancelled() throws Exception {
+    when(cursor.iterator()).thenReturn(Arrays.asList("a", "b").iterator());
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new CursorPublisher<>(() -> cursor).subscribe(subscriber);
+    subscriber.subscription.request(1);
+    subscriber.subscription.cancel();
+    subscriber.subscription.request(1);
+    assertEquals(Collections.singletonList("a"), subscriber.items);
+    assertFalse(subscriber.completed);
+    verify(cursor).close();
+  }
+
+  @Test
+  void shouldFailOnNonPositiveRequest() {
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new CursorPublisher<>(() -> cursor).subscribe(subscriber);
+    subscriber.subscription.request(0);
+    assertTrue(subscriber.error instanceof IllegalArgumentException);
+    verifyNoInteractions(cursor);
+  }
+
+  @Test
+  void shouldFailWhenCursorIsClosedBeforeBeingConsumed() throws Exception {
+    when(cursor.iterator()).thenReturn(Collections.<String>emptyList().iterator());
+    when(cursor.isConsumed()).thenReturn(false);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new CursorPublisher<>(() -> cursor).subscribe(subscriber);
+    subscriber.subscription.request(1);
+    assertTrue(subscriber.error instanceof IllegalStateException);
+    assertFalse(subscriber.completed);
+  }
+
+  @Test
+  void shouldRejectSecondSubscriber() throws Exception {
+    CursorPublisher<String> publisher = new CursorPublisher<>(() -> cursor);
+    publisher.subscribe(new RecordingSubscriber());
+    RecordingSubscriber second = new RecordingSubscriber();
+    publisher.subscribe(second);
+    assertTrue(second.error instanceof IllegalStateException);
+    verify(cursor, never()).close();
+  }
+
+  private static class RecordingSubscriber implements Subscriber<String> {
+    protected Subscription subscription;
+    private final List<String> items = new ArrayList<>();
+    private Throwable error;
+    private boolean completed;
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(String item) {
+      items.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+
+}
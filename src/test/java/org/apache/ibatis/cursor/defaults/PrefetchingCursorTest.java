@@ -0,0 +1,168 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PrefetchingCursorTest {
+
+  @Mock
+  private DefaultCursor<String> delegate;
+
+  @Test
+  void shouldReturnAllRowsInOrder() {
+    when(delegate.getCurrentIndex()).thenReturn(-1);
+    when(delegate.iterator()).thenReturn(Arrays.asList("a", null, "c").iterator());
+    PrefetchingCursor<String> cursor = new PrefetchingCursor<>(delegate, 1);
+    Iterator<String> iterator = cursor.iterator();
+    assertFalse(cursor.isOpen());
+    assertTrue(iterator.hasNext());
+    assertTrue(cursor.isOpen());
+    assertEquals(-1, cursor.getCurrentIndex());
+    assertEquals("a", iterator.next());
+    assertEquals(0, cursor.getCurrentIndex());
+    assertNull(iterator.next());
+    assertEquals("c", iterator.next());
+    assertEquals(2, cursor.getCurrentIndex());
+    assertFalse(iterator.hasNext());
+    assertTrue(cursor.isConsumed());
+    assertFalse(cursor.isOpen());
+    assertThrows(NoSuchElementException.class, iterator::next);
+  }
+
+  @Test
+  void shouldRethrowFailuresOfTheProducer() {
+    RuntimeException failure = new RuntimeException("boom");
+    Iterator<String> rows = new Iterator<String>() {
+      private boolean first = true;
+
+      @Override
+      public boolean hasNext() {
+        return true;
+      }
+
+      @Override
+      public String next() {
+        if (first) {
+          first = false;
+          return "a";
+        }
+        throw failure;
+      }
+    };
+    when(delegate.iterator()).thenReturn(rows);
+    PrefetchingCursor<String> cursor = new PrefetchingCursor<>(delegate, 4);
+    Iterator<String> iterator = cursor.iterator();
+    assertEquals("a", iterator.next());
+    assertSame(failure, assertThrows(RuntimeException.class, iterator::hasNext));
+    assertFalse(cursor.isOpen());
+    verify(delegate).close();
+  }
+
+  @Test
+  void shouldStopProducerOnClose() {
+    AtomicInteger produced = new AtomicInteger();
+    Iterator<String> endless = new Iterator<String>() {
+      @Override
+      public boolean hasNext() {
+        return true;
+      }
+
+      @Override
+      public String next() {
+        return String.valueOf(produced.getAndIncrement());
+      }
+    };
+    when(delegate.iterator()).thenReturn(endless);
+    PrefetchingCursor<String> cursor = new PrefetchingCursor<>(delegate, 2);
+    Iterator<String> iterator = cursor.iterator();
+    assertEquals("0", iterator.next());
+    assertTimeoutPreemptively(Duration.ofSeconds(5), cursor::close);
+    verify(delegate).close();
+    assertFalse(iterator.hasNext());
+    // the buffer applies backpressure: the producer never ran far ahead of the consumer
+    assertTrue(produced.get() <= 4, "produced " + produced.get());
+  }
+
+  @Test
+  void shouldNotInterruptProducerOnClose() throws Exception {
+    CountDownLatch reading = new CountDownLatch(1);
+    AtomicBoolean interrupted = new AtomicBoolean();
+    Iterator<String> slow = new Iterator<String>() {
+      private int count;
+
+      @Override
+      public boolean hasNext() {
+        return true;
+      }
+
+      @Override
+      public String next() {
+        if (count == 1) {
+          reading.countDown();
+          try {
+            // simulates a fetch that is still on the wire when the cursor is closed
+            Thread.sleep(200);
+          } catch (InterruptedException e) {
+            interrupted.set(true);
+          }
+        }
+        return String.valueOf(count++);
+      }
+    };
+    when(delegate.iterator()).thenReturn(slow);
+    PrefetchingCursor<String> cursor = new PrefetchingCursor<>(delegate, 2);
+    Iterator<String> iterator = cursor.iterator();
+    assertEquals("0", iterator.next());
+    reading.await();
+    assertTimeoutPreemptively(Duration.ofSeconds(5), cursor::close);
+    assertFalse(interrupted.get());
+    verify(delegate).close();
+  }
+
+  @Test
+  void shouldCloseBeforeIterating() {
+    PrefetchingCursor<String> cursor = new PrefetchingCursor<>(delegate, 1);
+    cursor.iterator();
+    assertTimeoutPreemptively(Duration.ofSeconds(5), cursor::close);
+    verify(delegate).close();
+    assertFalse(cursor.isOpen());
+    assertThrows(IllegalStateException.class, cursor::iterator);
+  }
+
+}
@@ -0,0 +1,143 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.ibatis.BaseDataTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PooledStatementCacheTest extends BaseDataTest {
+
+  private static final String SQL = "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SYSTEM_USERS";
+
+  private PooledDataSource ds;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    ds.setPoolMaximumActiveConnections(1);
+    ds.setPoolMaximumCachedStatements(2);
+  }
+
+  @AfterEach
+  void tearDown() {
+    ds.forceCloseAll();
+  }
+
+  @Test
+  void shouldReuseStatementsAcrossCheckouts() throws Exception {
+    PreparedStatement first;
+    try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(SQL)) {
+      first = ps.unwrap(PreparedStatement.class);
+      assertSame(c, ps.getConnection());
+      execute(ps);
+    }
+    try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(SQL)) {
+      assertSame(first, ps.unwrap(PreparedStatement.class));
+      execute(ps);
+    }
+    assertFalse(first.isClosed());
+    assertEquals(1, ds.getPoolState().getStatementCacheHitCount());
+    assertEquals(1, ds.getPoolState().getStatementCacheMissCount());
+  }
+
+  @Test
+  void shouldDistinguishResultSetTypes() throws Exception {
+    try (Connection c = ds.getConnection()) {
+      c.prepareStatement(SQL).close();
+      c.prepareStatement(SQL, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY).close();
+      c.prepareStatement(SQL).close();
+    }
+    assertEquals(1, ds.getPoolState().getStatementCacheHitCount());
+    assertEquals(2, ds.getPoolState().getStatementCacheMissCount());
+  }
+
+  @Test
+  void shouldCloseLeastRecentlyUsedStatements() throws Exception {
+    PreparedStatement evicted;
+    try (Connection c = ds.getConnection()) {
+      PreparedStatement ps = c.prepareStatement(SQL);
+      evicted = ps.unwrap(PreparedStatement.class);
+      ps.close();
+      c.prepareStatement(SQL + " WHERE 1 = 1").close();
+      c.prepareStatement(SQL + " WHERE 2 = 2").close();
+    }
+    assertTrue(evicted.isClosed());
+  }
+
+  @Test
+  void shouldNotHandOutAStatementInUse() throws Exception {
+    try (Connection c = ds.getConnection();
+        PreparedStatement first = c.prepareStatement(SQL);
+        PreparedStatement second = c.prepareStatement(SQL)) {
+      assertNotSame(first.unwrap(PreparedStatement.class), second.unwrap(PreparedStatement.class));
+    }
+  }
+
+  @Test
+  void shouldResetClosedStatements() throws Exception {
+    try (Connection c = ds.getConnection()) {
+      PreparedStatement ps = c.prepareStatement(SQL);
+      int defaultFetchSize = ps.getFetchSize();
+      ps.setFetchSize(defaultFetchSize + 10);
+      ps.close();
+      assertTrue(ps.isClosed());
+      assertThrows(SQLException.class, ps::executeQuery);
+      try (PreparedStatement reused = c.prepareStatement(SQL)) {
+        assertEquals(defaultFetchSize, reused.getFetchSize());
+      }
+    }
+  }
+
+  @Test
+  void shouldCacheStatementsOfConcurrentPool() throws Exception {
+    ConcurrentPooledDataSource concurrent = new ConcurrentPooledDataSource(ds.getDriver(), ds.getUrl(),
+        ds.getUsername(), ds.getPassword());
+    concurrent.setPoolMaximumActiveConnections(1);
+    concurrent.setPoolMaximumCachedStatements(2);
+    try {
+      for (int i = 0; i < 3; i++) {
+        try (Connection c = concurrent.getConnection(); PreparedStatement ps = c.prepareStatement(SQL)) {
+          execute(ps);
+        }
+      }
+      assertEquals(2, concurrent.getPoolState().getStatementCacheHitCount());
+      assertEquals(1, concurrent.getPoolState().getStatementCacheMissCount());
+    } finally {
+      concurrent.forceCloseAll();
+    }
+  }
+
+  private static void execute(PreparedStatement ps) throws SQLException {
+    try (ResultSet rs = ps.executeQuery()) {
+      assertTrue(rs.next());
+    }
+  }
+
+}
@@ -0,0 +1,55 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.sql.Statement;
+
+import org.junit.jupiter.api.Test;
+
+class MultiRowInsertBatchTest {
+
+  @Test
+  void shouldFindValuesOfSingleRowInserts() {
+    String sql = "INSERT INTO t (a, b) VALUES (?, coalesce(?, 'x)'))";
+    int[] values = MultiRowInsertBatch.findValues(sql);
+    assertThat(sql.substring(values[0], values[1])).isEqualTo("(?, coalesce(?, 'x)'))");
+    sql = "insert into \"values\" values\n(?)  ";
+    values = MultiRowInsertBatch.findValues(sql);
+    assertThat(sql.substring(values[0], values[1])).isEqualTo("(?)");
+  }
+
+  @Test
+  void shouldNotFindValuesOfOtherStatements() {
+    assertNull(MultiRowInsertBatch.findValues("update t set a = ? where b in (select c from u)"));
+    assertNull(MultiRowInsertBatch.findValues("insert into t (a) select a from u where b = ?"));
+    assertNull(MultiRowInsertBatch.findValues("insert into t (a) values (?) on duplicate key update a = values(a)"));
+    assertNull(MultiRowInsertBatch.findValues("insert into t (a) values (?), (?)"));
+    assertNull(MultiRowInsertBatch.findValues("insert into t (a) values (?) returning id"));
+    assertNull(MultiRowInsertBatch.findValues("insert into t (a) values ('?)"));
+  }
+
+  @Test
+  void shouldSplitUpdateCounts() {
+    int[] updateCounts = new int[5];
+    MultiRowInsertBatch.split(3, updateCounts, 0, 3);
+    MultiRowInsertBatch.split(Statement.SUCCESS_NO_INFO, updateCounts, 3, 2);
+    assertThat(updateCounts).containsExactly(1, 1, 1, Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO);
+  }
+
+}
@@ -0,0 +1,85 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+import javassist.util.proxy.Proxy;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.executor.loader.javassist.GeneratedProxyFactory;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class GeneratedProxyTest extends SerializableProxyTest {
+
+  @BeforeAll
+  static void createProxyFactory() {
+    proxyFactory = new GeneratedProxyFactory();
+  }
+
+  @Test
+  void shouldGenerateOneProxyClassPerType() {
+    Object proxy1 = proxyFactory.createProxy(author, new ResultLoaderMap(), new Configuration(), new DefaultObjectFactory(), new ArrayList<>(), new ArrayList<>());
+    Object proxy2 = proxyFactory.createProxy(new Author(), new ResultLoaderMap(), new Configuration(), new DefaultObjectFactory(), new ArrayList<>(), new ArrayList<>());
+    assertTrue(proxy1 instanceof GeneratedProxyFactory.Proxy);
+    assertFalse(proxy1 instanceof Proxy);
+    assertNotEquals(Author.class, proxy1.getClass());
+    assertEquals(proxy1.getClass(), proxy2.getClass());
+    assertEquals(author, proxy1);
+  }
+
+  @Test
+  void shouldCreateAProxyForAPartiallyLoadedBean() throws Exception {
+    ResultLoaderMap loader = new ResultLoaderMap();
+    loader.addLoader("id", null, null);
+    Object proxy = proxyFactory.createProxy(author, loader, new Configuration(), new DefaultObjectFactory(), new ArrayList<>(), new ArrayList<>());
+    Author author2 = (Author) deserialize(serialize((Serializable) proxy));
+    // deserialized objects are proxied by Javassist
+    assertTrue(author2 instanceof Proxy);
+  }
+
+  @Test
+  void shouldLoadLazyPropertiesReadByInterfaceDefaultGetters() {
+    ResultLoaderMap loader = new ResultLoaderMap();
+    loader.addLoader("label", null, null);
+    Labelled proxy = (Labelled) proxyFactory.createProxy(new LabelledBean(), loader, new Configuration(), new DefaultObjectFactory(), new ArrayList<>(), new ArrayList<>());
+    assertTrue(proxy instanceof GeneratedProxyFactory.Proxy);
+    // the loader has no result object to load the property into, which shows that the getter tried to
+    assertThrows(IllegalArgumentException.class, proxy::getLabel);
+    assertFalse(loader.hasLoader("label"));
+  }
+
+  public interface Labelled {
+    default String getLabel() {
+      return "label";
+    }
+  }
+
+  public static class LabelledBean implements Labelled, Serializable {
+    private static final long serialVersionUID = 1L;
+  }
+
+}
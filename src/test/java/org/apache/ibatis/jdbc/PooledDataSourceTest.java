@@ -17,10 +17,16 @@ package org.apache.ibatis.jdbc;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.lang.reflect.Method;
 import java.sql.Connection;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.ibatis.BaseDataTest;
 import org.apache.ibatis.datasource.pooled.PooledDataSource;
@@ -85,4 +91,47 @@ class PooledDataSourceTest extends BaseDataTest {
     JDBCConnection realConnection = (JDBCConnection) PooledDataSource.unwrapConnection(c);
     c.close();
   }
+
+  @Test
+  void shouldHandOverReturnedConnectionsToWaitingThreads() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    ds.setPoolMaximumActiveConnections(2);
+    ds.setPoolMaximumIdleConnections(2);
+    ds.setPoolTimeToWait(20000);
+    int tasks = 500;
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = newThreadPerTaskExecutor();
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < tasks; i++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          try (Connection c = ds.getConnection()) {
+            assertFalse(c.isClosed());
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      // waiting threads pinning all carriers would starve the ones returning connections on virtual threads
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+      assertEquals(tasks, ds.getPoolState().getRequestCount());
+    } finally {
+      executor.shutdownNow();
+      ds.forceCloseAll();
+    }
+  }
+
+  private static ExecutorService newThreadPerTaskExecutor() throws Exception {
+    try {
+      // virtual threads are only available from Java 21
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) method.invoke(null);
+    } catch (NoSuchMethodException e) {
+      return Executors.newCachedThreadPool();
+    }
+  }
 }
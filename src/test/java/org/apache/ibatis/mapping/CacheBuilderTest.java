@@ -23,6 +23,11 @@ import java.lang.reflect.Field;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.decorators.FifoCache;
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.decorators.WeakCache;
+import org.apache.ibatis.cache.impl.ConcurrentCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -43,6 +48,27 @@ class CacheBuilderTest {
       .hasMessage("Failed cache initialization for 'test' on 'org.apache.ibatis.mapping.CacheBuilderTest$InitializingFailureCache'");
   }
 
+  @Test
+  void testConcurrentCacheIsNotSynchronized() {
+    Cache cache = new CacheBuilder("test").implementation(ConcurrentCache.class).addDecorator(FifoCache.class).size(10).build();
+
+    then(cache).isInstanceOf(LoggingCache.class);
+    ConcurrentCache concurrentCache = unwrap(cache);
+    for (int i = 0; i < 11; i++) {
+      cache.putObject(i, i);
+      cache.getObject(0);
+    }
+    then(concurrentCache.getSize()).isEqualTo(10);
+    then(cache.getObject(0)).isNull();
+  }
+
+  @Test
+  void testConcurrentCacheWithOtherEvictionIsSynchronized() {
+    Cache cache = new CacheBuilder("test").implementation(ConcurrentCache.class).addDecorator(WeakCache.class).build();
+
+    then(cache).isInstanceOf(SynchronizedCache.class);
+  }
+
   @SuppressWarnings("unchecked")
   private <T> T unwrap(Cache cache) {
     Field field;
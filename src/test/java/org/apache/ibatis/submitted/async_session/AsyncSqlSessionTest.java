@@ -0,0 +1,147 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.async_session;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.AsyncSqlSession;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionException;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.defaults.DefaultAsyncSqlSession;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class AsyncSqlSessionTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/async_session/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/async_session/CreateDB.sql");
+  }
+
+  @Test
+  void shouldRunIndependentStatementsInParallelSessions() throws Exception {
+    List<AsyncSqlSession> sessions = new ArrayList<>();
+    try {
+      List<CompletableFuture<User>> users = new ArrayList<>();
+      for (int id = 1; id <= 3; id++) {
+        AsyncSqlSession session = sqlSessionFactory.openAsyncSession(true);
+        sessions.add(session);
+        users.add(session.getMapper(Mapper.class).getUser(id));
+      }
+      CompletableFuture.allOf(users.toArray(new CompletableFuture[0])).get();
+      assertEquals("User1", users.get(0).get().getName());
+      assertEquals("User2", users.get(1).get().getName());
+      assertEquals("User3", users.get(2).get().getName());
+    } finally {
+      sessions.forEach(AsyncSqlSession::close);
+    }
+  }
+
+  @Test
+  void shouldRunStatementsOnTheGivenExecutor() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try (AsyncSqlSession session = new DefaultAsyncSqlSession(sqlSessionFactory.openSession(), executor)) {
+      CompletableFuture<String> thread = session.submit(s -> Thread.currentThread().getName());
+      CompletableFuture<List<User>> users = session.selectList("org.apache.ibatis.submitted.async_session.Mapper.getUsers");
+      assertNotEquals(Thread.currentThread().getName(), thread.get());
+      assertEquals(5, users.get().size());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void shouldRunStatementsOfASessionInOrderInTheSameTransaction() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try (AsyncSqlSession session = new DefaultAsyncSqlSession(sqlSessionFactory.openSession(), executor)) {
+      Mapper mapper = session.getMapper(Mapper.class);
+      List<CompletableFuture<Integer>> inserts = new ArrayList<>();
+      for (int id = 10; id < 30; id++) {
+        User user = new User();
+        user.setId(id);
+        user.setName("User" + id);
+        inserts.add(mapper.insertUser(user));
+      }
+      // waits for the inserts submitted before
+      assertEquals(25, mapper.countUsers());
+      List<Integer> ids = mapper.getUsers().get().stream().map(User::getId).collect(Collectors.toList());
+      assertEquals(Integer.valueOf(29), ids.get(ids.size() - 1));
+      for (CompletableFuture<Integer> insert : inserts) {
+        assertEquals(Integer.valueOf(1), insert.get());
+      }
+      session.rollback().get();
+    } finally {
+      executor.shutdown();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(5, sqlSession.getMapper(Mapper.class).countUsers());
+    }
+  }
+
+  @Test
+  void shouldKeepRunningStatementsAfterAFailure() throws Exception {
+    try (AsyncSqlSession session = sqlSessionFactory.openAsyncSession()) {
+      Mapper mapper = session.getMapper(Mapper.class);
+      CompletableFuture<User> missing = mapper.getMissingUser();
+      CompletableFuture<User> user = mapper.getUser(1);
+      ExecutionException e = assertThrows(ExecutionException.class, missing::get);
+      assertTrue(e.getCause() instanceof PersistenceException);
+      assertEquals("User1", user.get().getName());
+    }
+  }
+
+  @Test
+  void shouldRejectStatementsOnceClosed() {
+    AsyncSqlSession session = sqlSessionFactory.openAsyncSession();
+    session.close();
+    CompletableFuture<User> user = session.selectOne("org.apache.ibatis.submitted.async_session.Mapper.getUser", 1);
+    ExecutionException e = assertThrows(ExecutionException.class, user::get);
+    assertTrue(e.getCause() instanceof SqlSessionException);
+  }
+
+  @Test
+  void shouldReturnCompletedFuturesFromSynchronousSessions() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CompletableFuture<User> user = sqlSession.getMapper(Mapper.class).getUser(2);
+      assertTrue(user.isDone());
+      assertEquals("User2", user.get().getName());
+    }
+  }
+
+}
@@ -0,0 +1,162 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_auto_flush;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BatchAutoFlushTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/batch_auto_flush/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/batch_auto_flush/CreateDB.sql");
+  }
+
+  @Test
+  void shouldFlushWhenBatchSizeIsReached() {
+    sqlSessionFactory.getConfiguration().setBatchFlushSize(3);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 7; i++) {
+        mapper.insertUser(new User(null, "User" + i));
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(3, results.size());
+      assertThat(results.get(0).getUpdateCounts()).containsExactly(1, 1, 1);
+      assertThat(results.get(1).getUpdateCounts()).containsExactly(1, 1, 1);
+      assertThat(results.get(2).getUpdateCounts()).containsExactly(1);
+      assertThat(sqlSession.flushStatements()).isEmpty();
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(7, sqlSession.getMapper(Mapper.class).countUsers());
+    }
+  }
+
+  @Test
+  void shouldFlushWhenEstimatedSizeIsReached() {
+    // one parameter of 5 characters is estimated to 26 bytes
+    sqlSessionFactory.getConfiguration().setBatchFlushBytes(50L);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 5; i++) {
+        mapper.insertUser(new User(null, "User" + i));
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(3, results.size());
+      assertThat(results.get(0).getUpdateCounts()).containsExactly(1, 1);
+      assertThat(results.get(1).getUpdateCounts()).containsExactly(1, 1);
+      assertThat(results.get(2).getUpdateCounts()).containsExactly(1);
+      sqlSession.commit();
+    }
+  }
+
+  @Test
+  void shouldDiscardFlushedResultsOnRollback() {
+    sqlSessionFactory.getConfiguration().setBatchFlushSize(2);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 3; i++) {
+        mapper.insertUser(new User(null, "User" + i));
+      }
+      sqlSession.rollback();
+      assertThat(sqlSession.flushStatements()).isEmpty();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(0, sqlSession.getMapper(Mapper.class).countUsers());
+    }
+  }
+
+  @Test
+  void shouldOnlyRetainParameterObjectsNeededForKeys() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    configuration.setRetainBatchParameterObjects(false);
+    configuration.setBatchFlushSize(2);
+    List<User> users = new ArrayList<>();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertUser(new User(null, "User0"));
+      for (int i = 1; i < 4; i++) {
+        User user = new User(null, "User" + i);
+        users.add(user);
+        mapper.insertUserWithKey(user);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(3, results.size());
+      assertThat(results.get(0).getParameterObjects()).isEmpty();
+      assertThat(results.get(0).getUpdateCounts()).containsExactly(1);
+      // the batches flushed on their own do not keep the parameter objects once the keys are assigned
+      assertThat(results.get(1).getParameterObjects()).isEmpty();
+      assertThat(results.get(1).getUpdateCounts()).containsExactly(1);
+      assertThat(results.get(2).getParameterObjects()).isEmpty();
+      assertThat(results.get(2).getUpdateCounts()).containsExactly(1, 1);
+      sqlSession.commit();
+    }
+    for (int i = 0; i < 3; i++) {
+      assertEquals(Integer.valueOf(i + 2), users.get(i).getId());
+    }
+  }
+
+  @Test
+  void shouldOnlyRetainParameterObjectsNeededForKeysWhenRewritingInserts() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    configuration.setRetainBatchParameterObjects(false);
+    configuration.setBatchInsertRowsPerStatement(2);
+    List<User> users = new ArrayList<>();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 3; i++) {
+        mapper.insertUser(new User(null, "User" + i));
+      }
+      for (int i = 3; i < 6; i++) {
+        User user = new User(null, "User" + i);
+        users.add(user);
+        mapper.insertUserWithKey(user);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(2, results.size());
+      assertThat(results.get(0).getParameterObjects()).isEmpty();
+      assertThat(results.get(0).getUpdateCounts()).containsExactly(1, 1, 1);
+      assertThat(results.get(1).getParameterObjects()).containsExactlyElementsOf(users);
+      sqlSession.commit();
+    }
+    for (int i = 0; i < 3; i++) {
+      assertEquals(Integer.valueOf(i + 4), users.get(i).getId());
+    }
+  }
+
+}
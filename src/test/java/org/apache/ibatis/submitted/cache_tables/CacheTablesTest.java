@@ -0,0 +1,121 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cache_tables;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.Statement;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CacheTablesTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cache_tables/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/cache_tables/CreateDB.sql");
+  }
+
+  @Test
+  void shouldInvalidateOnlyResultsReadingTheWrittenTables() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      AuthorMapper mapper = sqlSession.getMapper(AuthorMapper.class);
+      assertEquals("Jane", mapper.getName(1));
+      assertEquals(1, mapper.countPosts());
+    }
+    addPostBehindMyBatis();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      AuthorMapper mapper = sqlSession.getMapper(AuthorMapper.class);
+      mapper.updateName(1, "John");
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      AuthorMapper mapper = sqlSession.getMapper(AuthorMapper.class);
+      assertEquals("John", mapper.getName(1));
+      // still cached, the post table was not written through MyBatis
+      assertEquals(1, mapper.countPosts());
+    }
+  }
+
+  @Test
+  void shouldInvalidateResultsOfOtherNamespaces() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals("Jane", sqlSession.getMapper(PostMapper.class).getAuthorName(1));
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(AuthorMapper.class).updateName(1, "John");
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals("John", sqlSession.getMapper(PostMapper.class).getAuthorName(1));
+    }
+  }
+
+  @Test
+  void shouldNotInvalidateBeforeCommit() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals("Jane", sqlSession.getMapper(AuthorMapper.class).getName(1));
+    }
+    try (SqlSession writer = sqlSessionFactory.openSession()) {
+      AuthorMapper mapper = writer.getMapper(AuthorMapper.class);
+      mapper.updateName(1, "John");
+      assertEquals("John", mapper.getName(1));
+      try (SqlSession reader = sqlSessionFactory.openSession()) {
+        assertEquals("Jane", reader.getMapper(AuthorMapper.class).getName(1));
+      }
+      writer.rollback();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals("Jane", sqlSession.getMapper(AuthorMapper.class).getName(1));
+    }
+  }
+
+  @Test
+  void shouldClearCachesUsedBySelectsWithUndeclaredTables() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(1, sqlSession.getMapper(UndeclaredMapper.class).countPosts());
+    }
+    addPostBehindMyBatis();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(UndeclaredMapper.class).updateName(1, "John");
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(2, sqlSession.getMapper(UndeclaredMapper.class).countPosts());
+    }
+  }
+
+  private void addPostBehindMyBatis() throws Exception {
+    try (Connection connection = sqlSessionFactory.getConfiguration().getEnvironment().getDataSource().getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.executeUpdate("insert into post (id, author_id, subject) values (2, 1, 'World')");
+    }
+  }
+
+}
@@ -0,0 +1,138 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_parameter_binding;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CompiledParameterBindingTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    // create a SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/compiled_parameter_binding/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/compiled_parameter_binding/CreateDB.sql");
+  }
+
+  @Test
+  void shouldBindSimpleParameter() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals("User1", mapper.getName(1));
+      assertEquals("User2", mapper.getName(2));
+      assertNull(mapper.getName(null));
+    }
+  }
+
+  @Test
+  void shouldBindNamedParameters() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals("User1", mapper.getNameByIdAndCity(1, "Tokyo"));
+      assertNull(mapper.getNameByIdAndCity(1, "Paris"));
+      assertEquals(1, mapper.countByName("User3"));
+      assertEquals(0, mapper.countByName(null));
+    }
+  }
+
+  @Test
+  void shouldBindMapEntries() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Map<String, Object> parameters = new HashMap<>();
+      parameters.put("id", 2);
+      parameters.put("city", "Paris");
+      assertEquals("User2", sqlSession.getMapper(Mapper.class).getNameByMap(parameters));
+    }
+  }
+
+  @Test
+  void shouldBindAdditionalParametersOfDynamicSql() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getNames(Arrays.asList(1, 2, 3), null)).containsExactly("User1", "User2", "User3");
+      assertThat(mapper.getNames(Arrays.asList(1, 2, 3), 35)).containsExactly("User2");
+      assertThat(mapper.getNames(Arrays.asList(3, 1), null)).containsExactly("User1", "User3");
+    }
+  }
+
+  @Test
+  void shouldBindConditionalAdditionalParameters() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User bound = new User();
+      bound.setId(2);
+      User named = new User();
+      named.setId(1);
+      named.setName("User3");
+      // the same statement and parameter type read #{name} from the <bind> or from the getter
+      assertEquals("User2", mapper.getNameByUser(bound));
+      assertEquals("User3", mapper.getNameByUser(named));
+      assertEquals("User2", mapper.getNameByUser(bound));
+    }
+  }
+
+  @Test
+  void shouldBindGettersFieldsAndNestedProperties() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user = new User();
+      user.setId(4);
+      user.setName("User4");
+      user.setAge(50);
+      user.setAddress(new Address());
+      user.getAddress().setCity("Rome");
+      mapper.insertUser(user);
+      assertEquals("User4", mapper.getNameByIdAndCity(4, "Rome"));
+      assertThat(mapper.getNames(Arrays.asList(1, 2, 3, 4), 45)).containsExactly("User4");
+      sqlSession.rollback();
+    }
+  }
+
+  @Test
+  void shouldFailOnUndeclaredParameterLikeReflectiveBinding() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      PersistenceException e = assertThrows(PersistenceException.class, () -> mapper.getNameWithUndeclaredParameter(1));
+      assertThat(e.getCause()).isInstanceOf(BindingException.class)
+          .hasMessageContaining("Parameter 'city' not found.");
+    }
+  }
+
+}
@@ -0,0 +1,41 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_parameter_binding;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.annotations.Param;
+
+public interface Mapper {
+
+  String getName(Integer id);
+
+  String getNameByIdAndCity(@Param("id") Integer id, @Param("city") String city);
+
+  String getNameByMap(Map<String, Object> parameters);
+
+  List<String> getNames(@Param("ids") List<Integer> ids, @Param("minAge") Integer minAge);
+
+  String getNameWithUndeclaredParameter(@Param("id") Integer id);
+
+  int countByName(@Param("name") String name);
+
+  String getNameByUser(User user);
+
+  void insertUser(User user);
+
+}
@@ -0,0 +1,121 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_row_mapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CompiledRowMappingTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    // create a SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/compiled_row_mapping/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/compiled_row_mapping/CreateDB.sql");
+  }
+
+  @Test
+  void shouldMapAutomappedColumns() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsersAutomapped();
+      assertEquals(3, users.size());
+      assertEquals(Integer.valueOf(1), users.get(0).getId());
+      assertEquals("User1", users.get(0).getName());
+      assertEquals(30, users.get(0).getUserAge());
+      assertTrue(users.get(0).getActive());
+      assertEquals("User2", users.get(1).getName());
+      assertEquals(0, users.get(1).getUserAge());
+      assertFalse(users.get(1).getActive());
+      assertNull(users.get(2).getName());
+      assertNull(users.get(2).getActive());
+      assertEquals(Collections.singletonList(User.class),
+          compiledResultTypes("org.apache.ibatis.submitted.compiled_row_mapping.Mapper.getUsersAutomapped-Inline"));
+    }
+  }
+
+  @Test
+  void shouldReuseCompiledRowMapperAcrossSessions() {
+    for (int i = 0; i < 2; i++) {
+      try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+        List<User> users = sqlSession.getMapper(Mapper.class).getUsersAutomapped();
+        assertEquals("User1", users.get(0).getName());
+      }
+    }
+  }
+
+  @Test
+  void shouldMapExplicitMappingsTogetherWithAutomappedColumns() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsersMapped();
+      assertEquals(3, users.size());
+      assertEquals(Integer.valueOf(2), users.get(1).getId());
+      assertEquals("User2", users.get(1).getName());
+      assertFalse(users.get(1).getActive());
+      assertEquals(30, users.get(0).getUserAge());
+      assertEquals(Collections.singletonList(User.class),
+          compiledResultTypes("org.apache.ibatis.submitted.compiled_row_mapping.Mapper.userMap"));
+    }
+  }
+
+  @Test
+  void shouldFallBackToReflectiveMappingForNestedResultMaps() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      User user = sqlSession.getMapper(Mapper.class).getUserWithFriend(1);
+      assertEquals("User1", user.getName());
+      assertEquals(Integer.valueOf(2), user.getFriend().getId());
+      assertEquals("User2", user.getFriend().getName());
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Object> compiledResultTypes(String resultMapId) {
+    // the row mapper of a result map that cannot be compiled has no type
+    Map<String, Object> rowMappers = (Map<String, Object>) SystemMetaObject
+        .forObject(sqlSessionFactory.getConfiguration()).getValue("compiledRowMappers");
+    List<Object> types = new ArrayList<>();
+    rowMappers.forEach((key, rowMapper) -> {
+      if (key.startsWith(resultMapId + ":")) {
+        types.add(SystemMetaObject.forObject(rowMapper).getValue("type"));
+      }
+    });
+    return types;
+  }
+
+}
@@ -0,0 +1,109 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cursor_prefetch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.defaults.PrefetchingCursor;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CursorPrefetchTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cursor_prefetch/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/cursor_prefetch/CreateDB.sql");
+  }
+
+  @Test
+  void shouldPrefetchRows() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> cursor = sqlSession.getMapper(Mapper.class).getAllUsers();
+      assertTrue(cursor instanceof PrefetchingCursor);
+      List<String> names = new ArrayList<>();
+      for (User user : cursor) {
+        names.add(user.getName());
+      }
+      assertThat(names).containsExactly("User1", "User2", "User3", "User4", "User5");
+      assertTrue(cursor.isConsumed());
+      assertEquals(4, cursor.getCurrentIndex());
+    }
+  }
+
+  @Test
+  void shouldStopPrefetchingWhenSessionIsClosed() {
+    Cursor<User> cursor;
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      cursor = sqlSession.getMapper(Mapper.class).getAllUsers();
+      Iterator<User> iterator = cursor.iterator();
+      assertEquals("User1", iterator.next().getName());
+      assertTrue(cursor.isOpen());
+    }
+    assertFalse(cursor.isOpen());
+    assertFalse(cursor.isConsumed());
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals("User2", sqlSession.getMapper(Mapper.class).getUser(2).getName());
+    }
+  }
+
+  @Test
+  void shouldNotPrefetchWhenNestedResultMapHasNestedSelects() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> cursor = sqlSession.getMapper(Mapper.class).getUsersWithTeamLeaders();
+      assertFalse(cursor instanceof PrefetchingCursor);
+      List<User> users = new ArrayList<>();
+      cursor.forEach(users::add);
+      assertEquals(5, users.size());
+      assertEquals("User1", users.get(1).getTeam().getLeader().getName());
+      assertNull(users.get(2).getTeam());
+    }
+  }
+
+  @Test
+  void shouldNotPrefetchWhenDiscriminatorCaseHasNestedSelects() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> cursor = sqlSession.getMapper(Mapper.class).getUsersWithTeamsByDiscriminator();
+      assertFalse(cursor instanceof PrefetchingCursor);
+      List<User> users = new ArrayList<>();
+      cursor.forEach(users::add);
+      assertEquals(5, users.size());
+      assertEquals("Team1", users.get(3).getTeam().getName());
+      assertNull(users.get(4).getTeam());
+    }
+  }
+
+}
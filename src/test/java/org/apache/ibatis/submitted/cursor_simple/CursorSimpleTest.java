@@ -18,12 +18,18 @@ package org.apache.ibatis.submitted.cursor_simple;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.ibatis.BaseDataTest;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.Publisher;
+import org.apache.ibatis.cursor.Subscriber;
+import org.apache.ibatis.cursor.Subscription;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
@@ -468,4 +474,47 @@ class CursorSimpleTest {
       Assertions.assertTrue(cursor.isConsumed());
     }
   }
+
+  @Test
+  void shouldPublishUsersOnDemand() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Publisher<User> publisher = mapper.publishUsers(new RowBounds(1, 3));
+      List<String> names = new ArrayList<>();
+      AtomicBoolean completed = new AtomicBoolean();
+      AtomicReference<Subscription> subscription = new AtomicReference<>();
+      publisher.subscribe(new Subscriber<User>() {
+        @Override
+        public void onSubscribe(Subscription s) {
+          subscription.set(s);
+        }
+
+        @Override
+        public void onNext(User user) {
+          names.add(user.getName());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+          Assertions.fail(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+          completed.set(true);
+        }
+      });
+
+      // nothing is fetched before being requested
+      Assertions.assertTrue(names.isEmpty());
+
+      subscription.get().request(2);
+      Assertions.assertEquals(Arrays.asList("User2", "User3"), names);
+      Assertions.assertFalse(completed.get());
+
+      subscription.get().request(2);
+      Assertions.assertEquals(Arrays.asList("User2", "User3", "User4"), names);
+      Assertions.assertTrue(completed.get());
+    }
+  }
 }
@@ -18,6 +18,7 @@ package org.apache.ibatis.submitted.cursor_simple;
 import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.Publisher;
 import org.apache.ibatis.session.RowBounds;
 
 public interface Mapper {
@@ -38,4 +39,7 @@ public interface Mapper {
   @Select("select * from users")
   @Options(fetchSize = Integer.MIN_VALUE)
   Cursor<User> getUsersMysqlStream();
+
+  @Select("select * from users order by id")
+  Publisher<User> publishUsers(RowBounds rowBounds);
 }
@@ -0,0 +1,41 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.deferred_nested_select;
+
+import java.util.List;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.submitted.lazy_batch_loading.Blog;
+import org.apache.ibatis.submitted.lazy_batch_loading.Post;
+
+public interface Mapper {
+
+  List<Blog> selectBlogs();
+
+  void selectBlogs(ResultHandler<Blog> resultHandler);
+
+  Cursor<Blog> selectBlogsAsCursor();
+
+  List<Blog> selectUnbatchableBlogs();
+
+  List<Blog> selectBlogsWithPostsNotSelectingBlogId();
+
+  List<Blog> selectBlogsWithPostsMappingBlogIdToAnotherValue();
+
+  List<Post> selectPosts();
+
+}
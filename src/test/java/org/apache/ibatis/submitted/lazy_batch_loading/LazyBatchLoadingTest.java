@@ -0,0 +1,181 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.lazy_batch_loading;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LazyBatchLoadingTest {
+
+  private static final List<String> preparedSql = new ArrayList<>();
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/lazy_batch_loading/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    sqlSessionFactory.getConfiguration().addInterceptor(new PreparedSqlInterceptor());
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/lazy_batch_loading/CreateDB.sql");
+    preparedSql.clear();
+  }
+
+  @Test
+  void shouldLoadCollectionsOfAllBlogsWithOneQuery() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).selectBlogs();
+      assertEquals(1, preparedSql.size());
+      assertThat(subjects(blogs.get(2).getPosts())).containsExactly("Post 4");
+      assertEquals(2, preparedSql.size());
+      assertThat(preparedSql.get(1)).contains("where blog_id IN (?, ?, ?, ?, ?) order by id");
+      assertThat(subjects(blogs.get(0).getPosts())).containsExactly("Post 1", "Post 2", "Post 6");
+      assertThat(subjects(blogs.get(1).getPosts())).containsExactly("Post 3");
+      assertThat(blogs.get(3).getPosts()).isEmpty();
+      assertThat(subjects(blogs.get(4).getPosts())).containsExactly("Post 5");
+      assertEquals(2, preparedSql.size());
+    }
+  }
+
+  @Test
+  void shouldNotLoadMoreThanBatchSizeWithOneQuery() {
+    sqlSessionFactory.getConfiguration().setLazyLoadingBatchSize(3);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).selectBlogs();
+      for (Blog blog : blogs) {
+        blog.getPosts();
+      }
+      assertEquals(3, preparedSql.size());
+      assertThat(preparedSql.get(1)).contains("IN (?, ?, ?)");
+      assertThat(preparedSql.get(2)).contains("IN (?, ?)");
+      assertThat(subjects(blogs.get(0).getPosts())).containsExactly("Post 1", "Post 2", "Post 6");
+      assertThat(subjects(blogs.get(4).getPosts())).containsExactly("Post 5");
+    }
+  }
+
+  @Test
+  void shouldLoadAssociationsSharingTheSameKey() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Post> posts = sqlSession.getMapper(Mapper.class).selectPosts();
+      assertEquals("Alice", posts.get(0).getAuthor().getName());
+      assertEquals(2, preparedSql.size());
+      assertThat(preparedSql.get(1)).contains("where id IN (?, ?, ?)");
+      assertEquals("Bob", posts.get(1).getAuthor().getName());
+      assertEquals("Alice", posts.get(2).getAuthor().getName());
+      assertNull(posts.get(3).getAuthor());
+      assertEquals("Bob", posts.get(4).getAuthor().getName());
+      assertEquals("Alice", posts.get(5).getAuthor().getName());
+      assertEquals(2, preparedSql.size());
+    }
+  }
+
+  @Test
+  void shouldBatchNestedLazyLoads() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).selectBlogs();
+      assertEquals("Bob", blogs.get(0).getPosts().get(1).getAuthor().getName());
+      assertEquals("Alice", blogs.get(1).getPosts().get(0).getAuthor().getName());
+      assertEquals("Bob", blogs.get(4).getPosts().get(0).getAuthor().getName());
+      assertEquals(3, preparedSql.size());
+    }
+  }
+
+  @Test
+  void shouldLoadOneByOneWhenNestedSelectCannotBeRewritten() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).selectUnbatchableBlogs();
+      assertThat(subjects(blogs.get(0).getPosts())).containsExactly("Post 1", "Post 2", "Post 6");
+      assertThat(blogs.get(3).getPosts()).isEmpty();
+      assertEquals(3, preparedSql.size());
+      assertThat(preparedSql).noneMatch(sql -> sql.contains(" IN "));
+    }
+  }
+
+  @Test
+  void shouldLoadOneByOneWhenKeyColumnIsNotSelected() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).selectBlogsWithPostsNotSelectingBlogId();
+      assertThat(subjects(blogs.get(0).getPosts())).containsExactly("Post 1", "Post 2", "Post 6");
+      assertThat(subjects(blogs.get(1).getPosts())).containsExactly("Post 3");
+      assertThat(blogs.get(3).getPosts()).isEmpty();
+      assertEquals(4, preparedSql.size());
+      assertThat(preparedSql).noneMatch(sql -> sql.contains(" IN "));
+    }
+  }
+
+  @Test
+  void shouldLoadOneByOneWhenRowsDoNotMatchTheKeys() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).selectBlogsWithPostsMappingBlogIdToAnotherValue();
+      assertThat(subjects(blogs.get(0).getPosts())).containsExactly("Post 1", "Post 2", "Post 6");
+      assertEquals(3, preparedSql.size());
+      assertThat(preparedSql.get(1)).contains(" IN ");
+      assertThat(subjects(blogs.get(1).getPosts())).containsExactly("Post 3");
+      assertThat(blogs.get(3).getPosts()).isEmpty();
+      assertThat(subjects(blogs.get(4).getPosts())).containsExactly("Post 5");
+      assertEquals(6, preparedSql.size());
+      assertThat(preparedSql.subList(2, 6)).noneMatch(sql -> sql.contains(" IN "));
+    }
+  }
+
+  @Test
+  void shouldLoadOneByOneByDefault() {
+    sqlSessionFactory.getConfiguration().setLazyLoadingBatchSize(null);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).selectBlogs();
+      for (Blog blog : blogs) {
+        blog.getPosts();
+      }
+      assertEquals(6, preparedSql.size());
+      assertThat(subjects(blogs.get(0).getPosts())).containsExactly("Post 1", "Post 2", "Post 6");
+    }
+  }
+
+  private static List<String> subjects(List<Post> posts) {
+    return posts.stream().map(Post::getSubject).collect(Collectors.toList());
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class }))
+  public static class PreparedSqlInterceptor implements Interceptor {
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      preparedSql.add(((StatementHandler) invocation.getTarget()).getBoundSql().getSql());
+      return invocation.proceed();
+    }
+  }
+
+}
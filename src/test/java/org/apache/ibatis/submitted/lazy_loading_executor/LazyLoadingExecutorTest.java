@@ -0,0 +1,144 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.lazy_loading_executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.submitted.lazy_batch_loading.Blog;
+import org.apache.ibatis.submitted.lazy_batch_loading.Post;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LazyLoadingExecutorTest {
+
+  private static final List<String> preparingThreads = Collections.synchronizedList(new ArrayList<>());
+
+  private SqlSessionFactory sqlSessionFactory;
+  private ExecutorService loaders;
+  private ExecutorService callers;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/lazy_loading_executor/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    sqlSessionFactory.getConfiguration().addInterceptor(new PreparingThreadInterceptor());
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/lazy_batch_loading/CreateDB.sql");
+    loaders = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "lazy-loader"));
+    callers = Executors.newFixedThreadPool(4);
+    preparingThreads.clear();
+  }
+
+  @AfterEach
+  void tearDown() {
+    loaders.shutdownNow();
+    callers.shutdownNow();
+  }
+
+  @Test
+  void shouldLoadOnTheSharedExecutorFromAnotherThread() throws Exception {
+    sqlSessionFactory.getConfiguration().setLazyLoadingExecutor(loaders);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).selectBlogs();
+      List<Post> posts = callers.submit(() -> blogs.get(0).getPosts()).get(10, TimeUnit.SECONDS);
+      assertThat(posts).extracting(Post::getSubject).containsExactly("Post 1", "Post 2", "Post 6");
+      assertThat(preparingThreads).containsExactly(Thread.currentThread().getName(), "lazy-loader");
+    }
+  }
+
+  @Test
+  void shouldLoadOnTheSharedExecutorOnceTheSessionIsClosed() {
+    sqlSessionFactory.getConfiguration().setLazyLoadingExecutor(loaders);
+    List<Blog> blogs;
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      blogs = sqlSession.getMapper(Mapper.class).selectBlogs();
+    }
+    assertThat(blogs.get(1).getPosts()).extracting(Post::getSubject).containsExactly("Post 3");
+    assertThat(preparingThreads).containsExactly(Thread.currentThread().getName(), "lazy-loader");
+  }
+
+  @Test
+  void shouldLoadOnTheCallingThreadByDefault() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).selectBlogs();
+      String callingThread = callers.submit(() -> {
+        blogs.get(0).getPosts();
+        return Thread.currentThread().getName();
+      }).get(10, TimeUnit.SECONDS);
+      assertThat(preparingThreads).containsExactly(Thread.currentThread().getName(), callingThread);
+    }
+  }
+
+  @Test
+  void shouldLoadOnceWhenThreadsReadTheSamePropertyConcurrently() throws Exception {
+    sqlSessionFactory.getConfiguration().setLazyLoadingExecutor(loaders);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Blog blog = sqlSession.getMapper(Mapper.class).selectBlogs().get(0);
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<List<Post>>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        futures.add(callers.submit(() -> {
+          start.await();
+          return blog.getPosts();
+        }));
+      }
+      start.countDown();
+      List<Post> posts = futures.get(0).get(10, TimeUnit.SECONDS);
+      assertEquals(3, posts.size());
+      for (Future<List<Post>> future : futures) {
+        assertSame(posts, future.get(10, TimeUnit.SECONDS));
+      }
+      assertEquals(2, preparingThreads.size());
+      assertEquals("Blog 1", blog.getTitle());
+      assertEquals(2, preparingThreads.size());
+    }
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class }))
+  public static class PreparingThreadInterceptor implements Interceptor {
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      preparingThreads.add(Thread.currentThread().getName());
+      return invocation.proceed();
+    }
+  }
+
+}
@@ -0,0 +1,47 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.multirow_batch_insert;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+public interface Mapper {
+
+  @Insert("insert into users (name) values (#{name})")
+  @Options(useGeneratedKeys = true, keyProperty = "id")
+  void insertUser(User user);
+
+  @Insert("insert into users (name) values (#{user.name})")
+  @Options(useGeneratedKeys = true, keyProperty = "user.id")
+  void insertUserParam(@Param("user") User user);
+
+  @Insert("insert into users_copy (id, name) values (#{id}, 'copy of ' || #{name})")
+  void insertCopy(User user);
+
+  @Insert("insert into users_copy (id, name) select id, name from users where id = #{id}")
+  void copyUser(int id);
+
+  @Select("select id, name from users order by id")
+  List<User> getUsers();
+
+  @Select("select id, name from users_copy order by id")
+  List<User> getCopies();
+
+}
@@ -0,0 +1,186 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.multirow_batch_insert;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.BatchExecutorException;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MultiRowBatchInsertTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+  private static final List<String> preparedSql = new ArrayList<>();
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/multirow_batch_insert/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    sqlSessionFactory.getConfiguration().addInterceptor(new PreparedSqlInterceptor());
+  }
+
+  @BeforeEach
+  void resetDatabase() throws Exception {
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/multirow_batch_insert/CreateDB.sql");
+    preparedSql.clear();
+  }
+
+  @Test
+  void shouldRewriteInsertsAndAssignGeneratedKeys() {
+    List<User> users = new ArrayList<>();
+    List<BatchResult> results;
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 7; i++) {
+        User user = new User(null, "User" + i);
+        users.add(user);
+        mapper.insertUser(user);
+      }
+      results = sqlSession.flushStatements();
+      sqlSession.commit();
+    }
+    assertThat(preparedSql).containsExactly(
+        "insert into users (name) values (?),(?),(?)",
+        "insert into users (name) values (?)");
+    assertEquals(1, results.size());
+    assertEquals("insert into users (name) values (?)", results.get(0).getSql());
+    assertThat(results.get(0).getParameterObjects()).containsExactlyElementsOf(users);
+    assertThat(results.get(0).getUpdateCounts()).containsExactly(1, 1, 1, 1, 1, 1, 1);
+    for (int i = 0; i < 7; i++) {
+      assertEquals(Integer.valueOf(i + 1), users.get(i).getId());
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> stored = sqlSession.getMapper(Mapper.class).getUsers();
+      assertEquals(7, stored.size());
+      for (int i = 0; i < 7; i++) {
+        assertEquals(Integer.valueOf(i + 1), stored.get(i).getId());
+        assertEquals("User" + i, stored.get(i).getName());
+      }
+    }
+  }
+
+  @Test
+  void shouldAssignGeneratedKeysToParamMaps() {
+    List<User> users = new ArrayList<>();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 4; i++) {
+        User user = new User(null, "User" + i);
+        users.add(user);
+        mapper.insertUserParam(user);
+      }
+      sqlSession.flushStatements();
+      sqlSession.commit();
+    }
+    for (int i = 0; i < 4; i++) {
+      assertEquals(Integer.valueOf(i + 1), users.get(i).getId());
+    }
+  }
+
+  @Test
+  void shouldBindParametersWhenRowsAreAdded() {
+    List<BatchResult> results;
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user = new User();
+      for (int i = 1; i <= 6; i++) {
+        user.setId(i);
+        user.setName("User" + i);
+        mapper.insertCopy(user);
+      }
+      results = sqlSession.flushStatements();
+      sqlSession.commit();
+    }
+    assertThat(preparedSql).containsExactly(
+        "insert into users_copy (id, name) values (?, 'copy of ' || ?),(?, 'copy of ' || ?),(?, 'copy of ' || ?)");
+    assertThat(results.get(0).getUpdateCounts()).containsExactly(1, 1, 1, 1, 1, 1);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> copies = sqlSession.getMapper(Mapper.class).getCopies();
+      assertEquals(6, copies.size());
+      for (int i = 0; i < 6; i++) {
+        assertEquals(Integer.valueOf(i + 1), copies.get(i).getId());
+        assertEquals("copy of User" + (i + 1), copies.get(i).getName());
+      }
+    }
+  }
+
+  @Test
+  void shouldNotRewriteInsertsWithoutValues() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertUser(new User(null, "User1"));
+      mapper.insertUser(new User(null, "User2"));
+      mapper.copyUser(1);
+      mapper.copyUser(2);
+      List<BatchResult> results = sqlSession.flushStatements();
+      sqlSession.commit();
+      assertEquals(2, results.size());
+      assertThat(results.get(1).getUpdateCounts()).containsExactly(1, 1);
+    }
+    // rewritten inserts are prepared when flushed
+    assertThat(preparedSql).containsExactly(
+        "insert into users_copy (id, name) select id, name from users where id = ?",
+        "insert into users (name) values (?),(?)");
+  }
+
+  @Test
+  void shouldReportFailedRewrittenInserts() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertCopy(new User(1, "User1"));
+      mapper.insertCopy(new User(1, "User1"));
+      PersistenceException e = assertThrows(PersistenceException.class, sqlSession::flushStatements);
+      assertThat(e.getCause()).isInstanceOf(BatchExecutorException.class);
+      BatchExecutorException cause = (BatchExecutorException) e.getCause();
+      assertThat(cause.getMessage()).contains("insertCopy (batch index #1) failed.");
+      assertThat(cause.getSuccessfulBatchResults()).isEmpty();
+    }
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class }))
+  public static class PreparedSqlInterceptor implements Interceptor {
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      preparedSql.add(((StatementHandler) invocation.getTarget()).getBoundSql().getSql());
+      return invocation.proceed();
+    }
+  }
+
+}